@@ -0,0 +1,230 @@
+package com.example.benchmark;
+
+import com.example.bot.AdminNotifier;
+import com.example.bot.CoffeeLoyaltyBot;
+import com.example.bot.CommandMetrics;
+import com.example.bot.OutboundMessageQueue;
+import com.example.bot.TelegramSender;
+import com.example.bot.UpdateDeduplicator;
+import com.example.bot.UpdateDispatcher;
+import com.example.bot.command.AddEmployeeCommand;
+import com.example.bot.command.AddPointsCommand;
+import com.example.bot.command.BalanceCommand;
+import com.example.bot.command.CommandHandler;
+import com.example.bot.command.CommandRouter;
+import com.example.bot.command.ExportCommand;
+import com.example.bot.command.HelpCommand;
+import com.example.bot.command.ImportCommand;
+import com.example.bot.command.QuickAmounts;
+import com.example.bot.command.RedeemCommand;
+import com.example.bot.command.RegisterCommand;
+import com.example.bot.command.RemoveEmployeeCommand;
+import com.example.bot.command.StartCommand;
+import com.example.bot.command.StatsCommand;
+import com.example.entity.User;
+import com.example.rules.LoyaltyRules;
+import com.example.service.AdminRoster;
+import com.example.service.CampaignService;
+import com.example.service.CustomerTransferService;
+import com.example.service.LoyaltyService;
+import com.example.service.LoyaltyStats;
+import com.example.service.UserChangedEvent;
+import com.example.service.UserProfileCache;
+import com.example.service.UserLookup;
+import com.example.service.UserService;
+import com.example.state.InMemoryConversationStateStore;
+import com.example.throttle.InboundRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Бот, собранный без Spring: репозитории в памяти, заглушка вместо Telegram API
+ * и диспетчер, выполняющий обработку прямо в вызывающем потоке.
+ */
+final class BotFixture implements AutoCloseable {
+
+    static final long ADMIN_CHAT_ID = 1;
+    static final long EMPLOYEE_CHAT_ID = 2;
+    static final long CUSTOMER_CHAT_ID = 3;
+    static final String ADMIN_PHONE = "79990000001";
+    static final String EMPLOYEE_PHONE = "79990000002";
+    static final String CUSTOMER_PHONE = "79990000003";
+
+    final MeterRegistry registry = new SimpleMeterRegistry();
+    final InMemoryRepositories repositories = new InMemoryRepositories();
+    final StubSender sender = new StubSender();
+    final UserService userService;
+    final LoyaltyRules rules;
+    final LoyaltyService loyaltyService;
+    final CoffeeLoyaltyBot bot;
+
+    private final UpdateDispatcher dispatcher = new DirectDispatcher();
+    private final UpdateDeduplicator deduplicator;
+    private final OutboundMessageQueue outbound;
+    private final AtomicInteger updateIds = new AtomicInteger();
+
+    BotFixture() {
+        UserProfileCache profileCache = new UserProfileCache(Duration.ofMinutes(5), 10_000);
+        AdminRoster adminRoster = new AdminRoster(repositories.users);
+        ApplicationEventPublisher events = event -> {
+            if (event instanceof UserChangedEvent changed) {
+                profileCache.onUserChanged(changed);
+                adminRoster.onUserChanged(changed);
+            }
+        };
+        UserLookup userLookup = new RepositoryUserLookup(repositories);
+        userService = new UserService(repositories.users, userLookup, profileCache, adminRoster, events);
+        LoyaltyStats stats = new LoyaltyStats(repositories.dailyTotals, repositories.monthlyTotals, null,
+                ZoneId.of("Europe/Moscow"));
+        rules = new LoyaltyRules(repositories.rules, events, ZoneId.of("Europe/Moscow"));
+        loyaltyService = new LoyaltyService(repositories.users, userLookup, repositories.transactions, stats, rules,
+                events);
+        deduplicator = new UpdateDeduplicator(repositories.checkpoints, 65_536, "benchmark");
+        outbound = new OutboundMessageQueue(sender, registry, 2, 100_000, 1e9, 1e9, 1e9, 1, Duration.ZERO);
+        AdminNotifier adminNotifier = new AdminNotifier(userService, outbound, AdminNotifier.Mode.IMMEDIATE,
+                Set.of(), Set.of(), 50);
+        CustomerTransferService customerTransfer = new CustomerTransferService(null, events);
+        // Обработчики команд регистрируются так же, как их нашёл бы Spring
+        CampaignService campaignService = new CampaignService(repositories.campaigns, events);
+        StaticListableBeanFactory handlers = new StaticListableBeanFactory();
+        QuickAmounts quickAmounts = new QuickAmounts(new int[]{1, 2, 3, 5, 10});
+        List<CommandHandler> commands = List.of(
+                new StartCommand(),
+                new HelpCommand(handlers.getBeanProvider(CommandHandler.class), campaignService, rules),
+                new RegisterCommand(userService, campaignService, rules),
+                new BalanceCommand(),
+                new AddPointsCommand(loyaltyService, rules, adminNotifier, quickAmounts),
+                new RedeemCommand(loyaltyService, rules, adminNotifier, quickAmounts),
+                new AddEmployeeCommand(loyaltyService),
+                new RemoveEmployeeCommand(loyaltyService),
+                new ExportCommand(customerTransfer, sender),
+                new ImportCommand(customerTransfer, sender),
+                new StatsCommand(stats, 10));
+        commands.forEach(command -> handlers.addBean(command.name(), command));
+        bot = new CoffeeLoyaltyBot(userService, new CommandRouter(commands), dispatcher, deduplicator,
+                new InMemoryConversationStateStore(Duration.ofMinutes(30), 10_000), outbound,
+                new CommandMetrics(registry), new InboundRateLimiter(false, 1, 1, 1, 1, 1),
+                new DefaultBotOptions(), "benchmark_bot", "0:benchmark");
+
+        repositories.addUser(ADMIN_CHAT_ID, ADMIN_PHONE, false, true, 0);
+        repositories.addUser(EMPLOYEE_CHAT_ID, EMPLOYEE_PHONE, true, false, 0);
+        repositories.addUser(CUSTOMER_CHAT_ID, CUSTOMER_PHONE, false, false, 1_000_000);
+    }
+
+    /**
+     * Создаёт текстовое обновление; update_id каждый раз новый, как у настоящих обновлений.
+     */
+    Update update(long chatId, String text) {
+        Message message = new Message();
+        message.setChat(new Chat(chatId, "private"));
+        message.setMessageId(updateIds.get());
+        message.setText(text);
+        Update update = new Update();
+        update.setUpdateId(updateIds.incrementAndGet());
+        update.setMessage(message);
+        return update;
+    }
+
+    void send(long chatId, String text) {
+        bot.onUpdateReceived(update(chatId, text));
+    }
+
+    /**
+     * Нажимает кнопку под новым сообщением бота: каждый раз другая подсказка, как при новых операциях.
+     */
+    void press(long chatId, String data) {
+        Message prompt = new Message();
+        prompt.setChat(new Chat(chatId, "private"));
+        prompt.setMessageId(updateIds.get());
+        CallbackQuery query = new CallbackQuery();
+        query.setId(Integer.toString(updateIds.get()));
+        query.setMessage(prompt);
+        query.setData(data);
+        Update update = new Update();
+        update.setUpdateId(updateIds.incrementAndGet());
+        update.setCallbackQuery(query);
+        bot.onUpdateReceived(update);
+    }
+
+    @Override
+    public void close() throws Exception {
+        outbound.destroy();
+        dispatcher.destroy();
+        deduplicator.destroy();
+    }
+
+    /**
+     * Выполняет обработку обновления синхронно, чтобы бенчмарк измерял саму обработку, а не постановку в очередь.
+     */
+    private static final class DirectDispatcher extends UpdateDispatcher {
+        DirectDispatcher() {
+            super(1, 1);
+        }
+
+        @Override
+        public void dispatch(long chatId, Runnable task) {
+            task.run();
+        }
+    }
+
+    /**
+     * Поиск пользователей прямо в репозитории в памяти, без Hibernate и его кэша.
+     */
+    private static final class RepositoryUserLookup extends UserLookup {
+        private final InMemoryRepositories repositories;
+
+        RepositoryUserLookup(InMemoryRepositories repositories) {
+            super(null, null, repositories.users, 0);
+            this.repositories = repositories;
+        }
+
+        @Override
+        public Optional<User> findByPhoneNumber(String phoneNumber) {
+            return repositories.users.findByPhoneNumber(phoneNumber);
+        }
+
+        @Override
+        public Optional<User> findByPhoneKey(long phoneKey) {
+            return repositories.byPhone(phoneKey);
+        }
+
+        @Override
+        public Optional<User> findByChatId(long chatId) {
+            return repositories.users.findByChatId(chatId);
+        }
+    }
+
+    /**
+     * Заглушка Telegram API: только считает отправленные сообщения.
+     */
+    static final class StubSender extends TelegramSender {
+        final LongAdder sent = new LongAdder();
+
+        StubSender() {
+            super(new DefaultBotOptions(), "0:benchmark");
+        }
+
+        @Override
+        public <T extends Serializable, Method extends BotApiMethod<T>> T execute(Method method) {
+            sent.increment();
+            return null;
+        }
+    }
+}
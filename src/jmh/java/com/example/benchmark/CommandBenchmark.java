@@ -0,0 +1,66 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор и выполнение однострочных команд через {@code onUpdateReceived}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBenchmark {
+
+    private static final long GUEST_CHAT_ID = 999;
+
+    private BotFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = new BotFixture();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void start() {
+        fixture.send(BotFixture.CUSTOMER_CHAT_ID, "/start");
+    }
+
+    @Benchmark
+    public void unknownCommand() {
+        fixture.send(BotFixture.CUSTOMER_CHAT_ID, "кофе пожалуйста");
+    }
+
+    @Benchmark
+    public void balance() {
+        fixture.send(BotFixture.CUSTOMER_CHAT_ID, "/balance");
+    }
+
+    @Benchmark
+    public void helpGuest() {
+        fixture.send(GUEST_CHAT_ID, "/help");
+    }
+
+    @Benchmark
+    public void helpCustomer() {
+        fixture.send(BotFixture.CUSTOMER_CHAT_ID, "/help");
+    }
+
+    @Benchmark
+    public void helpEmployee() {
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, "помощь");
+    }
+
+    @Benchmark
+    public void helpAdmin() {
+        fixture.send(BotFixture.ADMIN_CHAT_ID, "/HELP");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Многошаговые сценарии: каждый вызов проходит все переходы состояний {@code UserState} от команды до завершения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversationFlowBenchmark {
+
+    private static final long NEW_CUSTOMER_CHAT_ID = 1_000;
+    private static final String NEW_CUSTOMER_PHONE = "79991234567";
+
+    private BotFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = new BotFixture();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    /** /register → AWAITING_PHONE → регистрация. */
+    @Benchmark
+    public void register() {
+        fixture.send(NEW_CUSTOMER_CHAT_ID, "/register");
+        fixture.send(NEW_CUSTOMER_CHAT_ID, NEW_CUSTOMER_PHONE);
+        fixture.repositories.removeUser(NEW_CUSTOMER_CHAT_ID);
+        fixture.userService.findProfile(NEW_CUSTOMER_CHAT_ID);
+    }
+
+    /** /addpoints → ADD_POINTS_AWAITING_PHONE → ADD_POINTS_AWAITING_AMOUNT → начисление. */
+    @Benchmark
+    public void addPoints() {
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, "/addpoints");
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, BotFixture.CUSTOMER_PHONE);
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, "5");
+    }
+
+    /** /addpoints с номером и баллами в одном сообщении: начисление без диалога. */
+    @Benchmark
+    public void addPointsOneShot() {
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, "/addpoints " + BotFixture.CUSTOMER_PHONE + " 5");
+    }
+
+    /** /addpoints с номером → ADD_POINTS_AWAITING_AMOUNT → нажатие кнопки с количеством. */
+    @Benchmark
+    public void addPointsKeyboard() {
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, "/addpoints " + BotFixture.CUSTOMER_PHONE);
+        fixture.press(BotFixture.EMPLOYEE_CHAT_ID, "addpoints:" + BotFixture.CUSTOMER_PHONE + ":5");
+    }
+
+    /** /redeem → REDEEM_AWAITING_PHONE → REDEEM_AWAITING_AMOUNT → списание. */
+    @Benchmark
+    public void redeem() {
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, "/redeem");
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, BotFixture.CUSTOMER_PHONE);
+        fixture.send(BotFixture.EMPLOYEE_CHAT_ID, "1");
+    }
+
+    /** /addemployee → ADD_EMPLOYEE_AWAITING_PHONE → назначение; /removeemployee с номером в той же строке. */
+    @Benchmark
+    public void addAndRemoveEmployee() {
+        fixture.send(BotFixture.ADMIN_CHAT_ID, "/addemployee");
+        fixture.send(BotFixture.ADMIN_CHAT_ID, BotFixture.CUSTOMER_PHONE);
+        fixture.send(BotFixture.ADMIN_CHAT_ID, "/removeemployee " + BotFixture.CUSTOMER_PHONE);
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.benchmark;
+
+import com.example.entity.BalanceChange;
+import com.example.entity.BotCheckpoint;
+import com.example.entity.Campaign;
+import com.example.entity.LoyaltyRule;
+import com.example.entity.PointsTransaction;
+import com.example.entity.User;
+import com.example.entity.UserProfile;
+import com.example.phone.PhoneNumbers;
+import com.example.repository.BotCheckpointRepository;
+import com.example.repository.CampaignRepository;
+import com.example.repository.CustomerMonthlyTotalRepository;
+import com.example.repository.EmployeeDailyTotalRepository;
+import com.example.repository.LoyaltyRuleRepository;
+import com.example.repository.PointsTransactionRepository;
+import com.example.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Репозитории в памяти для бенчмарков: реализуют только методы, которые вызывают сервисы бота,
+ * остальные методы Spring Data бросают UnsupportedOperationException.
+ */
+final class InMemoryRepositories {
+
+    private final Map<Long, User> usersByChatId = new ConcurrentHashMap<>();
+    private final Map<Long, User> usersByPhoneKey = new ConcurrentHashMap<>();
+    // Ключи идемпотентности ограничены по числу, чтобы длинный прогон не упирался в память
+    private final Cache<String, Boolean> idempotencyKeys = Caffeine.newBuilder().maximumSize(100_000).build();
+    private final AtomicLong userIds = new AtomicLong();
+
+    final UserRepository users = proxy(UserRepository.class, this::onUserRepository);
+    final PointsTransactionRepository transactions = proxy(PointsTransactionRepository.class, this::onTransactionRepository);
+    final BotCheckpointRepository checkpoints = proxy(BotCheckpointRepository.class, this::onCheckpointRepository);
+    final CampaignRepository campaigns = proxy(CampaignRepository.class, this::onCampaignRepository);
+    final EmployeeDailyTotalRepository dailyTotals = proxy(EmployeeDailyTotalRepository.class,
+            (method, args) -> onTotalsRepository("EmployeeDailyTotalRepository", method));
+    final CustomerMonthlyTotalRepository monthlyTotals = proxy(CustomerMonthlyTotalRepository.class,
+            (method, args) -> onTotalsRepository("CustomerMonthlyTotalRepository", method));
+    final LoyaltyRuleRepository rules = proxy(LoyaltyRuleRepository.class, this::onRuleRepository);
+    private final List<LoyaltyRule> ruleRows = new CopyOnWriteArrayList<>();
+
+    User addUser(long chatId, String phoneNumber, boolean employee, boolean admin, int points) {
+        return save(new User(chatId, phoneNumber, employee, admin, points));
+    }
+
+    void addRule(LoyaltyRule rule) {
+        ruleRows.add(rule);
+    }
+
+    void removeUser(long chatId) {
+        User user = usersByChatId.remove(chatId);
+        if (user != null) {
+            usersByPhoneKey.remove(user.getPhoneKey());
+        }
+    }
+
+    private User save(User user) {
+        if (user.getId() == null) {
+            user.setId(userIds.incrementAndGet());
+        }
+        usersByChatId.put(user.getChatId(), user);
+        usersByPhoneKey.put(user.getPhoneKey(), user);
+        return user;
+    }
+
+    private Object onUserRepository(String method, Object[] args) {
+        switch (method) {
+            case "save":
+                return save((User) args[0]);
+            case "findByChatId":
+                return Optional.ofNullable(usersByChatId.get((Long) args[0]));
+            case "findByPhoneNumber":
+                return byPhone(args[0]);
+            case "findProfileByChatId":
+                return Optional.ofNullable(usersByChatId.get((Long) args[0])).map(InMemoryRepositories::profileOf);
+            case "existsByPhoneNumber":
+                return byPhone(args[0]).isPresent();
+            case "existsByPhoneNumberAndIsEmployeeTrue":
+                return byPhone(args[0]).map(User::isEmployee).orElse(false);
+            case "existsByPhoneNumberAndIsAdminTrue":
+                return byPhone(args[0]).map(User::isAdmin).orElse(false);
+            case "findAdminChatIds":
+                return usersByChatId.values().stream().filter(User::isAdmin).map(User::getChatId).toList();
+            case "findAllByIsAdminTrue":
+                return usersByChatId.values().stream().filter(User::isAdmin).toList();
+            case "creditPoints": {
+                Optional<User> employee = byPhone(args[0]).filter(User::isEmployee);
+                Optional<User> customer = byPhone(args[1]);
+                if (employee.isEmpty() || customer.isEmpty()) {
+                    return Optional.empty();
+                }
+                return Optional.of(change(customer.get(), (Integer) args[2], employee.get().getId()));
+            }
+            case "debitPoints": {
+                Optional<User> employee = byPhone(args[0]).filter(user -> user.isEmployee() || user.isAdmin());
+                Optional<User> customer = byPhone(args[1]).filter(user -> user.getPoints() >= (Integer) args[2]);
+                if (employee.isEmpty() || customer.isEmpty()) {
+                    return Optional.empty();
+                }
+                return Optional.of(change(customer.get(), -(Integer) args[2], employee.get().getId()));
+            }
+            case "debitPointsByChatId":
+                return Optional.ofNullable(usersByChatId.get((Long) args[0]))
+                        .filter(user -> user.getPoints() >= (Integer) args[1])
+                        .map(user -> change(user, -(Integer) args[1], null));
+            default:
+                throw new UnsupportedOperationException("UserRepository." + method);
+        }
+    }
+
+    private Object onTransactionRepository(String method, Object[] args) {
+        switch (method) {
+            case "existsByIdempotencyKey":
+                return args[0] != null && idempotencyKeys.getIfPresent((String) args[0]) != null;
+            case "save": {
+                PointsTransaction transaction = (PointsTransaction) args[0];
+                if (transaction.getIdempotencyKey() != null) {
+                    idempotencyKeys.put(transaction.getIdempotencyKey(), Boolean.TRUE);
+                }
+                return transaction;
+            }
+            default:
+                throw new UnsupportedOperationException("PointsTransactionRepository." + method);
+        }
+    }
+
+    private Object onCheckpointRepository(String method, Object[] args) {
+        switch (method) {
+            case "findById":
+                return Optional.<BotCheckpoint>empty();
+            case "save":
+                return args[0];
+            default:
+                throw new UnsupportedOperationException("BotCheckpointRepository." + method);
+        }
+    }
+
+    private Object onCampaignRepository(String method, Object[] args) {
+        if (method.equals("findFirstByOrderByIdDesc")) {
+            return Optional.<Campaign>empty();
+        }
+        throw new UnsupportedOperationException("CampaignRepository." + method);
+    }
+
+    private Object onRuleRepository(String method, Object[] args) {
+        if (method.equals("findByEnabledTrueOrderByIdAsc")) {
+            return List.copyOf(ruleRows);
+        }
+        throw new UnsupportedOperationException("LoyaltyRuleRepository." + method);
+    }
+
+    private static Object onTotalsRepository(String repository, String method) {
+        // Итоги в бенчмарках не читаются, важна только стоимость вызова в транзакции операции
+        if (method.equals("accumulate")) {
+            return 1;
+        }
+        throw new UnsupportedOperationException(repository + "." + method);
+    }
+
+    /**
+     * Ищет пользователя по номеру телефона: строкой в любой записи или каноническим ключом.
+     */
+    Optional<User> byPhone(Object phone) {
+        long key = phone instanceof Long phoneKey ? phoneKey : PhoneNumbers.parse((String) phone);
+        return Optional.ofNullable(usersByPhoneKey.get(key));
+    }
+
+    private static BalanceChange change(User user, int delta, Long employeeId) {
+        synchronized (user) {
+            user.setPoints(user.getPoints() + delta);
+            return new Change(user.getId(), user.getChatId(), user.getPoints(), delta, employeeId);
+        }
+    }
+
+    private static UserProfile profileOf(User user) {
+        return new UserProfile(user.getId(), user.getChatId(), user.getPhoneNumber(), user.getPoints(),
+                user.isEmployee(), user.isAdmin());
+    }
+
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                case "toString":
+                    return "InMemory" + type.getSimpleName();
+                default:
+                    return handler.handle(method.getName(), args == null ? new Object[0] : args);
+            }
+        });
+        return type.cast(proxy);
+    }
+
+    private record Change(Long id, Long chatId, Integer points, Integer delta, Long employeeId) implements BalanceChange {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getChatId() {
+            return chatId;
+        }
+
+        @Override
+        public Integer getPoints() {
+            return points;
+        }
+
+        @Override
+        public Integer getDelta() {
+            return delta;
+        }
+
+        @Override
+        public Long getEmployeeId() {
+            return employeeId;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.benchmark;
+
+import com.example.throttle.InboundRateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость проверки входящего лимита на каждое обновление, из нескольких потоков опроса и webhook сразу.
+ * {@code manyChats} — обычный поток от множества чатов (таблица заполнена и вытесняет старые чаты),
+ * {@code floodingChat} — один чат сверх лимита: так выглядит отбрасывание.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class InboundRateLimiterBenchmark {
+
+    private InboundRateLimiter limiter;
+
+    @State(Scope.Thread)
+    public static class Chats {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup
+    public void setUp() {
+        limiter = new InboundRateLimiter(true, 1, 10, 1e9, 1e9, 65_536);
+    }
+
+    @Benchmark
+    public InboundRateLimiter.Decision manyChats(Chats chats) {
+        return limiter.tryAcquire(chats.random.nextLong(1, 1_000_000));
+    }
+
+    @Benchmark
+    public InboundRateLimiter.Decision floodingChat() {
+        return limiter.tryAcquire(42);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.benchmark;
+
+import com.example.entity.BalanceChange;
+import com.example.entity.LoyaltyRule;
+import com.example.entity.RuleKind;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Начисление и списание баллов в {@code LoyaltyService} без участия бота,
+ * без правил программы лояльности и с набором множителей, бонусов счастливых часов, ограничений и наград.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoyaltyServiceBenchmark {
+
+    @Param({"false", "true"})
+    public boolean rules;
+
+    private BotFixture fixture;
+    private long operations;
+
+    @Setup
+    public void setUp() {
+        fixture = new BotFixture();
+        if (rules) {
+            for (int hour = 8; hour < 22; hour += 2) {
+                fixture.repositories.addRule(window(RuleKind.BONUS, 1, hour));
+            }
+            fixture.repositories.addRule(window(RuleKind.MULTIPLIER, 150, 7));
+            fixture.repositories.addRule(window(RuleKind.MULTIPLIER, 200, 15));
+            fixture.repositories.addRule(new LoyaltyRule(RuleKind.ACCRUAL_CAP, 100, null));
+            fixture.repositories.addRule(new LoyaltyRule(RuleKind.REDEEM_MAX, 50, null));
+            fixture.repositories.addRule(new LoyaltyRule(RuleKind.REWARD, 10, "кружка кофе"));
+            fixture.repositories.addRule(new LoyaltyRule(RuleKind.REWARD, 50, "десерт"));
+        }
+        fixture.rules.reload();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public BalanceChange addPoints() {
+        return fixture.loyaltyService.addPoints(BotFixture.EMPLOYEE_PHONE, BotFixture.CUSTOMER_PHONE, 1,
+                "bench:" + operations++);
+    }
+
+    @Benchmark
+    public BalanceChange redeemPoints() {
+        fixture.loyaltyService.addPoints(BotFixture.EMPLOYEE_PHONE, BotFixture.CUSTOMER_PHONE, 1,
+                "bench:" + operations++);
+        return fixture.loyaltyService.redeemPoints(BotFixture.EMPLOYEE_PHONE, BotFixture.CUSTOMER_PHONE, 1,
+                "bench:" + operations++);
+    }
+
+    private static LoyaltyRule window(RuleKind kind, int amount, int hour) {
+        LoyaltyRule rule = new LoyaltyRule(kind, amount, null);
+        rule.setStartsAt(LocalTime.of(hour, 0));
+        rule.setEndsAt(LocalTime.of(hour + 1, 0));
+        return rule;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.benchmark;
+
+import com.example.Main;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Холодный запуск контекста до готовности принимать обновления: каждая форка — новая JVM, один замер.
+ * Нужна локальная PostgreSQL из application.properties; бот запускается в режиме webhook
+ * и не обращается к Telegram. Запуск: mvn -Pbenchmarks test-compile exec:exec -Djmh.args=StartupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({"dev,webhook", "dev,webhook,startup"})
+    public String profiles;
+
+    private ConfigurableApplicationContext context;
+
+    @Benchmark
+    public ConfigurableApplicationContext start() {
+        context = SpringApplication.run(Main.class,
+                "--spring.profiles.active=" + profiles,
+                "--bot.token=0:benchmark",
+                "--server.port=0",
+                "--management.server.port=0");
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+}
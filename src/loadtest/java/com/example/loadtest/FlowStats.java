@@ -0,0 +1,101 @@
+package com.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Результаты одного сценария за время замера. Задержки хранятся целиком, перцентили считаются точно
+ * по отсортированному массиву: даже час при сотне сценариев в секунду — это несколько мегабайт.
+ */
+final class FlowStats {
+
+    private static final int SAMPLE_ERRORS = 3;
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final Map<String, LongAdder> errorTexts = new ConcurrentHashMap<>();
+    private long[] latencies = new long[1024];
+    private int completed;
+
+    void started() {
+        started.increment();
+    }
+
+    /**
+     * Для сценария не нашлось свободного участника: все клиенты или сотрудники заняты.
+     */
+    void skipped() {
+        skipped.increment();
+    }
+
+    synchronized void succeeded(long latencyNanos) {
+        if (completed == latencies.length) {
+            latencies = Arrays.copyOf(latencies, completed * 2);
+        }
+        latencies[completed++] = latencyNanos;
+    }
+
+    void failed(String error) {
+        errors.increment();
+        errorTexts.computeIfAbsent(error, text -> new LongAdder()).increment();
+    }
+
+    void timedOut() {
+        timeouts.increment();
+    }
+
+    long errorCount() {
+        return errors.sum() + timeouts.sum();
+    }
+
+    /**
+     * Строка отчёта: запуски, исходы, пропускная способность и перцентили задержки в миллисекундах.
+     */
+    String report(String flow, double seconds) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latencies, completed);
+        }
+        Arrays.sort(sorted);
+        long started = this.started.sum();
+        long failed = errorCount();
+        return String.format("%-8s %8d %8d %7d %8d %7d %8.1f %6.1f%% %8s %8s %8s %8s",
+                flow, started, sorted.length, errors.sum(), timeouts.sum(), skipped.sum(),
+                sorted.length / seconds, started == 0 ? 0.0 : 100.0 * failed / started,
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 1.0));
+    }
+
+    static String header() {
+        return String.format("%-8s %8s %8s %7s %8s %7s %8s %7s %8s %8s %8s %8s",
+                "flow", "started", "ok", "errors", "timeouts", "skipped", "ok/s", "err", "p50,ms", "p90,ms",
+                "p99,ms", "max,ms");
+    }
+
+    /**
+     * Самые частые ответы, засчитанные как ошибки.
+     */
+    List<String> sampleErrors() {
+        List<Map.Entry<String, LongAdder>> entries = new ArrayList<>(errorTexts.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+        return entries.stream()
+                .limit(SAMPLE_ERRORS)
+                .map(entry -> entry.getValue().sum() + " × " + entry.getKey().replace('\n', ' '))
+                .toList();
+    }
+
+    private static String millis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        long nanos = sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
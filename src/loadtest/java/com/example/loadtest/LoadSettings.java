@@ -0,0 +1,106 @@
+package com.example.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры нагрузки из аргументов --load.*; остальные аргументы передаются боту.
+ *
+ * @param datasource JDBC URL отдельной базы для нагрузки; обязателен
+ * @param rate запусков сценариев в секунду, суммарно по всем сценариям
+ * @param duration длительность замера после прогрева
+ * @param warmup прогрев: сценарии запускаются, но в отчёт не попадают
+ * @param customers число заранее зарегистрированных клиентов
+ * @param baristas число сотрудников
+ * @param mix относительные веса сценариев
+ * @param timeout сколько ждать ответа бота
+ * @param accrualPoints сколько баллов начисляет сотрудник
+ * @param redeemPoints сколько баллов списывает сотрудник
+ * @param cleanup удалить данные нагрузки из базы после прогона
+ */
+record LoadSettings(String datasource, double rate, Duration duration, Duration warmup, int customers, int baristas,
+                    Map<Scenario.Flow, Integer> mix, Duration timeout, int accrualPoints, int redeemPoints,
+                    boolean cleanup) {
+
+    private static final String PREFIX = "--load.";
+
+    /**
+     * Разбирает аргументы командной строки.
+     *
+     * @param args    все аргументы
+     * @param botArgs сюда складываются аргументы, не относящиеся к нагрузке
+     */
+    static LoadSettings parse(String[] args, List<String> botArgs) {
+        String datasource = null;
+        double rate = 20;
+        Duration duration = Duration.ofSeconds(60);
+        Duration warmup = Duration.ofSeconds(10);
+        int customers = 2000;
+        int baristas = 20;
+        Map<Scenario.Flow, Integer> mix = parseMix("register:10,balance:40,accrual:35,redeem:15");
+        Duration timeout = Duration.ofSeconds(10);
+        int accrualPoints = 5;
+        int redeemPoints = 5;
+        boolean cleanup = false;
+        for (String arg : args) {
+            if (!arg.startsWith(PREFIX)) {
+                botArgs.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Ожидается " + PREFIX + "параметр=значение: " + arg);
+            }
+            String name = arg.substring(PREFIX.length(), eq);
+            String value = arg.substring(eq + 1);
+            switch (name) {
+                case "datasource" -> datasource = value;
+                case "rate" -> rate = Double.parseDouble(value);
+                case "duration" -> duration = DurationStyle.detectAndParse(value);
+                case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+                case "customers" -> customers = Integer.parseInt(value);
+                case "baristas" -> baristas = Integer.parseInt(value);
+                case "mix" -> mix = parseMix(value);
+                case "timeout" -> timeout = DurationStyle.detectAndParse(value);
+                case "accrual-points" -> accrualPoints = Integer.parseInt(value);
+                case "redeem-points" -> redeemPoints = Integer.parseInt(value);
+                case "cleanup" -> cleanup = Boolean.parseBoolean(value);
+                default -> throw new IllegalArgumentException("Неизвестный параметр нагрузки: " + arg);
+            }
+        }
+        if (datasource == null || datasource.isBlank()) {
+            throw new IllegalArgumentException("Нужна отдельная база для нагрузки: " + PREFIX
+                    + "datasource=jdbc:postgresql://localhost:5432/coffee_loyalty_load");
+        }
+        if (rate <= 0 || customers < 1 || baristas < 1) {
+            throw new IllegalArgumentException("rate, customers и baristas должны быть положительными");
+        }
+        return new LoadSettings(datasource, rate, duration, warmup, customers, baristas, mix, timeout, accrualPoints,
+                redeemPoints, cleanup);
+    }
+
+    /**
+     * Веса сценариев в виде «register:10,balance:40,accrual:35,redeem:15»; неуказанные сценарии не запускаются.
+     */
+    private static Map<Scenario.Flow, Integer> parseMix(String value) {
+        Map<Scenario.Flow, Integer> mix = new EnumMap<>(Scenario.Flow.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.trim().split(":");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Ожидается сценарий:вес, получено: " + part);
+            }
+            int share = Integer.parseInt(weight[1].trim());
+            if (share > 0) {
+                mix.put(Scenario.Flow.parse(weight[0].trim()), share);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("В смеси нет ни одного сценария: " + value);
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.loadtest;
+
+import com.example.Main;
+import com.example.throttle.InboundRateLimiter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Нагрузочный прогон бота целиком: настоящий контекст Spring и PostgreSQL, вместо Telegram — локальная
+ * заглушка Bot API. Сценарии запускаются с заданной частотой независимо от того, успевает ли бот
+ * (открытая модель нагрузки), поэтому задержки включают ожидание в очередях бота.
+ * <p>
+ * Нужна отдельная база (--load.datasource), схему в ней создают миграции при старте бота. На основной базе
+ * бота и на базе с пользователями не из нагрузки прогон не запускается. Участники нагрузки заводятся
+ * в диапазонах chatId и телефонов, которых нет у настоящих пользователей Telegram, данные прошлого прогона
+ * удаляются перед стартом. Рассылки и сверка журнала на время прогона выключены.
+ * Запуск: mvn -Ploadtest test-compile exec:exec
+ * -Dloadtest.args="--load.datasource=jdbc:postgresql://localhost:5432/coffee_loyalty_load --load.rate=50"
+ * <p>
+ * Параметры нагрузки — --load.datasource, rate, duration, warmup, customers, baristas, mix, timeout, accrual-points,
+ * redeem-points, cleanup (см. {@link LoadSettings}); остальные аргументы получает бот. Исходящие сообщения
+ * по умолчанию ограничены лимитами Telegram, чтобы замерить сам бот, их можно поднять:
+ * --bot.outbound.global-rate=1000 --bot.outbound.per-chat-rate=100.
+ */
+public final class LoadTest {
+
+    private static final String CHECKPOINT = "loadtest";
+    private static final String DATASOURCE_URL = "spring.datasource.url";
+    /** chatId всех участников нагрузки: от первого клиента до последнего сотрудника. */
+    private static final long LOAD_CHATS_FROM = Scenario.CUSTOMER_CHAT;
+    private static final long LOAD_CHATS_TO = Scenario.BARISTA_CHAT + Scenario.RANGE;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> botArgs = new ArrayList<>();
+        LoadSettings settings = LoadSettings.parse(args, botArgs);
+        requireSeparateDatabase(settings, botArgs);
+        int exitCode;
+        try (TelegramApiStub telegram = new TelegramApiStub()) {
+            List<String> arguments = new ArrayList<>(List.of(
+                    "--bot.api-base-url=" + telegram.baseUrl(),
+                    "--bot.token=0:loadtest",
+                    "--bot.username=loadtest_bot",
+                    "--bot.dedup.checkpoint=" + CHECKPOINT,
+                    "--" + DATASOURCE_URL + "=" + settings.datasource(),
+                    "--bot.broadcast.enabled=false",
+                    "--bot.ledger.verify-enabled=false",
+                    "--server.port=0",
+                    "--management.server.port=0",
+                    "--logging.level.root=WARN"));
+            arguments.addAll(botArgs);
+            try (ConfigurableApplicationContext context = SpringApplication.run(Main.class,
+                    arguments.toArray(String[]::new))) {
+                JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+                requireOnlyLoadData(jdbc, settings);
+                // Бот отбрасывает update_id не выше сохранённой отметки, нумерация продолжается с неё
+                List<Long> floor = jdbc.queryForList("SELECT value FROM bot_checkpoints WHERE name = ?",
+                        Long.class, CHECKPOINT);
+                telegram.startUpdatesAfter(floor.isEmpty() ? 0 : floor.get(0));
+                deleteLoadData(jdbc);
+                seed(jdbc, settings);
+
+                Map<Scenario.Flow, FlowStats> stats = run(new Scenario(telegram, settings), settings);
+                report(stats, settings, context.getBean(InboundRateLimiter.class), telegram);
+                exitCode = stats.values().stream().mapToLong(FlowStats::errorCount).sum() == 0 ? 0 : 1;
+                if (settings.cleanup()) {
+                    deleteLoadData(jdbc);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Потоки опроса Telegram не демоны и переживают закрытие контекста: процесс завершает только System.exit
+            e.printStackTrace();
+            exitCode = 2;
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Запускает сценарии с заданной частотой на время прогрева и замера, затем ждёт незавершённые.
+     */
+    private static Map<Scenario.Flow, FlowStats> run(Scenario scenario, LoadSettings settings)
+            throws InterruptedException {
+        Map<Scenario.Flow, FlowStats> stats = new EnumMap<>(Scenario.Flow.class);
+        settings.mix().keySet().forEach(flow -> stats.put(flow, new FlowStats()));
+        Scenario.Flow[] flows = settings.mix().keySet().toArray(Scenario.Flow[]::new);
+        int[] weights = settings.mix().values().stream().mapToInt(Integer::intValue).toArray();
+        int totalWeight = settings.mix().values().stream().mapToInt(Integer::intValue).sum();
+
+        long measureFrom = System.nanoTime() + settings.warmup().toNanos();
+        ExecutorService users = Executors.newCachedThreadPool();
+        ScheduledExecutorService clock = Executors.newSingleThreadScheduledExecutor();
+        long periodNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / settings.rate()));
+        clock.scheduleAtFixedRate(() -> {
+            Scenario.Flow flow = pick(flows, weights, ThreadLocalRandom.current().nextInt(totalWeight));
+            // Сценарии прогрева выполняются, но в отчёт не попадают
+            FlowStats flowStats = System.nanoTime() >= measureFrom ? stats.get(flow) : new FlowStats();
+            users.execute(() -> execute(scenario, flow, flowStats));
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        System.out.printf("Прогрев %s, замер %s, %.1f сценариев/с%n", settings.warmup(), settings.duration(),
+                settings.rate());
+        TimeUnit.NANOSECONDS.sleep(settings.warmup().plus(settings.duration()).toNanos());
+        clock.shutdownNow();
+        users.shutdown();
+        if (!users.awaitTermination(settings.timeout().toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            users.shutdownNow();
+        }
+        return stats;
+    }
+
+    private static void execute(Scenario scenario, Scenario.Flow flow, FlowStats stats) {
+        long start = System.nanoTime();
+        try {
+            if (!scenario.run(flow)) {
+                stats.skipped();
+                return;
+            }
+            stats.started();
+            stats.succeeded(System.nanoTime() - start);
+        } catch (Scenario.UnexpectedReplyException e) {
+            stats.started();
+            stats.failed(e.getMessage());
+        } catch (TimeoutException e) {
+            stats.started();
+            stats.timedOut();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            stats.started();
+            stats.failed(e.toString());
+        }
+    }
+
+    private static Scenario.Flow pick(Scenario.Flow[] flows, int[] weights, int point) {
+        for (int i = 0; i < flows.length; i++) {
+            point -= weights[i];
+            if (point < 0) {
+                return flows[i];
+            }
+        }
+        return flows[flows.length - 1];
+    }
+
+    private static void report(Map<Scenario.Flow, FlowStats> stats, LoadSettings settings, InboundRateLimiter limiter,
+                               TelegramApiStub telegram) {
+        double seconds = settings.duration().toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.println();
+        System.out.println(FlowStats.header());
+        stats.forEach((flow, flowStats) -> System.out.println(flowStats.report(flow.label(), seconds)));
+        stats.forEach((flow, flowStats) -> flowStats.sampleErrors()
+                .forEach(error -> System.out.println("  " + flow.label() + ": " + error)));
+        System.out.println();
+        // Отказы ограничителя входящих видны и как ошибки сценариев, здесь — сколько их было всего
+        System.out.printf("Отклонено входящих: по чату %d, по экземпляру %d; сообщений бота без ожидания: %d%n",
+                limiter.getRejectedByChat(), limiter.getRejectedGlobally(), telegram.unexpectedMessages());
+    }
+
+    /**
+     * База нагрузки задаётся только через --load.datasource и не совпадает с основной базой бота
+     * из application.properties или переменной окружения.
+     */
+    private static void requireSeparateDatabase(LoadSettings settings, List<String> botArgs) throws IOException {
+        if (botArgs.stream().anyMatch(arg -> arg.startsWith("--" + DATASOURCE_URL))) {
+            throw new IllegalArgumentException("База нагрузки задаётся параметром --load.datasource");
+        }
+        String configured = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"))
+                .getProperty(DATASOURCE_URL);
+        String target = settings.datasource().trim();
+        if (target.equals(configured) || target.equals(System.getenv("SPRING_DATASOURCE_URL"))) {
+            throw new IllegalArgumentException("Нагрузочный прогон не запускается на основной базе бота: " + target);
+        }
+    }
+
+    /**
+     * Прогон удаляет и заводит записи, поэтому в его базе не должно быть пользователей не из нагрузки.
+     */
+    private static void requireOnlyLoadData(JdbcTemplate jdbc, LoadSettings settings) {
+        Long foreign = jdbc.queryForObject("SELECT count(*) FROM users WHERE chat_id < ? OR chat_id >= ?",
+                Long.class, LOAD_CHATS_FROM, LOAD_CHATS_TO);
+        if (foreign != null && foreign > 0) {
+            throw new IllegalStateException("В базе " + settings.datasource() + " есть пользователи не из нагрузки ("
+                    + foreign + "), нужна отдельная база");
+        }
+    }
+
+    /**
+     * Клиенты начинают с нулевым балансом: баллы появляются только через журнал.
+     */
+    private static void seed(JdbcTemplate jdbc, LoadSettings settings) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < settings.customers(); i++) {
+            long phoneKey = Scenario.CUSTOMER_PHONE + i;
+            rows.add(new Object[]{Scenario.CUSTOMER_CHAT + i, Scenario.phone(phoneKey), phoneKey, false});
+        }
+        for (int i = 0; i < settings.baristas(); i++) {
+            long phoneKey = Scenario.BARISTA_PHONE + i;
+            rows.add(new Object[]{Scenario.BARISTA_CHAT + i, Scenario.phone(phoneKey), phoneKey, true});
+        }
+        jdbc.batchUpdate("INSERT INTO users (chat_id, phone_number, phone_key, points, is_employee, is_admin) " +
+                "VALUES (?, ?, ?, 0, ?, false)", rows);
+    }
+
+    /**
+     * Удаляет участников нагрузки со всеми их операциями и итогами.
+     */
+    private static void deleteLoadData(JdbcTemplate jdbc) {
+        Object[] range = {LOAD_CHATS_FROM, LOAD_CHATS_TO};
+        String ids = "SELECT id FROM users WHERE chat_id >= ? AND chat_id < ?";
+        jdbc.update("DELETE FROM points_transactions WHERE customer_id IN (" + ids + ")", range);
+        jdbc.update("DELETE FROM points_balance_snapshots WHERE customer_id IN (" + ids + ")", range);
+        jdbc.update("DELETE FROM customer_monthly_totals WHERE customer_id IN (" + ids + ")", range);
+        jdbc.update("DELETE FROM employee_daily_totals WHERE employee_id IN (" + ids + ")", range);
+        jdbc.update("DELETE FROM conversation_states WHERE chat_id >= ? AND chat_id < ?", range);
+        jdbc.update("DELETE FROM users WHERE chat_id >= ? AND chat_id < ?", range);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.loadtest;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сценарии нагрузки глазами пользователей: клиенты регистрируются и смотрят баланс,
+ * сотрудники начисляют и списывают баллы одной командой. Сценарий успешен, когда нужный участник
+ * получил ожидаемое сообщение бота.
+ * <p>
+ * Каждый клиент и сотрудник одновременно участвует не больше чем в одном сценарии, иначе ответы
+ * разных сценариев в одном чате перепутались бы. Клиенты, у которых хватает баллов на списание,
+ * лежат в отдельной очереди.
+ */
+final class Scenario {
+
+    /** Ширина каждого диапазона. */
+    static final long RANGE = 100_000_000L;
+    /**
+     * chatId участников нагрузки: идентификаторы Telegram укладываются в 52 бита, поэтому отрицательные
+     * числа около −9·10¹⁸ не совпадут ни с пользователем, ни с группой.
+     */
+    static final long CUSTOMER_CHAT = -9_000_000_000_000_000_000L;
+    static final long NEWCOMER_CHAT = CUSTOMER_CHAT + RANGE;
+    static final long BARISTA_CHAT = CUSTOMER_CHAT + 2 * RANGE;
+    /** Телефоны участников нагрузки: код страны +999 зарезервирован ITU, таких номеров не выдают. */
+    static final long CUSTOMER_PHONE = 999_000_000_000_000L;
+    static final long NEWCOMER_PHONE = CUSTOMER_PHONE + RANGE;
+    static final long BARISTA_PHONE = CUSTOMER_PHONE + 2 * RANGE;
+
+    private static final Pattern BALANCE = Pattern.compile("баланс: (\\d+)");
+
+    enum Flow {
+        REGISTER, BALANCE, ACCRUAL, REDEEM;
+
+        static Flow parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Бот ответил не то, что ожидал сценарий.
+     */
+    static final class UnexpectedReplyException extends Exception {
+        UnexpectedReplyException(String reply) {
+            super(reply);
+        }
+    }
+
+    private final TelegramApiStub telegram;
+    private final Duration timeout;
+    private final int accrualPoints;
+    private final int redeemPoints;
+    private final Deque<Integer> idleBaristas = new ConcurrentLinkedDeque<>();
+    private final Deque<Integer> unfundedCustomers = new ConcurrentLinkedDeque<>();
+    private final Deque<Integer> fundedCustomers = new ConcurrentLinkedDeque<>();
+    /** Последний известный баланс; меняет только сценарий, который занял клиента. */
+    private final int[] balances;
+    private final AtomicLong newcomers = new AtomicLong();
+
+    Scenario(TelegramApiStub telegram, LoadSettings settings) {
+        this.telegram = telegram;
+        this.timeout = settings.timeout();
+        this.accrualPoints = settings.accrualPoints();
+        this.redeemPoints = settings.redeemPoints();
+        this.balances = new int[settings.customers()];
+        for (int i = 0; i < settings.customers(); i++) {
+            unfundedCustomers.add(i);
+        }
+        for (int i = 0; i < settings.baristas(); i++) {
+            idleBaristas.add(i);
+        }
+    }
+
+    static String phone(long phoneKey) {
+        return "+" + phoneKey;
+    }
+
+    /**
+     * Проходит сценарий до конца.
+     *
+     * @return false, если не нашлось свободного участника и сценарий не запускался
+     * @throws UnexpectedReplyException бот ответил не то, что ожидалось
+     * @throws TimeoutException         бот не ответил за отведённое время
+     */
+    boolean run(Flow flow) throws UnexpectedReplyException, TimeoutException, InterruptedException {
+        return switch (flow) {
+            case REGISTER -> register();
+            case BALANCE -> balance();
+            case ACCRUAL -> accrual();
+            case REDEEM -> redeem();
+        };
+    }
+
+    private boolean register() throws UnexpectedReplyException, TimeoutException, InterruptedException {
+        long n = newcomers.incrementAndGet();
+        long chatId = NEWCOMER_CHAT + n;
+        expect(exchange(chatId, "/register"), "Введите номер");
+        expect(exchange(chatId, phone(NEWCOMER_PHONE + n)), "Вы успешно зарегистрированы");
+        return true;
+    }
+
+    private boolean balance() throws UnexpectedReplyException, TimeoutException, InterruptedException {
+        Integer customer = ThreadLocalRandom.current().nextBoolean() ? takeAny(fundedCustomers, unfundedCustomers)
+                : takeAny(unfundedCustomers, fundedCustomers);
+        if (customer == null) {
+            return false;
+        }
+        try {
+            String reply = exchange(CUSTOMER_CHAT + customer, "/balance");
+            expect(reply, "Ваш баланс");
+            remember(customer, reply);
+        } finally {
+            releaseCustomer(customer);
+        }
+        return true;
+    }
+
+    private boolean accrual() throws UnexpectedReplyException, TimeoutException, InterruptedException {
+        Integer customer = takeAny(unfundedCustomers, fundedCustomers);
+        return customer != null && transfer(customer, "/addpoints", accrualPoints, "Вам начислено");
+    }
+
+    private boolean redeem() throws UnexpectedReplyException, TimeoutException, InterruptedException {
+        Integer customer = fundedCustomers.pollFirst();
+        return customer != null && transfer(customer, "/redeem", redeemPoints, "баллов были списаны");
+    }
+
+    /**
+     * Сотрудник одной командой начисляет или списывает баллы, клиент должен получить уведомление.
+     * Ответ сотруднику при успехе приходит только когда правила изменили сумму, любой другой — ошибка.
+     */
+    private boolean transfer(int customer, String command, int points, String notice)
+            throws UnexpectedReplyException, TimeoutException, InterruptedException {
+        Integer barista = idleBaristas.pollFirst();
+        if (barista == null) {
+            releaseCustomer(customer);
+            return false;
+        }
+        long baristaChat = BARISTA_CHAT + barista;
+        long customerChat = CUSTOMER_CHAT + customer;
+        CompletableFuture<String> baristaReply = telegram.nextMessage(baristaChat);
+        CompletableFuture<String> customerNotice = telegram.nextMessage(customerChat);
+        try {
+            telegram.send(baristaChat, command + " " + phone(CUSTOMER_PHONE + customer) + " " + points);
+            long deadline = System.nanoTime() + timeout.toNanos();
+            CompletableFuture.anyOf(customerNotice, baristaReply).get(left(deadline), TimeUnit.NANOSECONDS);
+            if (!customerNotice.isDone()) {
+                String reply = baristaReply.join();
+                if (!reply.startsWith("По правилам программы")) {
+                    throw new UnexpectedReplyException(reply);
+                }
+                customerNotice.get(left(deadline), TimeUnit.NANOSECONDS);
+            }
+            String text = customerNotice.join();
+            expect(text, notice);
+            remember(customer, text);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            telegram.forget(baristaChat, baristaReply);
+            telegram.forget(customerChat, customerNotice);
+            idleBaristas.addLast(barista);
+            releaseCustomer(customer);
+        }
+        return true;
+    }
+
+    private String exchange(long chatId, String text) throws TimeoutException, InterruptedException {
+        CompletableFuture<String> reply = telegram.nextMessage(chatId);
+        try {
+            telegram.send(chatId, text);
+            return reply.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            telegram.forget(chatId, reply);
+        }
+    }
+
+    private static void expect(String reply, String expected) throws UnexpectedReplyException {
+        if (!reply.contains(expected)) {
+            throw new UnexpectedReplyException(reply);
+        }
+    }
+
+    private void remember(int customer, String reply) {
+        Matcher balance = BALANCE.matcher(reply);
+        if (balance.find()) {
+            balances[customer] = Integer.parseInt(balance.group(1));
+        }
+    }
+
+    private void releaseCustomer(int customer) {
+        (balances[customer] >= redeemPoints ? fundedCustomers : unfundedCustomers).addLast(customer);
+    }
+
+    private static Integer takeAny(Deque<Integer> first, Deque<Integer> second) {
+        Integer taken = first.pollFirst();
+        return taken != null ? taken : second.pollFirst();
+    }
+
+    private static long left(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+}
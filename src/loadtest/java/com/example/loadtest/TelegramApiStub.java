@@ -0,0 +1,188 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Заглушка Telegram Bot API на локальном HTTP: бот получает от неё обновления через getUpdates
+ * и отправляет ответы через sendMessage, как в настоящий Telegram. Остальные методы просто подтверждаются.
+ * <p>
+ * Со стороны пользователей заглушка — их клиенты Telegram: {@link #send} кладёт сообщение в очередь обновлений,
+ * {@link #nextMessage} ждёт следующего сообщения бота в чат.
+ */
+final class TelegramApiStub implements AutoCloseable {
+
+    /** Дольше не держим getUpdates, чтобы бот быстро останавливался в конце прогона. */
+    private static final long MAX_POLL_MILLIS = 1_000;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ArrayDeque<ObjectNode> updates = new ArrayDeque<>();
+    private final Map<Long, CompletableFuture<String>> waiting = new ConcurrentHashMap<>();
+    private final AtomicInteger messageIds = new AtomicInteger();
+    private final LongAdder unexpected = new LongAdder();
+    private int nextUpdateId = 1;
+
+    TelegramApiStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        executor = Executors.newFixedThreadPool(16);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Адрес для bot.api-base-url: к нему дописываются токен и метод.
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    /**
+     * Номер, с которого начнутся update_id: должен быть выше отметки обработанных обновлений бота.
+     */
+    synchronized void startUpdatesAfter(long processedUpdateId) {
+        nextUpdateId = Math.toIntExact(processedUpdateId + 1);
+    }
+
+    /**
+     * Пользователь пишет боту.
+     */
+    void send(long chatId, String text) {
+        ObjectNode chat = json.createObjectNode().put("id", chatId).put("type", "private");
+        ObjectNode from = json.createObjectNode().put("id", chatId).put("is_bot", false).put("first_name", "Load");
+        ObjectNode message = json.createObjectNode()
+                .put("message_id", messageIds.incrementAndGet())
+                .put("date", System.currentTimeMillis() / 1000)
+                .put("text", text);
+        message.set("chat", chat);
+        message.set("from", from);
+        synchronized (this) {
+            ObjectNode update = json.createObjectNode().put("update_id", nextUpdateId++);
+            update.set("message", message);
+            updates.addLast(update);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Следующее сообщение бота в чат. Одновременно чат ждёт не больше одного сообщения.
+     */
+    CompletableFuture<String> nextMessage(long chatId) {
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        waiting.put(chatId, reply);
+        return reply;
+    }
+
+    /**
+     * Снимает ожидание, если ответ так и не пришёл.
+     */
+    void forget(long chatId, CompletableFuture<String> reply) {
+        waiting.remove(chatId, reply);
+    }
+
+    /**
+     * Сообщения бота, которых никто не ждал: уведомления об акциях, ответы после тайм-аута.
+     */
+    long unexpectedMessages() {
+        return unexpected.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                byte[] bytes = body.readAllBytes();
+                request = bytes.length == 0 ? json.createObjectNode() : json.readTree(bytes);
+            }
+            JsonNode result = switch (method) {
+                case "getupdates" -> getUpdates(request);
+                case "sendmessage" -> sendMessage(request);
+                default -> json.getNodeFactory().booleanNode(true);
+            };
+            ObjectNode response = json.createObjectNode().put("ok", true);
+            response.set("result", result);
+            byte[] bytes = json.writeValueAsBytes(response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Длинный опрос: подтверждённые через offset обновления удаляются, остальные отдаются, как только появятся.
+     */
+    private JsonNode getUpdates(JsonNode request) throws InterruptedException {
+        long offset = request.path("offset").asLong(0);
+        int limit = request.path("limit").asInt(100);
+        long timeoutMillis = Math.min(request.path("timeout").asLong(0) * 1000, MAX_POLL_MILLIS);
+        ArrayNode result = json.createArrayNode();
+        synchronized (this) {
+            while (!updates.isEmpty() && updates.peekFirst().get("update_id").asLong() < offset) {
+                updates.removeFirst();
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            long left;
+            while (updates.isEmpty() && (left = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+            for (ObjectNode update : updates) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(update);
+            }
+        }
+        return result;
+    }
+
+    private JsonNode sendMessage(JsonNode request) {
+        long chatId = Long.parseLong(request.path("chat_id").asText());
+        String text = request.path("text").asText();
+        CompletableFuture<String> reply = waiting.remove(chatId);
+        if (reply != null) {
+            reply.complete(text);
+        } else {
+            unexpected.increment();
+        }
+        ObjectNode message = json.createObjectNode()
+                .put("message_id", messageIds.incrementAndGet())
+                .put("date", System.currentTimeMillis() / 1000)
+                .put("text", text);
+        message.set("chat", json.createObjectNode().put("id", chatId).put("type", "private"));
+        return message;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
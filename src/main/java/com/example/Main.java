@@ -1,39 +1,68 @@
 package com.example;
 
 import com.example.bot.CoffeeLoyaltyBot;
+import com.example.bot.WebhookController;
+import com.example.cluster.ClusterCacheNotifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
+import java.util.List;
 import java.util.Locale;
 
 @SpringBootApplication
+@EnableScheduling
 public class Main {
+    /** Точки входа обновлений и фоновые потоки, которые должны стартовать вместе с контекстом. */
+    private static final List<Class<?>> EAGER_TYPES = List.of(TelegramBotsApi.class, CoffeeLoyaltyBot.class,
+            WebhookController.class, ClusterCacheNotifier.class);
 
     public static void main(String[] args) {
         Locale.setDefault(new Locale("ru", "RU"));
-
-        // Проверка наличия класса драйвера
-        checkDatabaseDriverClass();
-
+        // Отсутствующий драйвер проявится при создании пула соединений с понятной ошибкой
         SpringApplication.run(Main.class, args);
     }
 
-    private static void checkDatabaseDriverClass() {
-        try {
-            Class.forName("org.postgresql.Driver");
-            System.out.println("Драйвер базы данных найден.");
-        } catch (ClassNotFoundException e) {
-            System.err.println("Ошибка: Драйвер базы данных не найден. Убедитесь, что зависимость драйвера добавлена в ваш проект.");
-            e.printStackTrace();
-            throw new RuntimeException("Драйвер базы данных не найден", e);
-        }
+    /**
+     * Бины, которые остаются «жадными» при spring.main.lazy-initialization=true (профиль startup):
+     * приём обновлений, регистрация бота, слушатель кластера и всё, у чего есть задачи по расписанию.
+     * Остальное создаётся при первом обращении.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBotBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (EAGER_TYPES.stream().anyMatch(type -> type.isAssignableFrom(beanType))
+                || !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty());
+    }
+
+    /**
+     * Параметры клиента Bot API, общие для приёма обновлений и отправки. Адрес API меняется для нагрузочного
+     * стенда с заглушкой Telegram (src/loadtest).
+     */
+    @Bean
+    public DefaultBotOptions botOptions(@Value("${bot.api-base-url:https://api.telegram.org/bot}") String baseUrl) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(baseUrl);
+        return options;
     }
 
+    /**
+     * Получение обновлений длинным опросом. В профиле webhook обновления приходят через WebhookController.
+     */
     @Bean
+    @Profile("!webhook")
     public TelegramBotsApi telegramBotsApi(CoffeeLoyaltyBot coffeeLoyaltyBot) {
         try {
             TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
@@ -0,0 +1,174 @@
+package com.example.bot;
+
+import com.example.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Уведомляет администраторов о начислениях и списаниях.
+ * Каждый администратор получает либо сообщение о каждой операции, либо сводку —
+ * раз в заданный интервал или по накоплении заданного числа операций.
+ */
+@Component
+public class AdminNotifier {
+
+    /**
+     * Способ уведомления администратора.
+     */
+    public enum Mode {
+        IMMEDIATE,
+        DIGEST
+    }
+
+    private final UserService userService;
+    private final OutboundMessageQueue outbound;
+    private final Mode defaultMode;
+    private final Set<Long> digestAdmins;
+    private final Set<Long> immediateAdmins;
+    private final int digestMaxEvents;
+
+    private Digest digest = new Digest();
+
+    public AdminNotifier(UserService userService, OutboundMessageQueue outbound,
+                         @Value("${bot.notifications.default-mode:IMMEDIATE}") Mode defaultMode,
+                         @Value("${bot.notifications.digest-admins:}") Set<Long> digestAdmins,
+                         @Value("${bot.notifications.immediate-admins:}") Set<Long> immediateAdmins,
+                         @Value("${bot.notifications.digest-max-events:50}") int digestMaxEvents) {
+        this.userService = userService;
+        this.outbound = outbound;
+        this.defaultMode = defaultMode;
+        this.digestAdmins = Set.copyOf(digestAdmins);
+        this.immediateAdmins = Set.copyOf(immediateAdmins);
+        this.digestMaxEvents = digestMaxEvents;
+    }
+
+    public void pointsAdded(String employeePhoneNumber, String userPhoneNumber, int points) {
+        String text = String.format("Сотрудник (номер: %s) начислил %d баллов клиенту (номер: %s).",
+                employeePhoneNumber, points, userPhoneNumber);
+        publish(text, employeePhoneNumber, false, 1, points);
+    }
+
+    /**
+     * Одно уведомление на весь пакет начислений вместо сообщения о каждом клиенте.
+     */
+    public void pointsAddedInBatch(String employeePhoneNumber, int customers, long points) {
+        String text = String.format("Сотрудник (номер: %s) начислил списком %d баллов %d клиентам.",
+                employeePhoneNumber, points, customers);
+        publish(text, employeePhoneNumber, false, customers, points);
+    }
+
+    public void pointsRedeemed(String employeePhoneNumber, String userPhoneNumber, int points) {
+        String text = String.format("Сотрудник (номер: %s) списал %d баллов у клиента (номер: %s).",
+                employeePhoneNumber, points, userPhoneNumber);
+        publish(text, employeePhoneNumber, true, 1, points);
+    }
+
+    private void publish(String text, String employeePhoneNumber, boolean redemption, int operations, long points) {
+        boolean digestWanted = false;
+        for (Long adminChatId : userService.getAdminChatIds()) {
+            if (modeOf(adminChatId) == Mode.IMMEDIATE) {
+                outbound.send(adminChatId, text, MessagePriority.NOTIFICATION);
+            } else {
+                digestWanted = true;
+            }
+        }
+        if (!digestWanted) {
+            return;
+        }
+
+        Digest full = null;
+        synchronized (this) {
+            digest.record(employeePhoneNumber, redemption, operations, points);
+            if (digest.events >= digestMaxEvents) {
+                full = digest;
+                digest = new Digest();
+            }
+        }
+        if (full != null) {
+            sendDigest(full);
+        }
+    }
+
+    /**
+     * Отправляет накопленную сводку по расписанию.
+     */
+    @Scheduled(fixedDelayString = "${bot.notifications.digest-interval:PT10M}")
+    public void flushDigest() {
+        Digest pending;
+        synchronized (this) {
+            if (digest.events == 0) {
+                return;
+            }
+            pending = digest;
+            digest = new Digest();
+        }
+        sendDigest(pending);
+    }
+
+    private void sendDigest(Digest pending) {
+        String text = pending.format();
+        for (Long adminChatId : userService.getAdminChatIds()) {
+            if (modeOf(adminChatId) == Mode.DIGEST) {
+                outbound.send(adminChatId, text, MessagePriority.NOTIFICATION);
+            }
+        }
+    }
+
+    private Mode modeOf(long adminChatId) {
+        if (digestAdmins.contains(adminChatId)) {
+            return Mode.DIGEST;
+        }
+        if (immediateAdmins.contains(adminChatId)) {
+            return Mode.IMMEDIATE;
+        }
+        return defaultMode;
+    }
+
+    /**
+     * Накопленные с последней сводки операции.
+     */
+    private static final class Digest {
+        private int events;
+        private int additions;
+        private int redemptions;
+        private long pointsAdded;
+        private long pointsRedeemed;
+        private final Map<String, long[]> byEmployee = new TreeMap<>();
+
+        // totals: [число начислений, баллов начислено, число списаний, баллов списано]
+        void record(String employeePhoneNumber, boolean redemption, int operations, long points) {
+            events += operations;
+            long[] totals = byEmployee.computeIfAbsent(employeePhoneNumber, key -> new long[4]);
+            if (redemption) {
+                redemptions += operations;
+                pointsRedeemed += points;
+                totals[2] += operations;
+                totals[3] += points;
+            } else {
+                additions += operations;
+                pointsAdded += points;
+                totals[0] += operations;
+                totals[1] += points;
+            }
+        }
+
+        String format() {
+            List<String> lines = new ArrayList<>();
+            lines.add("Сводка операций: " + events);
+            lines.add(String.format("Начислений: %d (%d баллов), списаний: %d (%d баллов).",
+                    additions, pointsAdded, redemptions, pointsRedeemed));
+            lines.add("По сотрудникам:");
+            byEmployee.forEach((employee, totals) -> lines.add(String.format(
+                    "%s — начислено %d раз (%d баллов), списано %d раз (%d баллов)",
+                    employee, totals[0], totals[1], totals[2], totals[3])));
+            return String.join("\n", lines);
+        }
+    }
+}
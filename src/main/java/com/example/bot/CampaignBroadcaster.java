@@ -0,0 +1,162 @@
+package com.example.bot;
+
+import com.example.cluster.ClusterMembership;
+import com.example.entity.Campaign;
+import com.example.entity.Recipient;
+import com.example.repository.UserRepository;
+import com.example.service.CampaignCreatedEvent;
+import com.example.service.CampaignService;
+import com.example.throttle.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Доставляет рассылки всем пользователям.
+ * <p>
+ * Получатели читаются страницами по возрастанию id, вся таблица в память не загружается.
+ * Страница ставится в очередь исходящих сообщений с низшим приоритетом и собственным лимитом скорости,
+ * чтобы ответы на команды не ждали рассылку. Когда доставка страницы завершена, курсор и счётчики сохраняются в базу;
+ * после перезапуска рассылка продолжается со следующей страницы. Прерванная страница отправляется заново,
+ * то есть сообщение может прийти повторно, но не потеряется.
+ * <p>
+ * В кластере рассылки доставляет только ведущий экземпляр. Незавершённые рассылки проверяются по расписанию,
+ * поэтому новый ведущий продолжит рассылку, начатую пропавшим.
+ */
+@Component
+public class CampaignBroadcaster implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(CampaignBroadcaster.class);
+
+    private final CampaignService campaignService;
+    private final UserRepository userRepository;
+    private final OutboundMessageQueue outbound;
+    private final ClusterMembership membership;
+    private final TokenBucket rateLimit;
+    private final int pageSize;
+    private final boolean enabled;
+    private final Set<Long> active = ConcurrentHashMap.newKeySet();
+    // Рассылки выполняются по одной, в порядке запуска
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "broadcast");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CampaignBroadcaster(CampaignService campaignService, UserRepository userRepository,
+                               OutboundMessageQueue outbound, ClusterMembership membership,
+                               @Value("${bot.broadcast.rate:20}") double rate,
+                               @Value("${bot.broadcast.page-size:200}") int pageSize,
+                               @Value("${bot.broadcast.enabled:true}") boolean enabled) {
+        this.campaignService = campaignService;
+        this.userRepository = userRepository;
+        this.outbound = outbound;
+        this.membership = membership;
+        this.rateLimit = new TokenBucket(rate, rate);
+        this.pageSize = pageSize;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Создаёт рассылку; доставка начнётся после фиксации.
+     *
+     * @param createdBy chatId администратора
+     * @param text      текст рассылки
+     * @return созданная рассылка
+     */
+    public Campaign start(long createdBy, String text) {
+        return campaignService.create(createdBy, text);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCampaignCreated(CampaignCreatedEvent event) {
+        resumeRunning();
+    }
+
+    /**
+     * Запускает доставку незавершённых рассылок: новых, прерванных перезапуском или ошибкой,
+     * и оставшихся от пропавшего ведущего. При выключенной доставке рассылки остаются незавершёнными.
+     */
+    @Scheduled(fixedDelayString = "${bot.broadcast.scan-interval:PT10S}")
+    public void resumeRunning() {
+        if (!enabled || !membership.isLeader()) {
+            return;
+        }
+        for (Campaign campaign : campaignService.findRunning()) {
+            if (active.add(campaign.getId())) {
+                if (campaign.getLastUserId() > 0) {
+                    logger.info("Продолжаем рассылку {} после получателя {}", campaign.getId(), campaign.getLastUserId());
+                }
+                submit(campaign);
+            }
+        }
+    }
+
+    private void submit(Campaign campaign) {
+        executor.execute(() -> {
+            try {
+                deliver(campaign);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.info("Рассылка {} остановлена, будет продолжена после перезапуска", campaign.getId());
+            } catch (Exception e) {
+                logger.error("Ошибка рассылки {}, будет продолжена при следующей проверке", campaign.getId(), e);
+            } finally {
+                active.remove(campaign.getId());
+            }
+        });
+    }
+
+    private void deliver(Campaign campaign) throws InterruptedException {
+        long campaignId = campaign.getId();
+        long afterId = campaign.getLastUserId();
+        List<Recipient> page;
+        while (!(page = userRepository.findRecipientsAfter(afterId, Limit.of(pageSize))).isEmpty()) {
+            // Ведущим мог стать другой экземпляр: он продолжит с сохранённой страницы
+            if (!membership.isLeader()) {
+                logger.info("Экземпляр больше не ведущий, рассылка {} передана", campaignId);
+                return;
+            }
+            List<CompletableFuture<DeliveryStatus>> results = new ArrayList<>(page.size());
+            for (Recipient recipient : page) {
+                rateLimit.acquire();
+                results.add(outbound.send(recipient.getChatId(), campaign.getText(), MessagePriority.BROADCAST));
+            }
+            CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).join();
+
+            long delivered = 0, failed = 0, blocked = 0;
+            for (CompletableFuture<DeliveryStatus> result : results) {
+                switch (result.join()) {
+                    case DELIVERED -> delivered++;
+                    case BLOCKED -> blocked++;
+                    case FAILED -> failed++;
+                }
+            }
+            afterId = page.get(page.size() - 1).getId();
+            campaignService.recordProgress(campaignId, afterId, delivered, failed, blocked);
+        }
+        campaignService.complete(campaignId);
+        logger.info("Рассылка {} завершена", campaignId);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Поток рассылки не завершился вовремя");
+        }
+    }
+}
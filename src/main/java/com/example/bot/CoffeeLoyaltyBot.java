@@ -1,349 +1,198 @@
 package com.example.bot;
 
-import com.example.entity.UserState;
+import com.example.bot.command.CommandContext;
+import com.example.bot.command.CommandHandler;
+import com.example.bot.command.CommandRouter;
+import com.example.datasource.ReadRouting;
+import com.example.entity.UserProfile;
 import com.example.service.UserService;
-import com.example.service.LoyaltyService;
+import com.example.state.Conversation;
+import com.example.state.ConversationStateStore;
+import com.example.throttle.InboundRateLimiter;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
-import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class CoffeeLoyaltyBot extends TelegramLongPollingBot {
     private static final Logger logger = LoggerFactory.getLogger(CoffeeLoyaltyBot.class);
 
     private final UserService userService;
-    private final LoyaltyService loyaltyService;
-
-    private final Map<Long, UserState> userStates = new HashMap<>();
-    private final Map<Long, String> tempData = new HashMap<>();
-
-    public CoffeeLoyaltyBot(UserService userService, LoyaltyService loyaltyService) {
+    private final CommandRouter router;
+    private final UpdateDispatcher updateDispatcher;
+    private final UpdateDeduplicator deduplicator;
+    private final ConversationStateStore conversations;
+    private final OutboundMessageQueue outbound;
+    private final CommandMetrics metrics;
+    private final InboundRateLimiter rateLimiter;
+    private final String botUsername;
+
+    public CoffeeLoyaltyBot(UserService userService, CommandRouter router,
+                            UpdateDispatcher updateDispatcher, UpdateDeduplicator deduplicator,
+                            ConversationStateStore conversations,
+                            OutboundMessageQueue outbound, CommandMetrics metrics,
+                            InboundRateLimiter rateLimiter, DefaultBotOptions options,
+                            @Value("${bot.username}") String botUsername,
+                            @Value("${bot.token}") String botToken) {
+        super(options, botToken);
         this.userService = userService;
-        this.loyaltyService = loyaltyService;
+        this.router = router;
+        this.updateDispatcher = updateDispatcher;
+        this.deduplicator = deduplicator;
+        this.conversations = conversations;
+        this.outbound = outbound;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.botUsername = botUsername;
     }
 
     @Override
     public void onUpdateReceived(Update update) {
-        if (update.hasMessage() && update.getMessage().hasText()) {
-            String messageText = update.getMessage().getText();
-            long chatId = update.getMessage().getChatId();
-
-            if (userStates.containsKey(chatId)) {
-                handleState(chatId, messageText);
-                return;
-            }
-
-            String[] args = messageText.split(" ");
-            String command = args[0].toLowerCase();
-
-            try {
-                switch (command) {
-                    case "/start", "старт" -> handleStart(chatId);
-                    case "/help", "помощь" -> handleHelp(chatId);
-                    case "/register", "регистрация" -> handleRegister(chatId);
-                    case "/balance", "баланс" -> handleBalance(chatId);
-                    case "/addpoints", "добавитьбаллы" -> initAddPoints(chatId);
-                    case "/redeem", "списать" -> handleRedeem(chatId);
-                    case "/addemployee", "добавитьсотрудника" -> handleAddEmployee(chatId, args);
-                    case "/removeemployee", "удалитьсотрудника" -> handleRemoveEmployee(chatId, args);
-                    default -> sendMessage(chatId, "Неизвестная команда. Используйте /help для списка доступных команд.");
-                }
-            } catch (Exception e) {
-                logger.error("Ошибка обработки команды: {}", e.getMessage());
-                sendMessage(chatId, "Ошибка: " + e.getMessage());
-            }
+        // Повторно доставленное после перезапуска обновление не должно выполниться ещё раз
+        Integer updateId = update.getUpdateId();
+        if (updateId != null && !deduplicator.markIfNew(updateId)) {
+            logger.info("Повторное обновление {} пропущено", updateId);
+            return;
         }
-    }
-
-    private void handleStart(long chatId) {
-        sendMessage(chatId, "Добро пожаловать в Coffee Loyalty! Используйте /help для списка доступных команд.");
-    }
-
-    private void handleHelp(long chatId) {
-        StringBuilder helpMessage = new StringBuilder("Доступные команды:\n");
-
-        // Проверяем статус пользователя
-        if (!userService.isRegistered(chatId)) {
-            // Незарегистрированный пользователь
-            helpMessage.append("/start или старт - начать использование бота\n")
-                    .append("/help или помощь - список доступных команд\n")
-                    .append("/register или регистрация - регистрация пользователя\n");
-        } else {
-            // Зарегистрированный пользователь
-            helpMessage.append("/start или старт - начать использование бота\n")
-                    .append("/help или помощь - список доступных команд\n")
-                    .append("/balance или баланс - узнать баланс баллов\n");
-
-            // Добавляем информацию о текущей акции
-            helpMessage.append("🎉 Акция! 🎉\n")
-                    .append("Купите 10 кружек кофе и получите одну кружку в подарок!\n");
-
-            if (userService.isEmployee(userService.getPhoneNumberByChatId(chatId))) {
-                // Сотрудник
-                helpMessage.append("/addpoints или добавитьбаллы - добавить баллы клиенту\n")
-                        .append("/redeem или списать - списать баллы\n");
+        // Поток опроса только раздаёт обновления: порядок сохраняется внутри чата, разные чаты идут параллельно
+        if (update.hasMessage() && (update.getMessage().hasText() || update.getMessage().hasDocument())) {
+            dispatch(update.getMessage().getChatId(), updateId, () -> processUpdate(update));
+        } else if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            // Нажатие кнопки идёт в очередь того же чата, что и сообщения: операции чата не перемешиваются
+            dispatch(update.getCallbackQuery().getMessage().getChatId(), updateId, () -> processCallback(update));
+        } else if (updateId != null) {
+            // Остальные обновления бот не обрабатывает, но и отметку они держать не должны
+            deduplicator.complete(updateId);
+        }
+    }
+
+    private void dispatch(long chatId, Integer updateId, Runnable processing) {
+        // Лимит проверяется до очереди чата и до базы: отброшенное обновление стоит одного обращения к таблице
+        InboundRateLimiter.Decision decision = rateLimiter.tryAcquire(chatId);
+        if (decision != InboundRateLimiter.Decision.ACCEPT) {
+            if (decision == InboundRateLimiter.Decision.DROP_AND_NOTIFY) {
+                logger.info("Чат {} превысил лимит входящих сообщений", chatId);
+                outbound.send(chatId, "Слишком много сообщений. Подождите немного и повторите.",
+                        MessagePriority.REPLY);
             }
-
-            if (userService.isAdmin(userService.getPhoneNumberByChatId(chatId))) {
-                // Администратор
-                helpMessage.append("/addemployee или добавитьсотрудника - назначить сотрудника\n")
-                        .append("/removeemployee или удалитьсотрудника - удалить сотрудника\n");
+            if (updateId != null) {
+                deduplicator.complete(updateId);
             }
+            return;
         }
-
-        // Отправляем сформированное сообщение
-        sendMessage(chatId, helpMessage.toString());
-    }
-
-    private void handleState(long chatId, String messageText) {
-        UserState state = userStates.get(chatId);
-
-        switch (state) {
-            case AWAITING_PHONE -> handleAwaitingPhone(chatId, messageText);
-            case ADD_POINTS_AWAITING_PHONE -> handleAddPointsAwaitingPhone(chatId, messageText);
-            case ADD_POINTS_AWAITING_AMOUNT -> handleAddPointsAwaitingAmount(chatId, messageText);
-            case REDEEM_AWAITING_PHONE -> handleRedeemAwaitingPhone(chatId, messageText);
-            case REDEEM_AWAITING_AMOUNT -> handleRedeemAwaitingAmount(chatId, messageText);
-            case ADD_EMPLOYEE_AWAITING_PHONE -> handleAddEmployeeAwaitingPhone(chatId, messageText);
-            case REMOVE_EMPLOYEE_AWAITING_PHONE ->handleRemoveEmployeeAwaitingPhone(chatId, messageText);
-        }
-    }
-
-    private void handleAwaitingPhone(long chatId, String messageText) {
-        try {
-            userService.registerUser(chatId, messageText);
-            sendMessage(chatId, "Вы успешно зарегистрированы!");
-            String promotionMessage = "🎉 Акция! 🎉\n" +
-                    "Купите 10 кружек кофе и получите одну кружку в подарок! " +
-                    "Не упустите возможность насладиться своим любимым напитком!" +
-                    "Нажми /help для просмотра доступных команд";
-            sendMessage(chatId, promotionMessage);
-        } catch (Exception e) {
-            sendMessage(chatId, "Ошибка регистрации: " + e.getMessage());
-        } finally {
-            userStates.remove(chatId);
-        }
-    }
-
-    private void handleAddPointsAwaitingPhone(long chatId, String messageText) {
-        // Сохраняем номер телефона клиента
-        tempData.put(chatId, messageText);
-        sendMessage(chatId, "Введите количество баллов для начисления:");
-        userStates.put(chatId, UserState.ADD_POINTS_AWAITING_AMOUNT);
-    }
-
-    private void handleAddPointsAwaitingAmount(long chatId, String messageText) {
-        try {
-            String employeePhoneNumber = userService.getPhoneNumberByChatId(chatId); // Номер телефона сотрудника
-            String userPhoneNumber = tempData.get(chatId); // Номер телефона клиента
-            int points = Integer.parseInt(messageText); // Количество баллов для начисления
-
-            // Вызываем метод для начисления баллов
-            loyaltyService.addPoints(employeePhoneNumber, userPhoneNumber, points);
-
-            // Уведомляем клиента о начислении баллов
-            long userChatId = userService.getChatIdByPhoneNumber(userPhoneNumber); // Получаем chatId клиента
-            sendMessage(userChatId, "Вам начислено " + points + " баллов. Спасибо за использование наших услуг!");
-
-            // Уведомляем администраторов о начислении баллов
-            String notificationToAdmin = String.format("Сотрудник (номер: %s) начислил %d баллов клиенту (номер: %s).",
-                    employeePhoneNumber, points, userPhoneNumber);
-
-            // Получаем список администраторов
-            List<Long> adminChatIds = userService.getAdminChatIds();
-            for (Long adminChatId : adminChatIds) {
-                sendMessage(adminChatId, notificationToAdmin); // Теперь adminChatId - long
+        updateDispatcher.dispatch(chatId, () -> {
+            // Чтения для чата, чьи данные только что изменились, не должны уходить на отстающую реплику
+            ReadRouting.bindChat(chatId);
+            try {
+                processing.run();
+            } finally {
+                ReadRouting.unbindChat();
+                if (updateId != null) {
+                    deduplicator.complete(updateId);
+                }
             }
-
-        } catch (NumberFormatException e) {
-            sendMessage(chatId, "Количество баллов должно быть числом.");
-        } catch (Exception e) {
-            sendMessage(chatId, "Ошибка: " + e.getMessage());
-        } finally {
-            userStates.remove(chatId);
-            tempData.remove(chatId);
-        }
+        });
     }
 
-    private void handleRegister(long chatId) {
-        sendMessage(chatId, "Введите номер телефона для регистрации:");
-        userStates.put(chatId, UserState.AWAITING_PHONE);
-    }
+    private void processUpdate(Update update) {
+        Message message = update.getMessage();
+        long chatId = message.getChatId();
+        Timer.Sample sample = metrics.start();
 
-    private void handleBalance(long chatId) {
-        try {
-            int points = userService.getUserPoints(chatId);
-            sendMessage(chatId, "Ваш баланс: " + points + " баллов.");
-        } catch (Exception e) {
-            sendMessage(chatId, "Ошибка: " + e.getMessage());
-        }
-    }
-
-    private void initAddPoints(long chatId) {
-        // Проверяем, является ли пользователь администратором или сотрудником
-        String phoneNumber = userService.getPhoneNumberByChatId(chatId);
-        if (!userService.isAdmin(phoneNumber) && !userService.isEmployee(phoneNumber)) {
-            sendMessage(chatId, "Эта команда доступна только для администраторов и сотрудников.");
-            return;
-        }
-
-        // Отправляем сообщение с просьбой ввести номер телефона клиента
-        sendMessage(chatId, "Введите номер телефона клиента для начисления баллов:");
-
-        // Сохраняем состояние пользователя, чтобы узнать, что он вводит номер телефона
-        userStates.put(chatId, UserState.ADD_POINTS_AWAITING_PHONE);
-    }
+        // Профиль и роль загружаются один раз на обновление и дальше передаются в контексте
+        UserProfile profile = userService.findProfile(chatId).orElse(null);
+        String text = message.hasText() ? message.getText() : message.getCaption() == null ? "" : message.getCaption();
 
-    private void handleRedeem(long chatId) {
-        // Проверяем, что пользователь является администратором или сотрудником
-        String phoneNumber = userService.getPhoneNumberByChatId(chatId);
-        if (!userService.isAdmin(phoneNumber) && !userService.isEmployee(phoneNumber)) {
-            sendMessage(chatId, "Эта команда доступна только для администраторов и сотрудников.");
+        Optional<Conversation> conversation = message.hasDocument() ? Optional.empty() : conversations.get(chatId);
+        if (conversation.isPresent()) {
+            try {
+                continueConversation(new CommandContext(message, text, 0, profile, outbound, conversations),
+                        conversation.get());
+            } finally {
+                sample.stop(metrics.state(conversation.get().state()));
+            }
             return;
         }
 
-        // Запрашиваем номер телефона у клиента
-        sendMessage(chatId, "Введите номер телефона клиента для списания баллов:");
-        userStates.put(chatId, UserState.REDEEM_AWAITING_PHONE);
-    }
-
-    private void handleRedeemAwaitingPhone(long chatId, String messageText) {
-        // Сохраняем номер телефона клиента
-        tempData.put(chatId, messageText);
-        sendMessage(chatId, "Введите количество баллов для списания (максимум 30):");
-        userStates.put(chatId, UserState.REDEEM_AWAITING_AMOUNT);
-    }
-
-    private void handleRedeemAwaitingAmount(long chatId, String messageText) {
+        CommandHandler handler = router.route(text);
+        CommandContext context = new CommandContext(message, text, router.argumentsStart(text), profile,
+                outbound, conversations);
         try {
-            int points = Integer.parseInt(messageText);
-            if (points <= 0 || points > 30) {
-                sendMessage(chatId, "Количество баллов должно быть от 1 до 30.");
-                return;
+            if (message.hasDocument() && (handler == null || !handler.acceptsDocument())) {
+                context.reply("Чтобы загрузить клиентов, отправьте CSV-файл с подписью /import.");
+            } else if (handler == null) {
+                context.reply("Неизвестная команда. Используйте /help для списка доступных команд.");
+            } else if (!context.role().includes(handler.requiredRole())) {
+                context.reply(handler.requiredRole().denial());
+            } else {
+                handler.handle(context);
             }
-
-            String userPhoneNumber = tempData.get(chatId); // Получаем номер телефона клиента
-            long userChatId = userService.getChatIdByPhoneNumber(userPhoneNumber); // Получаем chatId клиента по его номеру телефона
-
-            // Вызываем метод для списания баллов
-            loyaltyService.redeemPoints(userChatId, points);
-
-            // Уведомляем клиента о списании баллов
-            sendMessage(userChatId, points + " баллов были списаны с вашего счета. Спасибо за использование наших услуг!");
-
-            // Уведомляем администраторов о списании баллов
-            String employeePhoneNumber = userService.getPhoneNumberByChatId(chatId); // Номер телефона сотрудника
-            String notificationToAdmin = String.format("Сотрудник (номер: %s) списал %d баллов у клиента (номер: %s).",
-                    employeePhoneNumber, points, userPhoneNumber);
-
-            // Получаем список администраторов
-            List<Long> adminChatIds = userService.getAdminChatIds();
-            for (Long adminChatId : adminChatIds) {
-                sendMessage(adminChatId, notificationToAdmin); // Теперь adminChatId - long
-            }
-
-        } catch (NumberFormatException e) {
-            sendMessage(chatId, "Количество баллов должно быть числом.");
         } catch (Exception e) {
-            sendMessage(chatId, "Ошибка: " + e.getMessage());
+            logger.error("Ошибка обработки команды: {}", e.getMessage());
+            context.reply("Ошибка: " + e.getMessage());
         } finally {
-            userStates.remove(chatId);
-            tempData.remove(chatId);
+            sample.stop(metrics.command(handler == null ? "unknown" : handler.name()));
         }
     }
 
-    private void handleAddEmployee(long chatId, String[] args) {
-        // Проверяем, что пользователь является администратором
-        String adminPhoneNumber = userService.getPhoneNumberByChatId(chatId);
-        if (!userService.isAdmin(adminPhoneNumber)) {
-            sendMessage(chatId, "Эта команда доступна только для администраторов.");
-            return;
-        }
-
-        if (args.length < 2) {
-            sendMessage(chatId, "Введите номер телефона сотрудника для добавления:");
-            userStates.put(chatId, UserState.ADD_EMPLOYEE_AWAITING_PHONE);
-            return;
-        }
-
-        // Если номер телефона уже был передан, добавляем сотрудника
-        String employeePhoneNumber = args[1];
-        handleAddEmployeeAwaitingPhone(chatId, employeePhoneNumber);
-    }
-
-    private void handleAddEmployeeAwaitingPhone(long chatId, String messageText) {
-        String adminPhoneNumber = userService.getPhoneNumberByChatId(chatId);
+    private void processCallback(Update update) {
+        CallbackQuery query = update.getCallbackQuery();
+        Timer.Sample sample = metrics.start();
 
+        UserProfile profile = userService.findProfile(query.getMessage().getChatId()).orElse(null);
+        String data = query.getData() == null ? "" : query.getData();
+        CommandHandler handler = router.forCallback(data);
+        CommandContext context = CommandContext.ofCallback(query, router.callbackArgumentsStart(data), profile,
+                outbound, conversations);
         try {
-            // Добавляем нового сотрудника
-            loyaltyService.addEmployee(adminPhoneNumber, messageText);
-            sendMessage(chatId, "Сотрудник успешно добавлен: " + messageText);
+            if (handler == null) {
+                context.answer("Кнопка устарела.");
+            } else if (!context.role().includes(handler.requiredRole())) {
+                context.answer(handler.requiredRole().denial());
+            } else {
+                handler.handleCallback(context);
+            }
         } catch (Exception e) {
-            sendMessage(chatId, "Ошибка: " + e.getMessage());
+            logger.error("Ошибка обработки кнопки: {}", e.getMessage());
+            context.answer("Ошибка: " + e.getMessage());
         } finally {
-            userStates.remove(chatId); // Убираем состояние, чтобы не ожидать ввод дальше
+            context.completeCallback();
+            sample.stop(metrics.command(handler == null ? "unknown" : handler.name()));
         }
     }
 
-    private void sendMessage(long chatId, String text) {
-        SendMessage message = new SendMessage();
-        message.setChatId(String.valueOf(chatId));
-        message.setText(text);
-
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            logger.error("Ошибка отправки сообщения: {}", e.getMessage());
-        }
-    }
-    private void handleRemoveEmployee(long chatId, String[] args) {
-        // Проверяем, что пользователь является администратором
-        String adminPhoneNumber = userService.getPhoneNumberByChatId(chatId);
-        if (!userService.isAdmin(adminPhoneNumber)) {
-            sendMessage(chatId, "Эта команда доступна только для администраторов.");
+    private void continueConversation(CommandContext context, Conversation conversation) {
+        CommandHandler handler = router.forState(conversation.state());
+        if (handler == null) {
+            context.endConversation();
             return;
         }
-
-        if (args.length < 2) {
-            sendMessage(chatId, "Введите номер телефона сотрудника для удаления:");
-            userStates.put(chatId, UserState.REMOVE_EMPLOYEE_AWAITING_PHONE);
+        // Права могли измениться, пока шёл диалог
+        if (!context.role().includes(handler.requiredRole())) {
+            context.endConversation();
+            context.reply(handler.requiredRole().denial());
             return;
         }
-
-        // Если номер телефона уже был передан, удаляем сотрудника
-        String employeePhoneNumber = args[1];
-        handleRemoveEmployeeAwaitingPhone(chatId, employeePhoneNumber);
-    }
-
-    private void handleRemoveEmployeeAwaitingPhone(long chatId, String messageText) {
-        String adminPhoneNumber = userService.getPhoneNumberByChatId(chatId);
-
         try {
-            // Удаляем сотрудника
-            loyaltyService.removeEmployee(adminPhoneNumber, messageText);
-            sendMessage(chatId, "Сотрудник успешно удален: " + messageText);
+            handler.continueConversation(context, conversation);
         } catch (Exception e) {
-            sendMessage(chatId, "Ошибка: " + e.getMessage());
-        } finally {
-            userStates.remove(chatId); // Убираем состояние, чтобы не ожидать ввод дальше
+            logger.error("Ошибка обработки команды: {}", e.getMessage());
+            context.endConversation();
+            context.reply("Ошибка: " + e.getMessage());
         }
     }
 
     @Override
     public String getBotUsername() {
-        return "Tg4490_bot"; // Замените на имя вашего бота
-    }
-
-    @Override
-    public String getBotToken() {
-        return "7370408312:AAEorSyiTIGGvJ1mSPpoL6lziEvFWLK46YU"; // Замените на токен вашего бота
+        return botUsername;
     }
 }
\ No newline at end of file
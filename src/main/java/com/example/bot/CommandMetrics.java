@@ -0,0 +1,60 @@
+package com.example.bot;
+
+import com.example.entity.UserState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Таймеры обработки команд и шагов диалога.
+ * Имена команд приходят из фиксированного набора, поэтому число таймеров ограничено.
+ */
+@Component
+public class CommandMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> commandTimers = new ConcurrentHashMap<>();
+    private final Map<UserState, Timer> stateTimers = new EnumMap<>(UserState.class);
+
+    public CommandMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (UserState state : UserState.values()) {
+            stateTimers.put(state, Timer.builder("bot.states")
+                    .description("Время обработки шага диалога")
+                    .tag("state", state.name())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Начинает замер обработки.
+     */
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Возвращает таймер команды.
+     *
+     * @param command каноническое имя команды
+     */
+    public Timer command(String command) {
+        return commandTimers.computeIfAbsent(command, name -> Timer.builder("bot.commands")
+                .description("Время обработки команды")
+                .tag("command", name)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Возвращает таймер шага диалога.
+     */
+    public Timer state(UserState state) {
+        return stateTimers.get(state);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bot;
+
+/**
+ * Итог доставки исходящего сообщения.
+ */
+public enum DeliveryStatus {
+    DELIVERED,
+    /** Пользователь заблокировал бота или удалил чат. */
+    BLOCKED,
+    FAILED
+}
@@ -0,0 +1,15 @@
+package com.example.bot;
+
+/**
+ * Приоритет исходящего сообщения: сообщения с меньшим порядковым номером отправляются раньше.
+ */
+public enum MessagePriority {
+    /** Квитанции о начислении и списании баллов. */
+    TRANSACTION,
+    /** Ответы на команды пользователя. */
+    REPLY,
+    /** Уведомления администраторов. */
+    NOTIFICATION,
+    /** Рекламные рассылки: уступают всем остальным сообщениям. */
+    BROADCAST
+}
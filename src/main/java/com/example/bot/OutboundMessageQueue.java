@@ -0,0 +1,387 @@
+package com.example.bot;
+
+import com.example.throttle.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Очередь исходящих сообщений с фоновыми отправителями.
+ * Обработчики команд только ставят сообщение в очередь и сразу возвращаются.
+ * Отправка соблюдает общий лимит Telegram и лимит на отдельный чат (корзины токенов),
+ * повторяет запрос после 429 с учётом retry_after, а при сетевых ошибках — с экспоненциальной задержкой.
+ * Сообщения одного чата уходят строго в порядке постановки; между чатами раньше идёт тот,
+ * у кого первое сообщение важнее. Чат, упёршийся в свой лимит или ждущий повтора, откладывается,
+ * и поток тем временем отправляет сообщения других чатов.
+ */
+@Component
+public class OutboundMessageQueue implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(OutboundMessageQueue.class);
+
+    /** Порядок готовых к отправке чатов: по приоритету и очерёдности их первого сообщения. */
+    private static final Comparator<ChatMessages> READY_ORDER = Comparator
+            .comparing((ChatMessages chat) -> chat.messages.peekFirst().priority)
+            .thenComparingLong(chat -> chat.messages.peekFirst().sequence);
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final AbsSender sender;
+    private final MeterRegistry registry;
+    private final TokenBucket globalLimit;
+    private final Cache<Long, TokenBucket> chatLimits;
+    private final double perChatRate;
+    private final double perChatBurst;
+    private final int capacity;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final Stripe[] stripes;
+    private final Thread[] workers;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean running = true;
+
+    public OutboundMessageQueue(TelegramSender sender, MeterRegistry registry,
+                                @Value("${bot.outbound.workers:4}") int workerCount,
+                                @Value("${bot.outbound.capacity:10000}") int capacity,
+                                @Value("${bot.outbound.global-rate:30}") double globalRate,
+                                @Value("${bot.outbound.per-chat-rate:1}") double perChatRate,
+                                @Value("${bot.outbound.per-chat-burst:3}") double perChatBurst,
+                                @Value("${bot.outbound.max-attempts:5}") int maxAttempts,
+                                @Value("${bot.outbound.backoff:500ms}") Duration backoff) {
+        this.sender = sender;
+        this.registry = registry;
+        this.globalLimit = new TokenBucket(globalRate, globalRate);
+        this.chatLimits = Caffeine.newBuilder().expireAfterAccess(Duration.ofMinutes(1)).build();
+        this.perChatRate = perChatRate;
+        this.perChatBurst = perChatBurst;
+        this.capacity = capacity;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoff.toMillis();
+
+        this.stripes = new Stripe[workerCount];
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            Stripe stripe = new Stripe();
+            stripes[i] = stripe;
+            workers[i] = new Thread(stripe::work, "outbound-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Ставит текстовое сообщение в очередь на отправку.
+     *
+     * @param chatId   идентификатор чата получателя
+     * @param text     текст сообщения
+     * @param priority приоритет сообщения
+     * @return итог доставки, известный после отправки
+     */
+    public CompletableFuture<DeliveryStatus> send(long chatId, String text, MessagePriority priority) {
+        SendMessage message = new SendMessage();
+        message.setChatId(String.valueOf(chatId));
+        message.setText(text);
+        return send(chatId, message, priority);
+    }
+
+    /**
+     * Ставит произвольный метод Bot API, адресованный чату, в очередь на отправку.
+     *
+     * @param chatId   идентификатор чата, по которому применяется лимит и сохраняется порядок
+     * @param method   метод Bot API
+     * @param priority приоритет сообщения
+     * @return итог доставки, известный после отправки
+     */
+    public CompletableFuture<DeliveryStatus> send(long chatId, BotApiMethod<?> method, MessagePriority priority) {
+        OutboundMessage message = new OutboundMessage(chatId, method, priority, sequence.incrementAndGet());
+        if (!running) {
+            message.result.complete(DeliveryStatus.FAILED);
+            return message.result;
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            logger.warn("Очередь исходящих сообщений переполнена, сообщение для чата {} отброшено", chatId);
+            message.result.complete(DeliveryStatus.FAILED);
+            return message.result;
+        }
+        stripeOf(chatId).add(message);
+        return message.result;
+    }
+
+    /**
+     * Возвращает количество сообщений, ожидающих отправки.
+     */
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    private Stripe stripeOf(long chatId) {
+        long mixed = chatId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) ((mixed >>> 32) % stripes.length)];
+    }
+
+    /**
+     * Одна попытка отправки.
+     *
+     * @return итог доставки или null, если попытку нужно повторить через {@code message.retryDelayMillis}
+     */
+    private DeliveryStatus attempt(OutboundMessage message) throws InterruptedException {
+        int attempt = ++message.attempts;
+        globalLimit.acquire();
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            sender.execute(message.method);
+            sample.stop(apiTimer(message.method, "ok"));
+            return DeliveryStatus.DELIVERED;
+        } catch (TelegramApiRequestException e) {
+            Integer errorCode = e.getErrorCode();
+            sample.stop(apiTimer(message.method, errorCode != null ? errorCode.toString() : "error"));
+            if (errorCode != null && errorCode == 403) {
+                logger.info("Чат {} недоступен для бота: {}", message.chatId, e.getApiResponse());
+                return DeliveryStatus.BLOCKED;
+            }
+            if (errorCode != null && errorCode == 429 && attempt < maxAttempts) {
+                Integer retryAfter = e.getParameters() != null ? e.getParameters().getRetryAfter() : null;
+                long delay = retryAfter != null ? retryAfter * 1000L : backoffMillis << (attempt - 1);
+                logger.warn("Превышен лимит Telegram, повтор для чата {} через {} мс", message.chatId, delay);
+                message.retryDelayMillis = delay;
+                return null;
+            }
+            if (errorCode != null && errorCode >= 400 && errorCode < 500 && errorCode != 429) {
+                logger.error("Telegram отклонил сообщение для чата {}: {}", message.chatId, e.getApiResponse());
+                return DeliveryStatus.FAILED;
+            }
+            if (attempt >= maxAttempts) {
+                logger.error("Ошибка отправки сообщения в чат {}: {}", message.chatId, e.getMessage());
+                return DeliveryStatus.FAILED;
+            }
+            message.retryDelayMillis = backoffMillis << (attempt - 1);
+            return null;
+        } catch (TelegramApiException e) {
+            sample.stop(apiTimer(message.method, "io"));
+            if (attempt >= maxAttempts) {
+                logger.error("Ошибка отправки сообщения в чат {}: {}", message.chatId, e.getMessage());
+                return DeliveryStatus.FAILED;
+            }
+            message.retryDelayMillis = backoffMillis << (attempt - 1);
+            return null;
+        }
+    }
+
+    /**
+     * Таймер вызовов Telegram API: метод и итог (ok, код ошибки Telegram или io для сетевых сбоев).
+     */
+    private Timer apiTimer(BotApiMethod<?> method, String outcome) {
+        return Timer.builder("telegram.api.calls")
+                .description("Время вызовов Telegram Bot API")
+                .tag("method", method.getMethod())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        // Даём потокам дослать очередь, затем прерываем зависшие
+        for (Thread worker : workers) {
+            worker.join(5_000);
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Чаты одного потока отправки. Чат с сообщениями находится ровно в одном месте: среди готовых,
+     * среди отложенных или у потока, который отправляет его первое сообщение.
+     */
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final Map<Long, ChatMessages> chats = new HashMap<>();
+        private final PriorityQueue<ChatMessages> ready = new PriorityQueue<>(READY_ORDER);
+        /** Отложенные чаты в порядке момента, с которого их можно продолжить. */
+        private final PriorityQueue<ChatMessages> delayed =
+                new PriorityQueue<>(Comparator.comparingLong((ChatMessages chat) -> chat.notBefore));
+
+        void add(OutboundMessage message) {
+            lock.lock();
+            try {
+                ChatMessages chat = chats.computeIfAbsent(message.chatId, ChatMessages::new);
+                chat.messages.addLast(message);
+                if (!chat.scheduled) {
+                    chat.scheduled = true;
+                    ready.add(chat);
+                    changed.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void work() {
+            ChatMessages chat;
+            try {
+                while ((chat = next()) != null) {
+                    OutboundMessage message = chat.sending;
+                    DeliveryStatus status;
+                    try {
+                        status = attempt(message);
+                    } catch (InterruptedException e) {
+                        finish(chat, message, DeliveryStatus.FAILED);
+                        return;
+                    }
+                    if (status != null) {
+                        finish(chat, message, status);
+                    } else {
+                        retryLater(chat, message);
+                    }
+                }
+            } finally {
+                failRemaining();
+            }
+        }
+
+        /**
+         * Ждёт чат, первое сообщение которого можно отправить сейчас, и забирает это сообщение.
+         *
+         * @return чат или null, если очередь остановлена и пуста
+         */
+        private ChatMessages next() {
+            lock.lock();
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    while (!delayed.isEmpty() && delayed.peek().notBefore - now <= 0) {
+                        ready.add(delayed.poll());
+                    }
+                    ChatMessages chat = ready.poll();
+                    if (chat != null) {
+                        long wait = chatLimits.get(chat.chatId, id -> new TokenBucket(perChatRate, perChatBurst))
+                                .tryAcquireOrWait();
+                        if (wait > 0) {
+                            // Лимит чата исчерпан: откладываем чат, а не поток
+                            chat.notBefore = now + wait;
+                            delayed.add(chat);
+                            continue;
+                        }
+                        chat.sending = chat.messages.pollFirst();
+                        return chat;
+                    }
+                    if (!running && chats.isEmpty()) {
+                        return null;
+                    }
+                    long timeout = delayed.isEmpty() ? IDLE_WAIT_NANOS : delayed.peek().notBefore - now;
+                    changed.awaitNanos(timeout);
+                }
+            } catch (InterruptedException e) {
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void finish(ChatMessages chat, OutboundMessage message, DeliveryStatus status) {
+            message.result.complete(status);
+            pending.decrementAndGet();
+            lock.lock();
+            try {
+                chat.sending = null;
+                if (chat.messages.isEmpty()) {
+                    chat.scheduled = false;
+                    chats.remove(chat.chatId);
+                } else {
+                    ready.add(chat);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void retryLater(ChatMessages chat, OutboundMessage message) {
+            lock.lock();
+            try {
+                // Сообщение возвращается в начало очереди чата, чтобы не нарушить порядок
+                chat.sending = null;
+                chat.messages.addFirst(message);
+                chat.notBefore = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(message.retryDelayMillis);
+                delayed.add(chat);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Завершает неотправленные сообщения, если поток остановлен раньше, чем очередь опустела.
+         */
+        private void failRemaining() {
+            lock.lock();
+            try {
+                for (ChatMessages chat : chats.values()) {
+                    for (OutboundMessage message : chat.messages) {
+                        message.result.complete(DeliveryStatus.FAILED);
+                        pending.decrementAndGet();
+                    }
+                }
+                chats.clear();
+                ready.clear();
+                delayed.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class ChatMessages {
+        private final long chatId;
+        private final ArrayDeque<OutboundMessage> messages = new ArrayDeque<>();
+        /** Чат находится среди готовых, среди отложенных или отправляется. */
+        private boolean scheduled;
+        private OutboundMessage sending;
+        private long notBefore;
+
+        private ChatMessages(long chatId) {
+            this.chatId = chatId;
+        }
+    }
+
+    private static final class OutboundMessage {
+        private final long chatId;
+        private final BotApiMethod<?> method;
+        private final MessagePriority priority;
+        private final long sequence;
+        private final CompletableFuture<DeliveryStatus> result = new CompletableFuture<>();
+        private int attempts;
+        private long retryDelayMillis;
+
+        private OutboundMessage(long chatId, BotApiMethod<?> method, MessagePriority priority, long sequence) {
+            this.chatId = chatId;
+            this.method = method;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+
+/**
+ * Клиент Telegram Bot API для исходящих вызовов, независимый от способа получения обновлений.
+ */
+@Component
+public class TelegramSender extends DefaultAbsSender {
+
+    public TelegramSender(DefaultBotOptions options, @Value("${bot.token}") String botToken) {
+        super(options, botToken);
+    }
+}
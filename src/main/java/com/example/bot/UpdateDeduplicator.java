@@ -0,0 +1,209 @@
+package com.example.bot;
+
+import com.example.datasource.ReadFromPrimary;
+import com.example.entity.BotCheckpoint;
+import com.example.repository.BotCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Отсеивает повторно доставленные обновления по update_id.
+ * Недавние update_id хранятся в кольцевом битовом окне фиксированного размера,
+ * всё, что старше окна или не выше сохранённой отметки, считается уже обработанным.
+ * Полосы обработки завершают обновления не по порядку, поэтому отдельно отмечаются принятые, но ещё
+ * не завершённые update_id. В базу периодически сохраняется отметка, ниже которой не осталось незавершённых
+ * обновлений: после перезапуска повторно доставленное незавершённое обновление будет обработано.
+ * Telegram может начать нумерацию update_id заново, с меньшего значения; обновление намного ниже окна
+ * считается началом новой нумерации, а не повтором.
+ * Отметка читается только из основной базы: отставшая реплика вернула бы старую и пропустила бы повторы.
+ */
+@Component
+@ReadFromPrimary
+public class UpdateDeduplicator implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(UpdateDeduplicator.class);
+
+    private final BotCheckpointRepository checkpointRepository;
+    /** Имя отметки в bot_checkpoints; в кластере у каждого экземпляра своя. */
+    private final String checkpoint;
+    /** Принятые update_id в окне. */
+    private final long[] window;
+    /** Принятые, но ещё не завершённые update_id в окне. */
+    private final long[] inFlight;
+    private final int windowBits;
+    /** Незавершённые update_id, из-под которых окно уже ушло: отметка не должна подняться выше них. */
+    private final NavigableSet<Long> stalled = new TreeSet<>();
+
+    /** update_id не выше этой отметки считаются обработанными до перезапуска. */
+    private long floor;
+    /** Наибольший принятый update_id; окно покрывает (highest - windowBits, highest]. */
+    private long highest;
+    private int inFlightCount;
+    private long persisted;
+    private long duplicates;
+    private long renumberings;
+
+    public UpdateDeduplicator(BotCheckpointRepository checkpointRepository,
+                              @Value("${bot.dedup.window:65536}") int windowSize,
+                              @Value("${bot.dedup.checkpoint:update_id_high_water_mark}") String checkpoint) {
+        this.checkpointRepository = checkpointRepository;
+        this.checkpoint = checkpoint;
+        this.window = new long[Math.max(1, (windowSize + 63) / 64)];
+        this.inFlight = new long[window.length];
+        this.windowBits = window.length * 64;
+        this.floor = checkpointRepository.findById(checkpoint).map(BotCheckpoint::getValue).orElse(0L);
+        this.highest = floor;
+        this.persisted = floor;
+        logger.info("Отметка обработанных обновлений: {}", floor);
+    }
+
+    /**
+     * Отмечает обновление как принятое.
+     *
+     * @param updateId идентификатор обновления
+     * @return true, если обновление встречается впервые и его нужно обработать
+     */
+    public synchronized boolean markIfNew(long updateId) {
+        if (updateId <= Math.max(floor, highest - windowBits) - windowBits) {
+            // Так далеко вниз повторы не уходят: Telegram начал нумерацию заново
+            logger.warn("update_id {} намного ниже отметки {}: нумерация обновлений начата заново", updateId, floor);
+            restartNumbering(updateId);
+        } else if (updateId <= floor || updateId <= highest - windowBits) {
+            duplicates++;
+            return false;
+        }
+        if (updateId > highest) {
+            // Сдвигаем окно: освобождаем биты, которые теперь будут означать новые update_id
+            long clearFrom = Math.max(highest + 1, updateId - windowBits + 1);
+            for (long id = clearFrom; id <= updateId; id++) {
+                evict(id);
+            }
+            highest = updateId;
+        }
+        int bit = bitOf(updateId);
+        long mask = 1L << bit;
+        if ((window[bit >>> 6] & mask) != 0) {
+            duplicates++;
+            return false;
+        }
+        window[bit >>> 6] |= mask;
+        inFlight[bit >>> 6] |= mask;
+        inFlightCount++;
+        return true;
+    }
+
+    /**
+     * Отмечает обновление как полностью обработанное. Вызывается и для обновлений, которые
+     * бот принял, но решил не обрабатывать.
+     *
+     * @param updateId идентификатор обновления
+     */
+    public synchronized void complete(long updateId) {
+        if (updateId > highest || updateId <= highest - windowBits) {
+            // Вне окна бывают только обновления, из-под которых окно ушло, или обновления прежней нумерации
+            stalled.remove(updateId);
+            return;
+        }
+        int bit = bitOf(updateId);
+        long mask = 1L << bit;
+        if ((inFlight[bit >>> 6] & mask) != 0) {
+            inFlight[bit >>> 6] &= ~mask;
+            inFlightCount--;
+        }
+    }
+
+    /**
+     * Отметка для сохранения: все update_id не выше неё завершены.
+     */
+    synchronized long checkpointValue() {
+        if (!stalled.isEmpty()) {
+            return stalled.first() - 1;
+        }
+        if (inFlightCount == 0) {
+            return highest;
+        }
+        // Незавершённые обновления могут быть только в окне выше отметки
+        for (long id = Math.max(floor, highest - windowBits) + 1; id <= highest; id++) {
+            int bit = bitOf(id);
+            if ((inFlight[bit >>> 6] & (1L << bit)) != 0) {
+                return id - 1;
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Количество отброшенных повторных обновлений с момента запуска.
+     */
+    public synchronized long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /**
+     * Сколько раз с момента запуска Telegram начинал нумерацию update_id заново.
+     */
+    public synchronized long getRenumberingCount() {
+        return renumberings;
+    }
+
+    @Scheduled(fixedDelayString = "${bot.dedup.flush-interval:PT1S}")
+    public void flush() {
+        long value;
+        synchronized (this) {
+            value = checkpointValue();
+            if (value == persisted) {
+                return;
+            }
+        }
+        checkpointRepository.save(new BotCheckpoint(checkpoint, value, Instant.now()));
+        synchronized (this) {
+            persisted = value;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * Освобождает бит окна под новый update_id. Если прежний update_id на этом месте ещё обрабатывается,
+     * он запоминается отдельно.
+     */
+    private void evict(long newId) {
+        int bit = bitOf(newId);
+        long mask = 1L << bit;
+        if ((inFlight[bit >>> 6] & mask) != 0) {
+            // Прежний владелец бита — единственный update_id окна (highest - windowBits, highest] с тем же остатком
+            stalled.add(newId - windowBits * ((newId - highest + windowBits - 1) / windowBits));
+            inFlight[bit >>> 6] &= ~mask;
+            inFlightCount--;
+        }
+        window[bit >>> 6] &= ~mask;
+    }
+
+    /**
+     * Начинает новую нумерацию: незавершённые обновления прежней больше не сдерживают отметку.
+     */
+    private void restartNumbering(long updateId) {
+        renumberings++;
+        floor = updateId - 1;
+        highest = floor;
+        Arrays.fill(window, 0L);
+        Arrays.fill(inFlight, 0L);
+        inFlightCount = 0;
+        stalled.clear();
+    }
+
+    private int bitOf(long updateId) {
+        return (int) Math.floorMod(updateId, (long) windowBits);
+    }
+}
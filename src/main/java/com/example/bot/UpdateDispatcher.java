@@ -0,0 +1,111 @@
+package com.example.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Распределяет обработку обновлений по «полосам» — однопоточным исполнителям.
+ * Все обновления одного чата попадают в одну и ту же полосу и обрабатываются строго по порядку,
+ * обновления разных чатов обрабатываются параллельно.
+ */
+@Component
+public class UpdateDispatcher implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public UpdateDispatcher(@Value("${bot.dispatch.parallelism:8}") int parallelism,
+                            @Value("${bot.dispatch.queue-capacity:1000}") int queueCapacity) {
+        if (parallelism <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Параметры диспетчера обновлений должны быть положительными.");
+        }
+        int laneCapacity = Math.max(1, (queueCapacity + parallelism - 1) / parallelism);
+        this.lanes = new ThreadPoolExecutor[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            lanes[i] = newLane(i, laneCapacity);
+        }
+        logger.info("Диспетчер обновлений запущен: полос {}, ёмкость очереди {}", parallelism, laneCapacity * parallelism);
+    }
+
+    /**
+     * Ставит задачу в очередь полосы, закреплённой за чатом.
+     * Если очередь полосы заполнена, вызывающий поток ждёт освобождения места,
+     * тем самым притормаживая получение новых обновлений.
+     *
+     * @param chatId идентификатор чата, определяющий полосу
+     * @param task   обработка обновления
+     */
+    public void dispatch(long chatId, Runnable task) {
+        lanes[laneOf(chatId)].execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("Ошибка обработки обновления для чата {}", chatId, e);
+            }
+        });
+    }
+
+    /**
+     * Возвращает количество обновлений, ожидающих обработки во всех полосах.
+     */
+    public int getQueuedCount() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    private int laneOf(long chatId) {
+        // Перемешиваем биты, чтобы близкие chatId не попадали в соседние полосы одной группой
+        long mixed = chatId * 0x9E3779B97F4A7C15L;
+        return (int) ((mixed >>> 32) % lanes.length);
+    }
+
+    private static ThreadPoolExecutor newLane(int index, int capacity) {
+        AtomicInteger threads = new AtomicInteger();
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "update-lane-" + index + "-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                BLOCK_WHEN_FULL);
+    }
+
+    private static final RejectedExecutionHandler BLOCK_WHEN_FULL = (task, executor) -> {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Диспетчер обновлений остановлен.");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Ожидание места в очереди прервано.", e);
+        }
+    };
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Полоса обработки не завершилась вовремя, осталось задач: {}", lane.getQueue().size());
+                lane.shutdownNow();
+            }
+        }
+    }
+}
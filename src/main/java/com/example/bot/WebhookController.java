@@ -0,0 +1,63 @@
+package com.example.bot;
+
+import com.example.cluster.UpdateForwarder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Приём обновлений через вебхук (профиль webhook).
+ * Обновление только передаётся в диспетчер, и Telegram сразу получает ответ 200.
+ * В кластере обновление чужого чата сначала пересылается экземпляру-владельцу.
+ * Для локальной проверки достаточно отправить POST с JSON обновления:
+ * {@code curl -H 'Content-Type: application/json' -d @update.json localhost:8080/telegram/webhook}
+ */
+@RestController
+@Profile("webhook")
+public class WebhookController {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookController.class);
+
+    private final CoffeeLoyaltyBot bot;
+    private final UpdateForwarder forwarder;
+    private final byte[] secretToken;
+
+    public WebhookController(CoffeeLoyaltyBot bot, UpdateForwarder forwarder,
+                             @Value("${bot.webhook.secret:}") String secretToken) {
+        this.bot = bot;
+        this.forwarder = forwarder;
+        this.secretToken = secretToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("${bot.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> onUpdate(
+            @RequestHeader(value = "X-Telegram-Bot-Api-Secret-Token", required = false) String providedToken,
+            @RequestHeader(value = UpdateForwarder.FORWARDED_BY, required = false) String forwardedBy,
+            @RequestBody Update update) {
+        if (secretToken.length > 0 && (providedToken == null
+                || !MessageDigest.isEqual(secretToken, providedToken.getBytes(StandardCharsets.UTF_8)))) {
+            logger.warn("Отклонён запрос вебхука с неверным секретом, update_id {}", update.getUpdateId());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        // В кластере обновление обрабатывает экземпляр, за которым закреплён чат; пересланное уже пришло по адресу
+        UpdateForwarder.Result route = forwardedBy == null ? forwarder.forwardIfRemote(update) : UpdateForwarder.Result.LOCAL;
+        if (route == UpdateForwarder.Result.FORWARDED) {
+            return ResponseEntity.ok().build();
+        }
+        if (route == UpdateForwarder.Result.RETRY) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        bot.onUpdateReceived(update);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * Сообщает Telegram адрес вебхука, когда приложение готово принимать запросы (профиль webhook).
+ * Если адрес не задан, регистрация пропускается — так удобно проверять вебхук локально.
+ */
+@Component
+@Profile("webhook")
+public class WebhookRegistrar {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookRegistrar.class);
+
+    private final TelegramSender sender;
+    private final String url;
+    private final String secretToken;
+    private final int maxConnections;
+
+    public WebhookRegistrar(TelegramSender sender,
+                            @Value("${bot.webhook.url:}") String url,
+                            @Value("${bot.webhook.secret:}") String secretToken,
+                            @Value("${bot.webhook.max-connections:40}") int maxConnections) {
+        this.sender = sender;
+        this.url = url;
+        this.secretToken = secretToken;
+        this.maxConnections = maxConnections;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() {
+        if (url.isBlank()) {
+            logger.info("Адрес вебхука не задан, регистрация в Telegram пропущена");
+            return;
+        }
+        SetWebhook setWebhook = new SetWebhook(url);
+        setWebhook.setMaxConnections(maxConnections);
+        if (!secretToken.isBlank()) {
+            setWebhook.setSecretToken(secretToken);
+        }
+        try {
+            sender.execute(setWebhook);
+            logger.info("Вебхук зарегистрирован: {}", url);
+        } catch (TelegramApiException e) {
+            throw new IllegalStateException("Ошибка при регистрации вебхука", e);
+        }
+    }
+}
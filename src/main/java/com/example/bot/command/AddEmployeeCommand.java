@@ -0,0 +1,83 @@
+package com.example.bot.command;
+
+import com.example.entity.UserState;
+import com.example.service.LoyaltyService;
+import com.example.state.Conversation;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+@Component
+@Order(70)
+public class AddEmployeeCommand implements CommandHandler {
+
+    private final LoyaltyService loyaltyService;
+
+    public AddEmployeeCommand(LoyaltyService loyaltyService) {
+        this.loyaltyService = loyaltyService;
+    }
+
+    @Override
+    public String name() {
+        return "addemployee";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/addemployee", "добавитьсотрудника");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.ADMIN;
+    }
+
+    @Override
+    public String arguments() {
+        return "[телефон]";
+    }
+
+    @Override
+    public String description() {
+        return "назначить сотрудника";
+    }
+
+    @Override
+    public Set<UserState> states() {
+        return Set.of(UserState.ADD_EMPLOYEE_AWAITING_PHONE);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        String employeePhoneNumber = context.arguments();
+        if (employeePhoneNumber.isEmpty()) {
+            context.reply("Введите номер телефона сотрудника для добавления:");
+            context.startConversation(UserState.ADD_EMPLOYEE_AWAITING_PHONE);
+            return;
+        }
+
+        // Если номер телефона уже был передан, добавляем сотрудника
+        addEmployee(context, employeePhoneNumber);
+    }
+
+    @Override
+    public void continueConversation(CommandContext context, Conversation conversation) {
+        addEmployee(context, context.text());
+    }
+
+    private void addEmployee(CommandContext context, String employeePhoneNumber) {
+        String adminPhoneNumber = context.profile().phoneNumber();
+
+        try {
+            // Добавляем нового сотрудника
+            loyaltyService.addEmployee(adminPhoneNumber, employeePhoneNumber);
+            context.reply("Сотрудник успешно добавлен: " + employeePhoneNumber);
+        } catch (Exception e) {
+            context.reply("Ошибка: " + e.getMessage());
+        } finally {
+            context.endConversation(); // Убираем состояние, чтобы не ожидать ввод дальше
+        }
+    }
+}
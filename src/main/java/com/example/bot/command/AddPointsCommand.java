@@ -0,0 +1,160 @@
+package com.example.bot.command;
+
+import com.example.bot.AdminNotifier;
+import com.example.bot.MessagePriority;
+import com.example.entity.BalanceChange;
+import com.example.entity.UserState;
+import com.example.phone.PhoneNumbers;
+import com.example.rules.LoyaltyRules;
+import com.example.service.LoyaltyService;
+import com.example.state.Conversation;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+@Component
+@Order(50)
+public class AddPointsCommand implements CommandHandler {
+
+    private final LoyaltyService loyaltyService;
+    private final LoyaltyRules rules;
+    private final AdminNotifier adminNotifier;
+    private final QuickAmounts quickAmounts;
+
+    public AddPointsCommand(LoyaltyService loyaltyService, LoyaltyRules rules, AdminNotifier adminNotifier,
+                            QuickAmounts quickAmounts) {
+        this.loyaltyService = loyaltyService;
+        this.rules = rules;
+        this.adminNotifier = adminNotifier;
+        this.quickAmounts = quickAmounts;
+    }
+
+    @Override
+    public String name() {
+        return "addpoints";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/addpoints", "добавитьбаллы");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.STAFF;
+    }
+
+    @Override
+    public String arguments() {
+        return "[телефон [баллы]]";
+    }
+
+    @Override
+    public String description() {
+        return "добавить баллы клиенту";
+    }
+
+    @Override
+    public Set<UserState> states() {
+        return Set.of(UserState.ADD_POINTS_AWAITING_PHONE, UserState.ADD_POINTS_AWAITING_AMOUNT);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        String arguments = context.arguments();
+        if (arguments.isEmpty()) {
+            // Отправляем сообщение с просьбой ввести номер телефона клиента
+            context.reply("Введите номер телефона клиента для начисления баллов:");
+
+            // Сохраняем состояние пользователя, чтобы узнать, что он вводит номер телефона
+            context.startConversation(UserState.ADD_POINTS_AWAITING_PHONE);
+            return;
+        }
+        // «/addpoints телефон баллы» начисляет сразу, «/addpoints телефон» сразу спрашивает количество
+        PhoneAmount request = PhoneAmount.parse(arguments);
+        if (!request.hasPhone()) {
+            context.reply(Replies.INVALID_PHONE);
+            context.startConversation(UserState.ADD_POINTS_AWAITING_PHONE);
+        } else if (request.amount() == null) {
+            askAmount(context, request.phoneKey());
+        } else {
+            addPoints(context, request.phoneNumber(), request.amount());
+        }
+    }
+
+    @Override
+    public void continueConversation(CommandContext context, Conversation conversation) {
+        if (conversation.state() == UserState.ADD_POINTS_AWAITING_PHONE) {
+            awaitingPhone(context);
+        } else {
+            awaitingAmount(context, conversation.data());
+        }
+    }
+
+    @Override
+    public void handleCallback(CommandContext context) {
+        PhoneAmount pressed = PhoneAmount.ofCallback(context.arguments());
+        if (!pressed.hasPhone() || pressed.amount() == null) {
+            context.answer("Кнопка устарела, начните заново: /addpoints");
+            return;
+        }
+        // Кнопка отвечает на вопрос о количестве баллов, ждать его сообщением больше не нужно
+        context.endConversation();
+        addPoints(context, pressed.phoneNumber(), pressed.amount());
+    }
+
+    private void awaitingPhone(CommandContext context) {
+        long phoneKey = PhoneNumbers.parse(context.text());
+        if (phoneKey == PhoneNumbers.INVALID) {
+            context.reply(Replies.INVALID_PHONE);
+            return;
+        }
+        askAmount(context, phoneKey);
+    }
+
+    private void askAmount(CommandContext context, long phoneKey) {
+        // Сохраняем номер телефона клиента в каноническом виде
+        context.startConversation(UserState.ADD_POINTS_AWAITING_AMOUNT, PhoneNumbers.format(phoneKey));
+        context.reply("Введите количество баллов для начисления:",
+                quickAmounts.keyboard(name(), phoneKey, 1, Integer.MAX_VALUE));
+    }
+
+    private void awaitingAmount(CommandContext context, String userPhoneNumber) {
+        try {
+            int points = Integer.parseInt(context.text()); // Количество баллов для начисления
+            addPoints(context, userPhoneNumber, points);
+        } catch (NumberFormatException e) {
+            context.reply("Количество баллов должно быть числом.");
+        } finally {
+            context.endConversation();
+        }
+    }
+
+    private void addPoints(CommandContext context, String userPhoneNumber, int points) {
+        try {
+            String employeePhoneNumber = context.profile().phoneNumber(); // Номер телефона сотрудника
+
+            // Начисляем баллы: в ответ сразу приходят chatId клиента, его новый баланс и начисленное по правилам
+            BalanceChange change = loyaltyService.addPoints(employeePhoneNumber, userPhoneNumber, points,
+                    context.operationKey());
+            int credited = change.getDelta();
+
+            // Уведомляем клиента о начислении баллов и о награде, если баланс до неё дорос
+            context.send(change.getChatId(), Replies.pointsCredited(rules.current(), credited, change.getPoints()),
+                    MessagePriority.TRANSACTION);
+            if (credited != points) {
+                context.answer("По правилам программы начислено " + credited + " баллов.");
+            } else if (context.isCallback()) {
+                context.answer("Начислено " + credited + " баллов клиенту " + userPhoneNumber + ".");
+            }
+
+            // Уведомляем администраторов о начислении баллов
+            adminNotifier.pointsAdded(employeePhoneNumber, userPhoneNumber, credited);
+
+        } catch (Exception e) {
+            context.answer("Ошибка: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.bot.command;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Order(40)
+public class BalanceCommand implements CommandHandler {
+
+    @Override
+    public String name() {
+        return "balance";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/balance", "баланс");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.CUSTOMER;
+    }
+
+    @Override
+    public String description() {
+        return "узнать баланс баллов";
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        // Профиль уже загружен для проверки прав, отдельный запрос баланса не нужен
+        context.reply("Ваш баланс: " + context.profile().points() + " баллов.");
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.bot.command;
+
+import com.example.bot.AdminNotifier;
+import com.example.bot.MessagePriority;
+import com.example.bot.TelegramSender;
+import com.example.entity.UserState;
+import com.example.rules.CompiledRules;
+import com.example.rules.LoyaltyRules;
+import com.example.service.BatchAccrualReport;
+import com.example.service.BatchAccrualService;
+import com.example.state.Conversation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.GetFile;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Начисление баллов списком клиентов: строки «телефон баллы» в том же сообщении после команды,
+ * следующим сообщением или CSV-файлом {@code телефон,баллы} с подписью {@code /batchpoints}.
+ */
+@Component
+@Order(55)
+public class BatchPointsCommand implements CommandHandler {
+    private static final Logger logger = LoggerFactory.getLogger(BatchPointsCommand.class);
+
+    /** Сколько отклонённых строк перечислить в ответе; остальные только считаются. */
+    private static final int REPORTED_REJECTIONS = 20;
+
+    private final BatchAccrualService batchAccrual;
+    private final LoyaltyRules rules;
+    private final AdminNotifier adminNotifier;
+    private final TelegramSender sender;
+
+    public BatchPointsCommand(BatchAccrualService batchAccrual, LoyaltyRules rules, AdminNotifier adminNotifier,
+                              TelegramSender sender) {
+        this.batchAccrual = batchAccrual;
+        this.rules = rules;
+        this.adminNotifier = adminNotifier;
+        this.sender = sender;
+    }
+
+    @Override
+    public String name() {
+        return "batchpoints";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/batchpoints", "начислитьсписком");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.STAFF;
+    }
+
+    @Override
+    public String arguments() {
+        return "[строки «телефон баллы»]";
+    }
+
+    @Override
+    public String description() {
+        return "начислить баллы списку клиентов (или CSV-файл телефон,баллы с подписью /batchpoints)";
+    }
+
+    @Override
+    public boolean acceptsDocument() {
+        return true;
+    }
+
+    @Override
+    public Set<UserState> states() {
+        return Set.of(UserState.BATCH_POINTS_AWAITING_LIST);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        if (context.message().hasDocument()) {
+            // Файл из Telegram читается потоком, построчно
+            try (InputStream in = sender.downloadFileAsStream(
+                    sender.execute(new GetFile(context.message().getDocument().getFileId())));
+                 Reader csv = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                addPoints(context, csv);
+            } catch (Exception e) {
+                logger.error("Ошибка загрузки списка начислений", e);
+                context.reply("Ошибка загрузки: " + e.getMessage());
+            }
+            return;
+        }
+        String arguments = context.arguments();
+        if (arguments.isEmpty()) {
+            context.reply("Отправьте список: в каждой строке номер телефона клиента и баллы, например\n"
+                    + "+79991234567 5\n+79997654321 10\n"
+                    + "Или отправьте CSV-файл телефон,баллы с подписью /batchpoints.");
+            context.startConversation(UserState.BATCH_POINTS_AWAITING_LIST);
+            return;
+        }
+        addPoints(context, new StringReader(arguments));
+    }
+
+    @Override
+    public void continueConversation(CommandContext context, Conversation conversation) {
+        try {
+            addPoints(context, new StringReader(context.text()));
+        } finally {
+            context.endConversation();
+        }
+    }
+
+    private void addPoints(CommandContext context, Reader lines) {
+        try {
+            String employeePhoneNumber = context.profile().phoneNumber();
+            BatchAccrualReport report = batchAccrual.addPoints(employeePhoneNumber, lines, context.operationKey());
+
+            // Клиенты получают такое же уведомление, как при обычном начислении, администраторы — одно на список
+            CompiledRules current = rules.current();
+            for (BatchAccrualReport.Credit credit : report.credited()) {
+                context.send(credit.chatId(), Replies.pointsCredited(current, credit.delta(), credit.points()),
+                        MessagePriority.TRANSACTION);
+            }
+            if (!report.credited().isEmpty()) {
+                adminNotifier.pointsAddedInBatch(employeePhoneNumber, report.credited().size(), report.totalPoints());
+            }
+            context.reply(summary(report));
+        } catch (Exception e) {
+            context.reply("Ошибка: " + e.getMessage());
+        }
+    }
+
+    private static String abbreviate(String line) {
+        return line.length() <= 60 ? line : line.substring(0, 60) + "…";
+    }
+
+    private static String summary(BatchAccrualReport report) {
+        StringBuilder text = new StringBuilder()
+                .append("Начислено клиентам: ").append(report.credited().size())
+                .append(", всего баллов: ").append(report.totalPoints()).append('.');
+        List<BatchAccrualReport.Rejection> rejected = report.rejected();
+        if (!rejected.isEmpty()) {
+            text.append("\nОтклонено строк: ").append(rejected.size()).append(':');
+            for (BatchAccrualReport.Rejection rejection : rejected.subList(0, Math.min(rejected.size(), REPORTED_REJECTIONS))) {
+                text.append("\nстрока ").append(rejection.lineNo()).append(": ").append(rejection.reason())
+                        .append(" — ").append(abbreviate(rejection.line()));
+            }
+            if (rejected.size() > REPORTED_REJECTIONS) {
+                text.append("\n… и ещё ").append(rejected.size() - REPORTED_REJECTIONS);
+            }
+        }
+        return text.toString();
+    }
+}
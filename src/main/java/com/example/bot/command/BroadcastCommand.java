@@ -0,0 +1,78 @@
+package com.example.bot.command;
+
+import com.example.bot.CampaignBroadcaster;
+import com.example.entity.Campaign;
+import com.example.entity.CampaignStatus;
+import com.example.service.CampaignService;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Запуск рекламной рассылки всем пользователям. Без текста показывает ход последних рассылок.
+ */
+@Component
+@Order(110)
+public class BroadcastCommand implements CommandHandler {
+
+    private final CampaignBroadcaster broadcaster;
+    private final CampaignService campaignService;
+
+    public BroadcastCommand(CampaignBroadcaster broadcaster, CampaignService campaignService) {
+        this.broadcaster = broadcaster;
+        this.campaignService = campaignService;
+    }
+
+    @Override
+    public String name() {
+        return "broadcast";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/broadcast", "рассылка");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.ADMIN;
+    }
+
+    @Override
+    public String arguments() {
+        return "[текст]";
+    }
+
+    @Override
+    public String description() {
+        return "разослать акцию всем пользователям; без текста — ход рассылок";
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        String text = context.arguments();
+        if (text.isEmpty()) {
+            context.reply(status(campaignService.findRecent()));
+            return;
+        }
+        Campaign campaign = broadcaster.start(context.chatId(), text);
+        context.reply("Рассылка #" + campaign.getId() + " запущена. Ход рассылки: /broadcast");
+    }
+
+    private static String status(List<Campaign> campaigns) {
+        if (campaigns.isEmpty()) {
+            return "Рассылок ещё не было. Чтобы запустить: /broadcast текст акции";
+        }
+        StringBuilder status = new StringBuilder("Последние рассылки:\n");
+        for (Campaign campaign : campaigns) {
+            status.append('#').append(campaign.getId())
+                    .append(campaign.getStatus() == CampaignStatus.RUNNING ? " идёт" : " завершена")
+                    .append(": доставлено ").append(campaign.getDelivered())
+                    .append(", заблокировали бота ").append(campaign.getBlocked())
+                    .append(", ошибок ").append(campaign.getFailed())
+                    .append('\n');
+        }
+        return status.toString();
+    }
+}
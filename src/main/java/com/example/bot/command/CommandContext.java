@@ -0,0 +1,190 @@
+package com.example.bot.command;
+
+import com.example.bot.MessagePriority;
+import com.example.bot.OutboundMessageQueue;
+import com.example.entity.UserProfile;
+import com.example.entity.UserState;
+import com.example.state.Conversation;
+import com.example.state.ConversationStateStore;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+/**
+ * Всё, что нужно обработчику команды для одного обновления: отправитель, его профиль и уровень доступа
+ * (загружаются один раз на обновление), текст команды и средства ответа.
+ * <p>
+ * Нажатие кнопки под сообщением бота тоже приходит как команда: текстом служат данные кнопки,
+ * а подтверждение нажатия отправляет {@link #answer(String)}.
+ */
+public final class CommandContext {
+
+    private final long chatId;
+    private final Message message;
+    private final String callbackQueryId;
+    private final Integer promptMessageId;
+    private final String text;
+    private final int argumentsStart;
+    private final UserProfile profile;
+    private final Role role;
+    private final OutboundMessageQueue outbound;
+    private final ConversationStateStore conversations;
+
+    /** Отвечено ли уже на нажатие кнопки: Telegram ждёт ровно один ответ. */
+    private boolean answered;
+
+    public CommandContext(Message message, String text, int argumentsStart, UserProfile profile,
+                          OutboundMessageQueue outbound, ConversationStateStore conversations) {
+        this(message.getChatId(), message, null, null, text, argumentsStart, profile, outbound, conversations);
+    }
+
+    private CommandContext(long chatId, Message message, String callbackQueryId, Integer promptMessageId, String text,
+                           int argumentsStart, UserProfile profile, OutboundMessageQueue outbound,
+                           ConversationStateStore conversations) {
+        this.chatId = chatId;
+        this.message = message;
+        this.callbackQueryId = callbackQueryId;
+        this.promptMessageId = promptMessageId;
+        this.text = text;
+        this.argumentsStart = argumentsStart;
+        this.profile = profile;
+        this.role = Role.of(profile);
+        this.outbound = outbound;
+        this.conversations = conversations;
+    }
+
+    /**
+     * Контекст нажатия кнопки под сообщением бота.
+     *
+     * @param query          нажатие; сообщение с кнопками должно быть известно
+     * @param argumentsStart позиция, с которой в данных кнопки начинаются аргументы
+     */
+    public static CommandContext ofCallback(CallbackQuery query, int argumentsStart, UserProfile profile,
+                                            OutboundMessageQueue outbound, ConversationStateStore conversations) {
+        String data = query.getData() == null ? "" : query.getData();
+        return new CommandContext(query.getMessage().getChatId(), null, query.getId(),
+                query.getMessage().getMessageId(), data, argumentsStart, profile, outbound, conversations);
+    }
+
+    public long chatId() {
+        return chatId;
+    }
+
+    /**
+     * Сообщение пользователя; null для нажатия кнопки.
+     */
+    public Message message() {
+        return message;
+    }
+
+    /**
+     * Пришло ли обновление нажатием кнопки.
+     */
+    public boolean isCallback() {
+        return callbackQueryId != null;
+    }
+
+    /**
+     * Текст сообщения (или подпись к файлу) целиком; для нажатия кнопки — её данные.
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Текст после команды без пробелов по краям; пустая строка, если аргументов нет.
+     */
+    public String arguments() {
+        return argumentsStart >= text.length() ? "" : text.substring(argumentsStart).trim();
+    }
+
+    /**
+     * Профиль отправителя.
+     *
+     * @throws IllegalArgumentException если отправитель не зарегистрирован
+     */
+    public UserProfile profile() {
+        if (profile == null) {
+            throw new IllegalArgumentException("Пользователь не найден.");
+        }
+        return profile;
+    }
+
+    public boolean isRegistered() {
+        return profile != null;
+    }
+
+    public Role role() {
+        return role;
+    }
+
+    /**
+     * Ключ операции для журнала баллов: повторно доставленное обновление не начислит баллы дважды.
+     * Ключ строится из чата и номера сообщения, а не из update_id: Telegram может начать нумерацию
+     * обновлений заново, а номера сообщений внутри чата не повторяются. Для кнопок ключ привязан
+     * к сообщению с кнопками: повторное нажатие на ту же подсказку — уже новое обновление,
+     * но операцию второй раз не выполнит.
+     */
+    public String operationKey() {
+        return isCallback()
+                ? "keyboard:" + chatId + ":" + promptMessageId
+                : "message:" + chatId + ":" + message.getMessageId();
+    }
+
+    public void reply(String text) {
+        send(chatId(), text, MessagePriority.REPLY);
+    }
+
+    /**
+     * Отвечает сообщением с кнопками под ним.
+     */
+    public void reply(String text, InlineKeyboardMarkup keyboard) {
+        SendMessage message = new SendMessage(Long.toString(chatId), text);
+        message.setReplyMarkup(keyboard);
+        outbound.send(chatId, message, MessagePriority.REPLY);
+    }
+
+    /**
+     * Короткий ответ отправителю: на нажатие кнопки — всплывающим уведомлением, на сообщение — обычным ответом.
+     */
+    public void answer(String text) {
+        // Второй ответ на то же нажатие Telegram не покажет, поэтому он уходит сообщением
+        if (!isCallback() || answered) {
+            reply(text);
+            return;
+        }
+        answered = true;
+        AnswerCallbackQuery answer = AnswerCallbackQuery.builder().callbackQueryId(callbackQueryId).text(text).build();
+        outbound.send(chatId, answer, MessagePriority.REPLY);
+    }
+
+    /**
+     * Подтверждает нажатие кнопки без текста, если обработчик на него ещё не ответил:
+     * иначе клиент Telegram показывает на кнопке индикатор загрузки.
+     */
+    public void completeCallback() {
+        if (isCallback() && !answered) {
+            answered = true;
+            outbound.send(chatId, new AnswerCallbackQuery(callbackQueryId), MessagePriority.REPLY);
+        }
+    }
+
+    public void send(long chatId, String text, MessagePriority priority) {
+        // Сообщение только ставится в очередь, отправка и повторы выполняются фоновыми потоками
+        outbound.send(chatId, text, priority);
+    }
+
+    public void startConversation(UserState state) {
+        conversations.put(chatId(), Conversation.of(state));
+    }
+
+    public void startConversation(UserState state, String data) {
+        conversations.put(chatId(), new Conversation(state, data));
+    }
+
+    public void endConversation() {
+        conversations.remove(chatId());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bot.command;
+
+import com.example.entity.UserState;
+import com.example.state.Conversation;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Обработчик команды бота. Реализации регистрируются как Spring-бины и подключаются {@link CommandRouter}
+ * автоматически; порядок в справке задаётся аннотацией {@code @Order}.
+ * <p>
+ * Права проверяет маршрутизатор до вызова обработчика по уровню из {@link #requiredRole()},
+ * поэтому сам обработчик проверок не делает. Если команда продолжается диалогом из нескольких шагов,
+ * обработчик перечисляет свои шаги в {@link #states()} и обрабатывает их в {@link #continueConversation}.
+ * Кнопки под сообщениями бота несут в данных имя команды ({@code addpoints:79991234567:5})
+ * и возвращаются в {@link #handleCallback}.
+ */
+public interface CommandHandler {
+
+    /**
+     * Каноническое имя команды: под ним пишутся метрики.
+     */
+    String name();
+
+    /**
+     * Варианты написания команды (регистр не важен), например {@code /balance} и {@code баланс}.
+     */
+    List<String> aliases();
+
+    /**
+     * Минимальный уровень доступа.
+     */
+    Role requiredRole();
+
+    /**
+     * Описание аргументов для справки, например {@code [телефон]}; пустая строка, если аргументов нет.
+     */
+    default String arguments() {
+        return "";
+    }
+
+    /**
+     * Описание команды для справки.
+     */
+    String description();
+
+    /**
+     * Строка справки перед описанием: варианты команды и её аргументы.
+     */
+    default String usage() {
+        String usage = String.join(" или ", aliases());
+        return arguments().isEmpty() ? usage : usage + " " + arguments();
+    }
+
+    /**
+     * Принимает ли команда файл: такие команды пишутся в подписи к документу.
+     */
+    default boolean acceptsDocument() {
+        return false;
+    }
+
+    /**
+     * Показывать ли команду в справке пользователю с данным уровнем доступа.
+     */
+    default boolean visibleTo(Role role) {
+        return role.includes(requiredRole());
+    }
+
+    /**
+     * Выполняет команду.
+     */
+    void handle(CommandContext context);
+
+    /**
+     * Шаги диалога, которые ведёт этот обработчик.
+     */
+    default Set<UserState> states() {
+        return Set.of();
+    }
+
+    /**
+     * Обрабатывает сообщение пользователя на шаге диалога.
+     *
+     * @param context      контекст обновления; весь текст сообщения — ответ пользователя
+     * @param conversation текущий шаг и собранные данные
+     */
+    default void continueConversation(CommandContext context, Conversation conversation) {
+        throw new IllegalStateException("Команда " + name() + " не ведёт диалог.");
+    }
+
+    /**
+     * Обрабатывает нажатие кнопки, которую отправил этот обработчик.
+     *
+     * @param context контекст нажатия; {@link CommandContext#arguments()} — данные кнопки после имени команды
+     */
+    default void handleCallback(CommandContext context) {
+        throw new IllegalStateException("Команда " + name() + " не отправляет кнопок.");
+    }
+}
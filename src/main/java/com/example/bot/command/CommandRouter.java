@@ -0,0 +1,176 @@
+package com.example.bot.command;
+
+import com.example.entity.UserState;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Находит обработчик по первому слову сообщения.
+ * Варианты команд всех обработчиков собираются при запуске в хэш-таблицу с открытой адресацией;
+ * поиск считает хэш слова без учёта регистра прямо по тексту сообщения, не разбивая его и не создавая строк.
+ */
+@Component
+public class CommandRouter {
+
+    /** Разделитель имени команды и аргументов в данных кнопки. */
+    public static final char CALLBACK_SEPARATOR = ':';
+
+    private final List<CommandHandler> handlers;
+    private final String[] keys;
+    private final CommandHandler[] values;
+    private final int mask;
+    private final Map<UserState, CommandHandler> stateHandlers = new EnumMap<>(UserState.class);
+    private final Map<String, CommandHandler> byName = new HashMap<>();
+
+    public CommandRouter(List<CommandHandler> handlers) {
+        this.handlers = Collections.unmodifiableList(new ArrayList<>(handlers));
+
+        int aliasCount = 0;
+        for (CommandHandler handler : handlers) {
+            aliasCount += handler.aliases().size();
+        }
+        // Заполнение не больше половины: цепочки проб остаются короткими
+        int capacity = Integer.highestOneBit(Math.max(4, aliasCount * 2 - 1)) << 1;
+        this.keys = new String[capacity];
+        this.values = new CommandHandler[capacity];
+        this.mask = capacity - 1;
+
+        for (CommandHandler handler : handlers) {
+            if (byName.put(handler.name(), handler) != null) {
+                throw new IllegalStateException("Имя команды " + handler.name() + " объявлено дважды.");
+            }
+            for (String alias : handler.aliases()) {
+                put(alias, handler);
+            }
+            for (UserState state : handler.states()) {
+                CommandHandler previous = stateHandlers.put(state, handler);
+                if (previous != null) {
+                    throw new IllegalStateException("Шаг диалога " + state + " объявлен в командах "
+                            + previous.name() + " и " + handler.name() + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает обработчик команды, с которой начинается текст.
+     *
+     * @param text текст сообщения
+     * @return обработчик или null, если команда неизвестна
+     */
+    public CommandHandler route(String text) {
+        int start = skipSpaces(text, 0);
+        int end = commandEnd(text, start);
+        int length = end - start;
+        if (length == 0) {
+            return null;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        for (int slot = spread(hash) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key.length() == length && key.regionMatches(true, 0, text, start, length)) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает позицию, с которой в тексте начинаются аргументы команды.
+     */
+    public int argumentsStart(String text) {
+        int end = skipToSpace(text, skipSpaces(text, 0));
+        return Math.min(text.length(), end + 1);
+    }
+
+    /**
+     * Возвращает обработчик, ведущий шаг диалога, или null.
+     */
+    public CommandHandler forState(UserState state) {
+        return stateHandlers.get(state);
+    }
+
+    /**
+     * Возвращает обработчик нажатия кнопки по имени команды в начале её данных ({@code имя:аргументы}), или null.
+     */
+    public CommandHandler forCallback(String data) {
+        int separator = data.indexOf(CALLBACK_SEPARATOR);
+        return separator < 0 ? null : byName.get(data.substring(0, separator));
+    }
+
+    /**
+     * Позиция, с которой в данных кнопки начинаются аргументы.
+     */
+    public int callbackArgumentsStart(String data) {
+        return data.indexOf(CALLBACK_SEPARATOR) + 1;
+    }
+
+    /**
+     * Все обработчики в порядке {@code @Order}.
+     */
+    public List<CommandHandler> handlers() {
+        return handlers;
+    }
+
+    private void put(String alias, CommandHandler handler) {
+        String key = alias.toLowerCase();
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                throw new IllegalStateException("Команда " + alias + " объявлена в обработчиках "
+                        + values[slot].name() + " и " + handler.name() + ".");
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = handler;
+    }
+
+    /**
+     * Конец слова команды. В группах Telegram добавляет к команде имя бота ({@code /help@my_bot}), оно отбрасывается.
+     */
+    private static int commandEnd(String text, int start) {
+        int end = skipToSpace(text, start);
+        if (start < end && text.charAt(start) == '/') {
+            for (int i = start + 1; i < end; i++) {
+                if (text.charAt(i) == '@') {
+                    return i;
+                }
+            }
+        }
+        return end;
+    }
+
+    private static int skipSpaces(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipToSpace(String text, int from) {
+        int i = from;
+        while (i < text.length() && !Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
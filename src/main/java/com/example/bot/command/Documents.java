@@ -0,0 +1,45 @@
+package com.example.bot.command;
+
+import com.example.bot.TelegramSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Отправка файлов командами выгрузки и загрузки.
+ */
+final class Documents {
+    private static final Logger logger = LoggerFactory.getLogger(Documents.class);
+
+    private Documents() {
+    }
+
+    /**
+     * Отправляет файл сразу, минуя очередь исходящих сообщений: очередь принимает только методы без вложений.
+     * Файлы отправляются только администраторам и редко, поэтому общий лимит Telegram от этого не страдает.
+     */
+    static void send(TelegramSender sender, long chatId, Path file, String fileName, String caption)
+            throws TelegramApiException {
+        sender.execute(SendDocument.builder()
+                .chatId(String.valueOf(chatId))
+                .document(new InputFile(file.toFile(), fileName))
+                .caption(caption)
+                .build());
+    }
+
+    static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            logger.warn("Не удалось удалить временный файл {}", file);
+        }
+    }
+}
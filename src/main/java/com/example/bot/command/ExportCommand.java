@@ -0,0 +1,66 @@
+package com.example.bot.command;
+
+import com.example.bot.TelegramSender;
+import com.example.service.CustomerTransferService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@Component
+@Order(90)
+public class ExportCommand implements CommandHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ExportCommand.class);
+
+    private final CustomerTransferService customerTransfer;
+    private final TelegramSender sender;
+
+    public ExportCommand(CustomerTransferService customerTransfer, TelegramSender sender) {
+        this.customerTransfer = customerTransfer;
+        this.sender = sender;
+    }
+
+    @Override
+    public String name() {
+        return "export";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/export", "экспорт");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.ADMIN;
+    }
+
+    @Override
+    public String description() {
+        return "выгрузить клиентов в CSV";
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        Path export = null;
+        try {
+            export = Files.createTempFile("customers-", ".csv");
+            long rows;
+            try (BufferedWriter out = Files.newBufferedWriter(export, StandardCharsets.UTF_8)) {
+                rows = customerTransfer.exportCustomers(out);
+            }
+            Documents.send(sender, context.chatId(), export, "customers.csv", "Клиентов: " + rows);
+        } catch (Exception e) {
+            logger.error("Ошибка выгрузки клиентов", e);
+            context.reply("Ошибка выгрузки: " + e.getMessage());
+        } finally {
+            Documents.deleteQuietly(export);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bot.command;
+
+import com.example.rules.LoyaltyRules;
+import com.example.service.CampaignService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Справка по командам, доступным отправителю. Список строится по зарегистрированным обработчикам,
+ * поэтому новая команда появляется в справке без правок этого класса.
+ */
+@Component
+@Order(20)
+public class HelpCommand implements CommandHandler {
+
+    // Обработчики берутся лениво: справка сама входит в их список
+    private final ObjectProvider<CommandHandler> handlers;
+    private final CampaignService campaignService;
+    private final LoyaltyRules rules;
+
+    public HelpCommand(ObjectProvider<CommandHandler> handlers, CampaignService campaignService, LoyaltyRules rules) {
+        this.handlers = handlers;
+        this.campaignService = campaignService;
+        this.rules = rules;
+    }
+
+    @Override
+    public String name() {
+        return "help";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/help", "помощь");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.GUEST;
+    }
+
+    @Override
+    public String description() {
+        return "список доступных команд";
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        StringBuilder helpMessage = new StringBuilder("Доступные команды:\n");
+        Role role = context.role();
+        handlers.orderedStream()
+                .filter(handler -> handler.visibleTo(role))
+                .forEach(handler -> helpMessage.append(handler.usage())
+                        .append(" - ")
+                        .append(handler.description())
+                        .append('\n'));
+
+        // Зарегистрированным пользователям напоминаем о текущей акции: последняя рассылка, иначе награды из правил
+        if (context.isRegistered()) {
+            helpMessage.append(campaignService.currentPromotion()
+                    .or(() -> rules.current().promotion())
+                    .orElse(Replies.PROMOTION));
+        }
+        context.reply(helpMessage.toString());
+    }
+}
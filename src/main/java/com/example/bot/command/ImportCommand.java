@@ -0,0 +1,98 @@
+package com.example.bot.command;
+
+import com.example.bot.TelegramSender;
+import com.example.service.CustomerImportReport;
+import com.example.service.CustomerTransferService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.GetFile;
+import org.telegram.telegrambots.meta.api.objects.Document;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Загрузка клиентов из CSV-файла, отправленного с подписью {@code /import}.
+ */
+@Component
+@Order(100)
+public class ImportCommand implements CommandHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ImportCommand.class);
+
+    private final CustomerTransferService customerTransfer;
+    private final TelegramSender sender;
+
+    public ImportCommand(CustomerTransferService customerTransfer, TelegramSender sender) {
+        this.customerTransfer = customerTransfer;
+        this.sender = sender;
+    }
+
+    @Override
+    public String name() {
+        return "import";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/import", "импорт");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.ADMIN;
+    }
+
+    @Override
+    public String description() {
+        return "загрузить клиентов (телефон,chatId,баллы)";
+    }
+
+    @Override
+    public String usage() {
+        return "CSV-файл с подписью /import";
+    }
+
+    @Override
+    public boolean acceptsDocument() {
+        return true;
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        if (!context.message().hasDocument()) {
+            context.reply(Replies.IMPORT_HINT);
+            return;
+        }
+
+        Document document = context.message().getDocument();
+        Path report = null;
+        try {
+            report = Files.createTempFile("import-report-", ".csv");
+            CustomerImportReport result;
+            // Файл из Telegram сразу передаётся в COPY, отчёт пишется во временный файл, а не в память
+            try (InputStream in = sender.downloadFileAsStream(sender.execute(new GetFile(document.getFileId())));
+                 BufferedReader csv = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                 Writer reportWriter = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+                result = customerTransfer.importCustomers(csv, reportWriter);
+            }
+            context.reply("Загрузка завершена. Строк: " + result.total() + ", добавлено: " + result.imported()
+                    + ", отклонено: " + result.rejected() + ".");
+            if (result.rejected() > 0) {
+                Documents.send(sender, context.chatId(), report, "rejected.csv", "Отклонённые строки и причины");
+            }
+        } catch (Exception e) {
+            logger.error("Ошибка загрузки клиентов", e);
+            context.reply("Ошибка загрузки: " + e.getMessage());
+        } finally {
+            Documents.deleteQuietly(report);
+        }
+    }
+}
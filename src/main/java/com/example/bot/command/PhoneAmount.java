@@ -0,0 +1,68 @@
+package com.example.bot.command;
+
+import com.example.phone.PhoneNumbers;
+
+/**
+ * Номер клиента и баллы из однострочной команды ({@code /addpoints +79991234567 5}) или из данных кнопки.
+ *
+ * @param phoneKey канонический ключ номера или {@link PhoneNumbers#INVALID}
+ * @param amount   баллы; null, если их не указали
+ */
+record PhoneAmount(long phoneKey, Integer amount) {
+
+    /**
+     * Разбирает аргументы команды: «телефон баллы» или только «телефон».
+     * Вместе с баллами номер пишется слитно, иначе последняя группа цифр номера с пробелами
+     * читалась бы как баллы; номер без баллов можно писать как угодно.
+     */
+    static PhoneAmount parse(String arguments) {
+        String[] parts = arguments.split("\\s+");
+        if (parts.length == 2) {
+            long phoneKey = PhoneNumbers.parse(parts[0]);
+            Integer amount = parseAmount(parts[1]);
+            if (phoneKey != PhoneNumbers.INVALID && amount != null) {
+                return new PhoneAmount(phoneKey, amount);
+            }
+        }
+        return new PhoneAmount(PhoneNumbers.parse(arguments), null);
+    }
+
+    /**
+     * Разбирает данные кнопки {@link QuickAmounts}: «ключ_номера:баллы».
+     * Ключ в кнопке уже канонический, поэтому читается как число: правила разбора ввода
+     * (8 → 7 для 11 цифр, добавление 7 к 10 цифрам) исказили бы иностранные номера.
+     */
+    static PhoneAmount ofCallback(String arguments) {
+        int separator = arguments.indexOf(CommandRouter.CALLBACK_SEPARATOR);
+        if (separator < 0) {
+            return new PhoneAmount(PhoneNumbers.INVALID, null);
+        }
+        return new PhoneAmount(parseKey(arguments.substring(0, separator)),
+                parseAmount(arguments.substring(separator + 1)));
+    }
+
+    boolean hasPhone() {
+        return phoneKey != PhoneNumbers.INVALID;
+    }
+
+    String phoneNumber() {
+        return PhoneNumbers.format(phoneKey);
+    }
+
+    private static long parseKey(String text) {
+        try {
+            long phoneKey = Long.parseLong(text);
+            return phoneKey > 0 ? phoneKey : PhoneNumbers.INVALID;
+        } catch (NumberFormatException e) {
+            return PhoneNumbers.INVALID;
+        }
+    }
+
+    private static Integer parseAmount(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.bot.command;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Кнопки с частыми количествами баллов под вопросом «сколько баллов»: нажатие заменяет сообщение с числом.
+ * В данных кнопки — команда, номер клиента и баллы ({@code addpoints:79991234567:5}), поэтому нажатие
+ * выполняет операцию само по себе, даже если диалог уже закончился или забыт после перезапуска.
+ */
+@Component
+public class QuickAmounts {
+
+    private final int[] amounts;
+
+    public QuickAmounts(@Value("${bot.keyboard.quick-amounts:1,2,3,5,10}") int[] amounts) {
+        this.amounts = amounts.clone();
+    }
+
+    /**
+     * Строка кнопок для операции с клиентом.
+     *
+     * @param command  имя команды, которая обработает нажатие
+     * @param phoneKey канонический ключ номера клиента
+     * @param min      наименьшее допустимое количество
+     * @param max      наибольшее допустимое количество
+     * @return кнопки или null, если ни одно количество не укладывается в пределы
+     */
+    public InlineKeyboardMarkup keyboard(String command, long phoneKey, int min, int max) {
+        List<InlineKeyboardButton> row = new ArrayList<>(amounts.length);
+        for (int amount : amounts) {
+            if (amount >= min && amount <= max) {
+                row.add(InlineKeyboardButton.builder()
+                        .text(Integer.toString(amount))
+                        .callbackData(command + CommandRouter.CALLBACK_SEPARATOR + phoneKey
+                                + CommandRouter.CALLBACK_SEPARATOR + amount)
+                        .build());
+            }
+        }
+        return row.isEmpty() ? null : InlineKeyboardMarkup.builder().keyboardRow(row).build();
+    }
+}
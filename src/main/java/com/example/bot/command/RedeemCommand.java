@@ -0,0 +1,162 @@
+package com.example.bot.command;
+
+import com.example.bot.AdminNotifier;
+import com.example.bot.MessagePriority;
+import com.example.entity.BalanceChange;
+import com.example.entity.UserState;
+import com.example.phone.PhoneNumbers;
+import com.example.rules.CompiledRules;
+import com.example.rules.LoyaltyRules;
+import com.example.service.LoyaltyService;
+import com.example.state.Conversation;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+@Component
+@Order(60)
+public class RedeemCommand implements CommandHandler {
+
+    private final LoyaltyService loyaltyService;
+    private final LoyaltyRules rules;
+    private final AdminNotifier adminNotifier;
+    private final QuickAmounts quickAmounts;
+
+    public RedeemCommand(LoyaltyService loyaltyService, LoyaltyRules rules, AdminNotifier adminNotifier,
+                         QuickAmounts quickAmounts) {
+        this.loyaltyService = loyaltyService;
+        this.rules = rules;
+        this.adminNotifier = adminNotifier;
+        this.quickAmounts = quickAmounts;
+    }
+
+    @Override
+    public String name() {
+        return "redeem";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/redeem", "списать");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.STAFF;
+    }
+
+    @Override
+    public String arguments() {
+        return "[телефон [баллы]]";
+    }
+
+    @Override
+    public String description() {
+        return "списать баллы";
+    }
+
+    @Override
+    public Set<UserState> states() {
+        return Set.of(UserState.REDEEM_AWAITING_PHONE, UserState.REDEEM_AWAITING_AMOUNT);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        String arguments = context.arguments();
+        if (arguments.isEmpty()) {
+            // Запрашиваем номер телефона у клиента
+            context.reply("Введите номер телефона клиента для списания баллов:");
+            context.startConversation(UserState.REDEEM_AWAITING_PHONE);
+            return;
+        }
+        // «/redeem телефон баллы» списывает сразу, «/redeem телефон» сразу спрашивает количество
+        PhoneAmount request = PhoneAmount.parse(arguments);
+        if (!request.hasPhone()) {
+            context.reply(Replies.INVALID_PHONE);
+            context.startConversation(UserState.REDEEM_AWAITING_PHONE);
+        } else if (request.amount() == null) {
+            askAmount(context, request.phoneKey());
+        } else {
+            redeem(context, request.phoneNumber(), request.amount());
+        }
+    }
+
+    @Override
+    public void continueConversation(CommandContext context, Conversation conversation) {
+        if (conversation.state() == UserState.REDEEM_AWAITING_PHONE) {
+            awaitingPhone(context);
+        } else {
+            awaitingAmount(context, conversation.data());
+        }
+    }
+
+    @Override
+    public void handleCallback(CommandContext context) {
+        PhoneAmount pressed = PhoneAmount.ofCallback(context.arguments());
+        if (!pressed.hasPhone() || pressed.amount() == null) {
+            context.answer("Кнопка устарела, начните заново: /redeem");
+            return;
+        }
+        // Кнопка отвечает на вопрос о количестве баллов, ждать его сообщением больше не нужно
+        context.endConversation();
+        redeem(context, pressed.phoneNumber(), pressed.amount());
+    }
+
+    private void awaitingPhone(CommandContext context) {
+        long phoneKey = PhoneNumbers.parse(context.text());
+        if (phoneKey == PhoneNumbers.INVALID) {
+            context.reply(Replies.INVALID_PHONE);
+            return;
+        }
+        askAmount(context, phoneKey);
+    }
+
+    private void askAmount(CommandContext context, long phoneKey) {
+        // Сохраняем номер телефона клиента в каноническом виде
+        context.startConversation(UserState.REDEEM_AWAITING_AMOUNT, PhoneNumbers.format(phoneKey));
+        CompiledRules limits = rules.current();
+        context.reply("Введите количество баллов для списания (максимум " + limits.redeemMax() + "):",
+                quickAmounts.keyboard(name(), phoneKey, limits.redeemMin(), limits.redeemMax()));
+    }
+
+    private void awaitingAmount(CommandContext context, String userPhoneNumber) {
+        try {
+            redeem(context, userPhoneNumber, Integer.parseInt(context.text()));
+        } catch (NumberFormatException e) {
+            context.reply("Количество баллов должно быть числом.");
+        } finally {
+            context.endConversation();
+        }
+    }
+
+    private void redeem(CommandContext context, String userPhoneNumber, int points) {
+        try {
+            // Пределы проверяются и для кнопок: правила могли измениться после того, как их отправили
+            CompiledRules limits = rules.current();
+            if (!limits.allowsRedemption(points)) {
+                context.answer(limits.redemptionLimits());
+                return;
+            }
+
+            // Списываем баллы: в ответ сразу приходят chatId клиента и его новый баланс
+            String employeePhoneNumber = context.profile().phoneNumber(); // Номер телефона сотрудника
+            BalanceChange change = loyaltyService.redeemPoints(employeePhoneNumber, userPhoneNumber, points,
+                    context.operationKey());
+
+            // Уведомляем клиента о списании баллов
+            context.send(change.getChatId(), points + " баллов были списаны с вашего счета. Ваш текущий баланс: "
+                    + change.getPoints() + " баллов. Спасибо за использование наших услуг!", MessagePriority.TRANSACTION);
+            if (context.isCallback()) {
+                context.answer("Списано " + points + " баллов у клиента " + userPhoneNumber + ".");
+            }
+
+            // Уведомляем администраторов о списании баллов
+            adminNotifier.pointsRedeemed(employeePhoneNumber, userPhoneNumber, points);
+
+        } catch (Exception e) {
+            context.answer("Ошибка: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bot.command;
+
+import com.example.entity.UserState;
+import com.example.phone.PhoneNumbers;
+import com.example.rules.LoyaltyRules;
+import com.example.service.CampaignService;
+import com.example.service.UserService;
+import com.example.state.Conversation;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+@Component
+@Order(30)
+public class RegisterCommand implements CommandHandler {
+
+    private final UserService userService;
+    private final CampaignService campaignService;
+    private final LoyaltyRules rules;
+
+    public RegisterCommand(UserService userService, CampaignService campaignService, LoyaltyRules rules) {
+        this.userService = userService;
+        this.campaignService = campaignService;
+        this.rules = rules;
+    }
+
+    @Override
+    public String name() {
+        return "register";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/register", "регистрация");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.GUEST;
+    }
+
+    @Override
+    public String description() {
+        return "регистрация пользователя";
+    }
+
+    @Override
+    public boolean visibleTo(Role role) {
+        // Зарегистрированным пользователям команда не нужна
+        return role == Role.GUEST;
+    }
+
+    @Override
+    public Set<UserState> states() {
+        return Set.of(UserState.AWAITING_PHONE);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        context.reply("Введите номер телефона для регистрации:");
+        context.startConversation(UserState.AWAITING_PHONE);
+    }
+
+    @Override
+    public void continueConversation(CommandContext context, Conversation conversation) {
+        String messageText = context.text();
+        if (PhoneNumbers.parse(messageText) == PhoneNumbers.INVALID) {
+            context.reply(Replies.INVALID_PHONE);
+            return;
+        }
+        try {
+            userService.registerUser(context.chatId(), messageText);
+            context.reply("Вы успешно зарегистрированы!");
+            // Новому клиенту показываем последнюю рассылку, без рассылок — награды из правил, без них — акцию по умолчанию
+            String promotionMessage = campaignService.currentPromotion()
+                    .or(() -> rules.current().promotion())
+                    .map(promotion -> promotion + "\n\nНажми /help для просмотра доступных команд")
+                    .orElse("🎉 Акция! 🎉\n" +
+                            "Купите 10 кружек кофе и получите одну кружку в подарок! " +
+                            "Не упустите возможность насладиться своим любимым напитком!" +
+                            "Нажми /help для просмотра доступных команд");
+            context.reply(promotionMessage);
+        } catch (Exception e) {
+            context.reply("Ошибка регистрации: " + e.getMessage());
+        } finally {
+            context.endConversation();
+        }
+    }
+}
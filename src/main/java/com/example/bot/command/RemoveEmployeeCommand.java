@@ -0,0 +1,83 @@
+package com.example.bot.command;
+
+import com.example.entity.UserState;
+import com.example.service.LoyaltyService;
+import com.example.state.Conversation;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+@Component
+@Order(80)
+public class RemoveEmployeeCommand implements CommandHandler {
+
+    private final LoyaltyService loyaltyService;
+
+    public RemoveEmployeeCommand(LoyaltyService loyaltyService) {
+        this.loyaltyService = loyaltyService;
+    }
+
+    @Override
+    public String name() {
+        return "removeemployee";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/removeemployee", "удалитьсотрудника");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.ADMIN;
+    }
+
+    @Override
+    public String arguments() {
+        return "[телефон]";
+    }
+
+    @Override
+    public String description() {
+        return "удалить сотрудника";
+    }
+
+    @Override
+    public Set<UserState> states() {
+        return Set.of(UserState.REMOVE_EMPLOYEE_AWAITING_PHONE);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        String employeePhoneNumber = context.arguments();
+        if (employeePhoneNumber.isEmpty()) {
+            context.reply("Введите номер телефона сотрудника для удаления:");
+            context.startConversation(UserState.REMOVE_EMPLOYEE_AWAITING_PHONE);
+            return;
+        }
+
+        // Если номер телефона уже был передан, удаляем сотрудника
+        removeEmployee(context, employeePhoneNumber);
+    }
+
+    @Override
+    public void continueConversation(CommandContext context, Conversation conversation) {
+        removeEmployee(context, context.text());
+    }
+
+    private void removeEmployee(CommandContext context, String employeePhoneNumber) {
+        String adminPhoneNumber = context.profile().phoneNumber();
+
+        try {
+            // Удаляем сотрудника
+            loyaltyService.removeEmployee(adminPhoneNumber, employeePhoneNumber);
+            context.reply("Сотрудник успешно удален: " + employeePhoneNumber);
+        } catch (Exception e) {
+            context.reply("Ошибка: " + e.getMessage());
+        } finally {
+            context.endConversation(); // Убираем состояние, чтобы не ожидать ввод дальше
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bot.command;
+
+import com.example.rules.CompiledRules;
+
+/**
+ * Ответы, общие для нескольких команд.
+ */
+final class Replies {
+
+    static final String INVALID_PHONE =
+            "Не удалось распознать номер телефона. Введите номер ещё раз, например +79991234567:";
+
+    static final String IMPORT_HINT = "Чтобы загрузить клиентов, отправьте CSV-файл с подписью /import.";
+
+    static final String PROMOTION = "🎉 Акция! 🎉\n"
+            + "Купите 10 кружек кофе и получите одну кружку в подарок!\n";
+
+    private Replies() {
+    }
+
+    /**
+     * Уведомление клиента о начислении, с наградой, если баланс до неё дорос.
+     */
+    static String pointsCredited(CompiledRules rules, int credited, int balance) {
+        String reward = rules.rewardReached(balance - credited, balance)
+                .map(title -> "\nВам доступна награда: " + title + "!")
+                .orElse("");
+        return "Вам начислено " + credited + " баллов. Ваш текущий баланс: " + balance
+                + " баллов. Спасибо за использование наших услуг!" + reward;
+    }
+}
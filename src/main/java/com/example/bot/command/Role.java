@@ -0,0 +1,48 @@
+package com.example.bot.command;
+
+import com.example.entity.UserProfile;
+
+/**
+ * Уровень доступа пользователя. Уровни упорядочены: каждый следующий включает права предыдущих.
+ */
+public enum Role {
+    GUEST(""),
+    CUSTOMER("Эта команда доступна только зарегистрированным пользователям. Используйте /register для регистрации."),
+    STAFF("Эта команда доступна только для администраторов и сотрудников."),
+    ADMIN("Эта команда доступна только для администраторов.");
+
+    private final String denial;
+
+    Role(String denial) {
+        this.denial = denial;
+    }
+
+    /**
+     * Определяет уровень доступа по профилю пользователя.
+     *
+     * @param profile профиль или null для незарегистрированного пользователя
+     */
+    public static Role of(UserProfile profile) {
+        if (profile == null) {
+            return GUEST;
+        }
+        if (profile.admin()) {
+            return ADMIN;
+        }
+        return profile.employee() ? STAFF : CUSTOMER;
+    }
+
+    /**
+     * Проверяет, достаточно ли этого уровня для команды, требующей {@code required}.
+     */
+    public boolean includes(Role required) {
+        return ordinal() >= required.ordinal();
+    }
+
+    /**
+     * Ответ пользователю, которому не хватает этого уровня доступа.
+     */
+    public String denial() {
+        return denial;
+    }
+}
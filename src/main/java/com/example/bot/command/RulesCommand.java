@@ -0,0 +1,61 @@
+package com.example.bot.command;
+
+import com.example.rules.CompiledRules;
+import com.example.rules.LoyaltyRules;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Действующие правила программы лояльности. Правила редактируются в таблице loyalty_rules;
+ * с аргументом «обновить» они сразу перечитываются на всех экземплярах, иначе — в течение bot.rules.reload-interval.
+ */
+@Component
+@Order(130)
+public class RulesCommand implements CommandHandler {
+
+    private final LoyaltyRules rules;
+
+    public RulesCommand(LoyaltyRules rules) {
+        this.rules = rules;
+    }
+
+    @Override
+    public String name() {
+        return "rules";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/rules", "правила");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.ADMIN;
+    }
+
+    @Override
+    public String arguments() {
+        return "[обновить]";
+    }
+
+    @Override
+    public String description() {
+        return "правила начисления и списания баллов; «обновить» — перечитать из базы";
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        String argument = context.arguments();
+        if (argument.isEmpty()) {
+            context.reply("Действующие правила:\n" + rules.current().describe());
+        } else if (argument.equalsIgnoreCase("обновить") || argument.equalsIgnoreCase("reload")) {
+            CompiledRules reloaded = rules.reloadEverywhere();
+            context.reply("Правила обновлены:\n" + reloaded.describe());
+        } else {
+            context.reply("Используйте /rules или /rules обновить.");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.bot.command;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Order(10)
+public class StartCommand implements CommandHandler {
+
+    @Override
+    public String name() {
+        return "start";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/start", "старт");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.GUEST;
+    }
+
+    @Override
+    public String description() {
+        return "начать использование бота";
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        context.reply("Добро пожаловать в Coffee Loyalty! Используйте /help для списка доступных команд.");
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bot.command;
+
+import com.example.entity.CustomerTotal;
+import com.example.entity.EmployeeTotal;
+import com.example.service.LoyaltyStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Итоги по баллам: по сотрудникам за день и лучшие клиенты месяца.
+ */
+@Component
+@Order(120)
+public class StatsCommand implements CommandHandler {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("LLLL yyyy");
+
+    private final LoyaltyStats stats;
+    private final int topSize;
+
+    public StatsCommand(LoyaltyStats stats, @Value("${bot.stats.top-size:10}") int topSize) {
+        this.stats = stats;
+        this.topSize = topSize;
+    }
+
+    @Override
+    public String name() {
+        return "stats";
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of("/stats", "статистика");
+    }
+
+    @Override
+    public Role requiredRole() {
+        return Role.ADMIN;
+    }
+
+    @Override
+    public String arguments() {
+        return "[дд.мм.гггг]";
+    }
+
+    @Override
+    public String description() {
+        return "итоги сотрудников за день и лучшие клиенты месяца";
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        LocalDate day;
+        try {
+            day = context.arguments().isEmpty() ? stats.today() : LocalDate.parse(context.arguments(), DAY);
+        } catch (DateTimeParseException e) {
+            context.reply("Укажите дату в формате дд.мм.гггг, например /stats " + stats.today().format(DAY));
+            return;
+        }
+        context.reply(report(day, stats.employeeTotals(day), stats.topCustomers(day, topSize)));
+    }
+
+    private static String report(LocalDate day, List<EmployeeTotal> employees, List<CustomerTotal> customers) {
+        StringBuilder report = new StringBuilder("Итоги за ").append(day.format(DAY)).append(":\n");
+        if (employees.isEmpty()) {
+            report.append("операций не было\n");
+        } else {
+            long earned = 0;
+            long redeemed = 0;
+            long operations = 0;
+            for (EmployeeTotal employee : employees) {
+                earned += employee.getEarned();
+                redeemed += employee.getRedeemed();
+                operations += employee.getOperations();
+            }
+            report.append("начислено ").append(earned).append(", списано ").append(redeemed)
+                    .append(", операций ").append(operations).append('\n');
+            for (EmployeeTotal employee : employees) {
+                report.append(employee.getPhoneNumber() == null ? "сами клиенты" : employee.getPhoneNumber())
+                        .append(": начислено ").append(employee.getEarned())
+                        .append(", списано ").append(employee.getRedeemed())
+                        .append(" (").append(employee.getOperations()).append(")\n");
+            }
+        }
+
+        report.append("\nЛучшие клиенты, ").append(day.format(MONTH)).append(":\n");
+        if (customers.isEmpty()) {
+            report.append("начислений не было\n");
+        }
+        int place = 1;
+        for (CustomerTotal customer : customers) {
+            report.append(place++).append(". ").append(customer.getPhoneNumber())
+                    .append(" — ").append(customer.getEarned()).append(" баллов\n");
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cluster;
+
+import com.example.rules.LoyaltyRulesChangedEvent;
+import com.example.service.CampaignCreatedEvent;
+import com.example.service.UserCachesResetEvent;
+import com.example.service.UserChangedEvent;
+import com.example.service.UsersImportedEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Согласует кэши экземпляров кластера через LISTEN/NOTIFY PostgreSQL.
+ * <p>
+ * События об изменении пользователей, загрузке клиентов, запуске рассылки и изменении правил программы лояльности
+ * отправляются в канал {@code loyalty_cache} внутри той же транзакции, что и изменение: PostgreSQL доставит уведомление только после фиксации,
+ * а при откате не доставит вовсе. Получив уведомление другого экземпляра, поток слушателя публикует то же событие
+ * у себя, и локальные кэши сбрасываются теми же подписчиками, что и при изменении на этом экземпляре.
+ * Если соединение слушателя прервалось, уведомления за это время потеряны, поэтому после переподключения
+ * кэши сбрасываются целиком.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.cluster.enabled", havingValue = "true")
+public class ClusterCacheNotifier implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCacheNotifier.class);
+
+    private static final String CHANNEL = "loyalty_cache";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+    private final long reconnectDelayMillis;
+    private final Thread listener;
+    private volatile boolean running = true;
+
+    public ClusterCacheNotifier(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                                ApplicationEventPublisher eventPublisher, ClusterMembership membership,
+                                @Value("${bot.cluster.reconnect-delay:PT1S}") Duration reconnectDelay) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = membership.self().id();
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+        this.listener = new Thread(this::listen, "cluster-listener");
+        this.listener.setDaemon(true);
+        this.listener.start();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        notifyOthers("user|" + event.userId() + "|" + event.chatId() + "|" + event.rolesChanged());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUsersImported(UsersImportedEvent event) {
+        notifyOthers("import|" + event.imported());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCampaignCreated(CampaignCreatedEvent event) {
+        notifyOthers("campaign|" + event.campaignId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onRulesChanged(LoyaltyRulesChangedEvent event) {
+        notifyOthers("rules");
+    }
+
+    private void notifyOthers(String message) {
+        // События, полученные от других экземпляров, обратно не рассылаются
+        if (Thread.currentThread() == listener) {
+            return;
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> null, CHANNEL, nodeId + "|" + message);
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnect) {
+                    logger.info("Слушатель уведомлений кластера переподключён, кэши сброшены");
+                    eventPublisher.publishEvent(new UserCachesResetEvent());
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Соединение слушателя уведомлений кластера прервано: {}", e.getMessage());
+                reconnect = true;
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            switch (parts[1]) {
+                case "user" -> eventPublisher.publishEvent(new UserChangedEvent(
+                        Long.parseLong(parts[2]), Long.parseLong(parts[3]), Boolean.parseBoolean(parts[4])));
+                case "import" -> eventPublisher.publishEvent(new UsersImportedEvent(Long.parseLong(parts[2])));
+                case "campaign" -> eventPublisher.publishEvent(new CampaignCreatedEvent(Long.parseLong(parts[2])));
+                case "rules" -> eventPublisher.publishEvent(new LoyaltyRulesChangedEvent());
+                default -> logger.warn("Неизвестное уведомление кластера: {}", payload);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Ошибка обработки уведомления кластера {}", payload, e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join(2000);
+    }
+}
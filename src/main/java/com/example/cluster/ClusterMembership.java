@@ -0,0 +1,22 @@
+package com.example.cluster;
+
+/**
+ * Состав кластера экземпляров бота: какой экземпляр обслуживает чат и какой выполняет фоновые задачи в одном экземпляре.
+ */
+public interface ClusterMembership {
+
+    /**
+     * Этот экземпляр.
+     */
+    ClusterNode self();
+
+    /**
+     * Экземпляр, который обрабатывает обновления чата. Пока состав кластера не меняется, ответ для чата один и тот же.
+     */
+    ClusterNode ownerOf(long chatId);
+
+    /**
+     * Выполняет ли этот экземпляр задачи, которые должны идти в одном экземпляре (рассылки, сверка журнала).
+     */
+    boolean isLeader();
+}
@@ -0,0 +1,10 @@
+package com.example.cluster;
+
+/**
+ * Экземпляр бота в кластере.
+ *
+ * @param id  уникальное имя экземпляра
+ * @param url базовый адрес HTTP-сервера экземпляра
+ */
+public record ClusterNode(String id, String url) {
+}
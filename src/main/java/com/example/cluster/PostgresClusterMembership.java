@@ -0,0 +1,219 @@
+package com.example.cluster;
+
+import com.example.entity.BotNode;
+import com.example.repository.BotNodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Состав кластера по таблице bot_nodes: каждый экземпляр периодически отмечается в ней,
+ * живыми считаются отметившиеся за последние {@code bot.cluster.node-timeout}.
+ * <p>
+ * Чат закрепляется за экземпляром рендеву-хэшированием: для каждого живого экземпляра считается оценка от пары
+ * (экземпляр, чат), чат достаётся экземпляру с наибольшей оценкой. Когда экземпляр пропадает, к другим переходят
+ * только его чаты, остальные остаются на месте.
+ * <p>
+ * Ведущий определяется не по составу, а рекомендательной блокировкой PostgreSQL на отдельном соединении:
+ * её держит не больше одного экземпляра, и она освобождается, как только рвётся соединение владельца.
+ * Проверка {@link #isLeader()} у ведущего обращается к соединению, поэтому экземпляр, потерявший его,
+ * узнаёт об этом до следующей страницы рассылки, а не через интервал отметки.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.cluster.enabled", havingValue = "true")
+public class PostgresClusterMembership implements ClusterMembership, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(PostgresClusterMembership.class);
+
+    /** Ключ рекомендательной блокировки ведущего. */
+    private static final long LEADER_LOCK = 0x6C6F79616C7479L;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final BotNodeRepository nodeRepository;
+    private final DataSource dataSource;
+    private final ClusterNode self;
+    private final double timeoutSeconds;
+    private volatile Member[] members;
+    /** Соединение, на котором держится блокировка ведущего; доступ под this. */
+    private Connection leaderConnection;
+    private boolean leader;
+
+    public PostgresClusterMembership(BotNodeRepository nodeRepository, DataSource dataSource,
+                                     @Value("${bot.cluster.node-id}") String nodeId,
+                                     @Value("${bot.cluster.url}") String url,
+                                     @Value("${bot.cluster.node-timeout:PT15S}") Duration nodeTimeout,
+                                     @Value("${bot.state.store:memory}") String stateStore) {
+        this.nodeRepository = nodeRepository;
+        this.dataSource = dataSource;
+        this.self = new ClusterNode(nodeId, url);
+        this.timeoutSeconds = nodeTimeout.toMillis() / 1000d;
+        this.members = new Member[]{new Member(self)};
+        if (!"jpa".equals(stateStore)) {
+            logger.warn("Кластер запущен с bot.state.store={}: диалоги не переживут переход чата на другой экземпляр",
+                    stateStore);
+        }
+        heartbeat();
+    }
+
+    @Override
+    public ClusterNode self() {
+        return self;
+    }
+
+    @Override
+    public ClusterNode ownerOf(long chatId) {
+        Member[] snapshot = members;
+        Member owner = snapshot[0];
+        long best = owner.score(chatId);
+        for (int i = 1; i < snapshot.length; i++) {
+            long score = snapshot[i].score(chatId);
+            if (score > best) {
+                best = score;
+                owner = snapshot[i];
+            }
+        }
+        return owner.node;
+    }
+
+    @Override
+    public synchronized boolean isLeader() {
+        if (leader && !connectionAlive()) {
+            // Соединение потеряно вместе с блокировкой: её уже может держать другой экземпляр
+            dropLeadership();
+        }
+        return leader;
+    }
+
+    @Scheduled(fixedDelayString = "${bot.cluster.heartbeat-interval:PT5S}")
+    public void heartbeat() {
+        nodeRepository.heartbeat(self.id(), self.url());
+        List<Member> alive = new ArrayList<>();
+        boolean selfSeen = false;
+        for (BotNode node : nodeRepository.findAlive(timeoutSeconds)) {
+            ClusterNode member = new ClusterNode(node.getNodeId(), node.getUrl());
+            selfSeen |= member.equals(self);
+            alive.add(new Member(member));
+        }
+        // Себя считаем живым, даже если своя отметка ещё не видна
+        if (!selfSeen) {
+            alive.add(new Member(self));
+        }
+        alive.sort(Comparator.comparing(member -> member.node.id()));
+        Member[] updated = alive.toArray(Member[]::new);
+        if (!Arrays.equals(ids(members), ids(updated))) {
+            logger.info("Состав кластера: {}", Arrays.toString(ids(updated)));
+        }
+        members = updated;
+        claimLeadership();
+    }
+
+    /**
+     * Пытается стать ведущим, если ещё не ведущий. Блокировка берётся без ожидания: её держит живой ведущий.
+     */
+    private synchronized void claimLeadership() {
+        if (isLeader()) {
+            return;
+        }
+        try {
+            if (leaderConnection == null || !connectionAlive()) {
+                closeLeaderConnection();
+                leaderConnection = dataSource.getConnection();
+                leaderConnection.setAutoCommit(true);
+            }
+            try (PreparedStatement statement = leaderConnection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, LEADER_LOCK);
+                try (ResultSet result = statement.executeQuery()) {
+                    leader = result.next() && result.getBoolean(1);
+                }
+            }
+            if (leader) {
+                logger.info("Экземпляр {} стал ведущим", self.id());
+            }
+        } catch (SQLException e) {
+            logger.warn("Не удалось проверить блокировку ведущего: {}", e.getMessage());
+            closeLeaderConnection();
+        }
+    }
+
+    private boolean connectionAlive() {
+        try {
+            return leaderConnection != null && leaderConnection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void dropLeadership() {
+        logger.warn("Экземпляр {} потерял соединение с блокировкой и больше не ведущий", self.id());
+        leader = false;
+        closeLeaderConnection();
+    }
+
+    private void closeLeaderConnection() {
+        if (leaderConnection == null) {
+            return;
+        }
+        try {
+            leaderConnection.close();
+        } catch (SQLException e) {
+            logger.debug("Ошибка закрытия соединения ведущего: {}", e.getMessage());
+        }
+        leaderConnection = null;
+    }
+
+    /**
+     * При штатной остановке экземпляр сразу выходит из кластера, не дожидаясь истечения отметки.
+     */
+    @Override
+    public void destroy() {
+        try {
+            nodeRepository.deleteById(self.id());
+        } catch (Exception e) {
+            logger.warn("Не удалось снять отметку экземпляра {}: {}", self.id(), e.getMessage());
+        }
+        // Закрытие соединения снимает блокировку, и ведущим сразу может стать другой экземпляр
+        synchronized (this) {
+            leader = false;
+            closeLeaderConnection();
+        }
+    }
+
+    private static String[] ids(Member[] members) {
+        return Arrays.stream(members).map(member -> member.node.id()).toArray(String[]::new);
+    }
+
+    private static final class Member {
+        final ClusterNode node;
+        final long seed;
+
+        Member(ClusterNode node) {
+            this.node = node;
+            this.seed = mix(node.id().hashCode() * 0x9E3779B97F4A7C15L);
+        }
+
+        long score(long chatId) {
+            return mix(seed ^ chatId);
+        }
+
+        // Финализатор SplitMix64: хорошо перемешивает биты, так что оценки разных экземпляров независимы
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Единственный экземпляр: обслуживает все чаты и выполняет все фоновые задачи.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.cluster.enabled", havingValue = "false", matchIfMissing = true)
+public class SingleNodeMembership implements ClusterMembership {
+
+    private final ClusterNode self;
+
+    public SingleNodeMembership(@Value("${bot.cluster.node-id:local}") String nodeId) {
+        this.self = new ClusterNode(nodeId, "");
+    }
+
+    @Override
+    public ClusterNode self() {
+        return self;
+    }
+
+    @Override
+    public ClusterNode ownerOf(long chatId) {
+        return self;
+    }
+
+    @Override
+    public boolean isLeader() {
+        return true;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Пересылает обновление экземпляру, за которым закреплён чат, чтобы все обновления чата обрабатывались
+ * в одном месте и по порядку.
+ * <p>
+ * Если к владельцу не удалось подключиться, обновление обрабатывается на месте: лучше ответить из другого экземпляра,
+ * чем потерять сообщение, пока кластер не заметил пропажу владельца. Если же запрос ушёл, но ответа нет,
+ * владелец мог его уже принять, поэтому Telegram просят повторить доставку позже: повтор придёт владельцу
+ * (или новому владельцу) и будет отсеян по update_id, если уже обработан.
+ */
+@Component
+public class UpdateForwarder {
+    private static final Logger logger = LoggerFactory.getLogger(UpdateForwarder.class);
+
+    /** Заголовок пересланного запроса: такой запрос обрабатывается на месте и дальше не пересылается. */
+    public static final String FORWARDED_BY = "X-Bot-Forwarded-By";
+
+    public enum Result {
+        /** Обновление нужно обработать на этом экземпляре. */
+        LOCAL,
+        /** Владелец чата принял обновление. */
+        FORWARDED,
+        /** Неизвестно, принял ли владелец обновление: Telegram должен повторить доставку. */
+        RETRY
+    }
+
+    private final ClusterMembership membership;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+    private final String webhookPath;
+    private final String secretToken;
+    private final Duration timeout;
+
+    public UpdateForwarder(ClusterMembership membership, ObjectMapper objectMapper,
+                           @Value("${bot.webhook.path:/telegram/webhook}") String webhookPath,
+                           @Value("${bot.webhook.secret:}") String secretToken,
+                           @Value("${bot.cluster.forward-timeout:PT2S}") Duration timeout) {
+        this.membership = membership;
+        this.objectMapper = objectMapper;
+        this.webhookPath = webhookPath;
+        this.secretToken = secretToken;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    /**
+     * Пересылает обновление владельцу чата, если это другой экземпляр.
+     *
+     * @param update обновление от Telegram
+     * @return что делать с обновлением дальше
+     */
+    public Result forwardIfRemote(Update update) {
+        Long chatId = chatIdOf(update);
+        if (chatId == null) {
+            return Result.LOCAL;
+        }
+        ClusterNode owner = membership.ownerOf(chatId);
+        if (owner.equals(membership.self())) {
+            return Result.LOCAL;
+        }
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(owner.url() + webhookPath))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header(FORWARDED_BY, membership.self().id())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(update)));
+            if (!secretToken.isEmpty()) {
+                request.header("X-Telegram-Bot-Api-Secret-Token", secretToken);
+            }
+            int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status == 200) {
+                return Result.FORWARDED;
+            }
+            logger.warn("Экземпляр {} ответил {} на обновление {}, обрабатываем здесь", owner.id(), status,
+                    update.getUpdateId());
+            return Result.LOCAL;
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            logger.warn("Экземпляр {} недоступен ({}), обновление {} обрабатываем здесь", owner.id(), e.getMessage(),
+                    update.getUpdateId());
+            return Result.LOCAL;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.RETRY;
+        } catch (IOException e) {
+            logger.warn("Экземпляр {} не ответил на обновление {} ({}), Telegram повторит доставку", owner.id(),
+                    update.getUpdateId(), e.getMessage());
+            return Result.RETRY;
+        }
+    }
+
+    /**
+     * Чат обновления: сообщения или сообщения с нажатой кнопкой; null, если обновление ни к какому чату не относится.
+     */
+    private static Long chatIdOf(Update update) {
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Чтения внутри метода (или всех методов класса) всегда идут в основную базу, даже в транзакции только для чтения.
+ * Нужно там, где прочитанное попадает в кэш, общий для всех чатов: устаревшая строка с реплики
+ * осталась бы в нём до истечения записи, и привязка к чату после изменения от этого не защищает.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadFromPrimary {
+}
@@ -0,0 +1,29 @@
+package com.example.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Отмечает поток на время вызова метода с {@link ReadFromPrimary}.
+ * Соединение берётся лениво, при первом запросе, поэтому отметка действует и внутри уже начатой транзакции,
+ * если в ней ещё не было запросов.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ReadFromPrimaryAspect {
+
+    @Around("@within(com.example.datasource.ReadFromPrimary) || @annotation(com.example.datasource.ReadFromPrimary)")
+    public Object readFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        ReadRouting.enterPrimary();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadRouting.exitPrimary();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.datasource;
+
+/**
+ * Сведения о текущем потоке, по которым {@link ReadWriteRoutingDataSource} выбирает базу для чтения:
+ * чат, чьё обновление обрабатывается, и требование читать с основной базы.
+ */
+public final class ReadRouting {
+
+    private static final long NO_CHAT = Long.MIN_VALUE;
+
+    private static final ThreadLocal<long[]> CURRENT_CHAT = ThreadLocal.withInitial(() -> new long[]{NO_CHAT});
+    private static final ThreadLocal<int[]> PRIMARY_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Привязывает поток к чату на время обработки его обновления.
+     */
+    public static void bindChat(long chatId) {
+        CURRENT_CHAT.get()[0] = chatId;
+    }
+
+    public static void unbindChat() {
+        CURRENT_CHAT.get()[0] = NO_CHAT;
+    }
+
+    /**
+     * Чат, чьё обновление обрабатывает поток, или {@link Long#MIN_VALUE}, если поток не обрабатывает обновление.
+     */
+    static long currentChat() {
+        return CURRENT_CHAT.get()[0];
+    }
+
+    static boolean hasChat() {
+        return currentChat() != NO_CHAT;
+    }
+
+    static void enterPrimary() {
+        PRIMARY_DEPTH.get()[0]++;
+    }
+
+    static void exitPrimary() {
+        PRIMARY_DEPTH.get()[0]--;
+    }
+
+    static boolean primaryRequired() {
+        return PRIMARY_DEPTH.get()[0] > 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Направляет транзакции только для чтения на реплику, всё остальное — в основную базу.
+ * <p>
+ * В основную базу идут и чтения только для чтения, если чат обновления недавно менялся ({@link ReplicaStickiness})
+ * или вызов отмечен {@link ReadFromPrimary}. Решение принимается при получении соединения, поэтому источник
+ * должен быть обёрнут в {@code LazyConnectionDataSourceProxy}: иначе соединение берётся в начале транзакции,
+ * когда признак «только для чтения» ещё не выставлен.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaStickiness stickiness;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaStickiness stickiness,
+                                      MeterRegistry registry) {
+        this.stickiness = stickiness;
+        this.primaryConnections = connections(registry, Target.PRIMARY);
+        this.replicaConnections = connections(registry, Target.REPLICA);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadRouting.primaryRequired()
+                && !(ReadRouting.hasChat() && stickiness.isSticky(ReadRouting.currentChat()));
+        if (replica) {
+            replicaConnections.increment();
+            return Target.REPLICA;
+        }
+        primaryConnections.increment();
+        return Target.PRIMARY;
+    }
+
+    private static Counter connections(MeterRegistry registry, Target target) {
+        return Counter.builder("loyalty.datasource.connections")
+                .description("Соединения, выданные основной базой и репликой")
+                .tag("target", target.name().toLowerCase())
+                .register(registry);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.datasource;
+
+import com.example.service.UserCachesResetEvent;
+import com.example.service.UserChangedEvent;
+import com.example.service.UsersImportedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Чаты, чьи данные недавно изменились. Пока реплика может отставать, их чтения идут в основную базу,
+ * чтобы пользователь сразу после начисления или регистрации не увидел старый баланс или «вы не зарегистрированы».
+ */
+@Component
+public class ReplicaStickiness {
+
+    private final long stickyForNanos;
+    private final Cache<Long, Boolean> recentlyChanged;
+    private volatile long allStickyUntil;
+
+    public ReplicaStickiness(@Value("${bot.datasource.sticky-for:5s}") Duration stickyFor,
+                             @Value("${bot.profile-cache.max-entries:10000}") long maxEntries) {
+        this.stickyForNanos = stickyFor.toNanos();
+        this.recentlyChanged = Caffeine.newBuilder()
+                .expireAfterWrite(stickyFor)
+                .maximumSize(maxEntries)
+                .build();
+        this.allStickyUntil = System.nanoTime();
+    }
+
+    /**
+     * Должны ли чтения для чата идти в основную базу.
+     */
+    public boolean isSticky(long chatId) {
+        return System.nanoTime() - allStickyUntil < 0 || recentlyChanged.getIfPresent(chatId) != null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        recentlyChanged.put(event.chatId(), Boolean.TRUE);
+    }
+
+    /**
+     * После загрузки клиентов изменённых чатов слишком много, поэтому в основную базу на время идут все чтения.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersImported(UsersImportedEvent event) {
+        allStickyUntil = System.nanoTime() + stickyForNanos;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCachesReset(UserCachesResetEvent event) {
+        allStickyUntil = System.nanoTime() + stickyForNanos;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.entity;
+
+/**
+ * Результат атомарного изменения баланса: кому изменили баланс и каким он стал.
+ */
+public interface BalanceChange {
+
+    Long getId();
+
+    Long getChatId();
+
+    Integer getPoints();
+
+    /** Изменение баланса: начисленные (положительные) или списанные (отрицательные) баллы. */
+    Integer getDelta();
+
+    /** Сотрудник, выполнивший операцию; null, если операция выполнена без участия сотрудника. */
+    Long getEmployeeId();
+}
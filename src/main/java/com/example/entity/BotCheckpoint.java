@@ -0,0 +1,52 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Именованная отметка прогресса бота, которая должна пережить перезапуск.
+ */
+@Entity
+@Table(name = "bot_checkpoints")
+public class BotCheckpoint {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "value", nullable = false)
+    private long value;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public BotCheckpoint() {}
+
+    public BotCheckpoint(String name, long value, Instant updatedAt) {
+        this.name = name;
+        this.value = value;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
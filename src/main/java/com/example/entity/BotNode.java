@@ -0,0 +1,39 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Запущенный экземпляр бота. Экземпляр, переставший обновлять отметку, считается остановленным.
+ */
+@Entity
+@Table(name = "bot_nodes")
+public class BotNode {
+
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    /** Адрес, по которому другие экземпляры пересылают этому обновления его чатов. */
+    @Column(name = "url", nullable = false)
+    private String url;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private Instant heartbeatAt;
+
+    public BotNode() {}
+
+    // Getters
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Рекламная рассылка. Получатели обходятся по возрастанию id пользователя;
+ * последний обработанный id сохраняется вместе со счётчиками, поэтому после перезапуска рассылка продолжается с него.
+ */
+@Entity
+@Table(name = "campaigns")
+public class Campaign {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "text", nullable = false, updatable = false, columnDefinition = "text")
+    private String text;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private CampaignStatus status;
+
+    @Column(name = "created_by", nullable = false, updatable = false)
+    private long createdBy;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    @Column(name = "delivered", nullable = false)
+    private long delivered;
+
+    @Column(name = "failed", nullable = false)
+    private long failed;
+
+    @Column(name = "blocked", nullable = false)
+    private long blocked;
+
+    public Campaign() {}
+
+    public Campaign(String text, long createdBy, Instant createdAt) {
+        this.text = text;
+        this.createdBy = createdBy;
+        this.createdAt = createdAt;
+        this.status = CampaignStatus.RUNNING;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public CampaignStatus getStatus() {
+        return status;
+    }
+
+    public long getCreatedBy() {
+        return createdBy;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getLastUserId() {
+        return lastUserId;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getBlocked() {
+        return blocked;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.entity;
+
+public enum CampaignStatus {
+    /** Рассылка идёт или прервана перезапуском и будет продолжена. */
+    RUNNING,
+    COMPLETED
+}
@@ -0,0 +1,69 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Сохранённое состояние незавершённого диалога с пользователем.
+ */
+@Entity
+@Table(name = "conversation_states")
+public class ConversationState {
+
+    @Id
+    @Column(name = "chat_id")
+    private Long chatId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 64)
+    private UserState state;
+
+    @Column(name = "data")
+    private String data;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public ConversationState() {}
+
+    public ConversationState(Long chatId, UserState state, String data, Instant updatedAt) {
+        this.chatId = chatId;
+        this.state = state;
+        this.data = data;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public Long getChatId() {
+        return chatId;
+    }
+
+    public void setChatId(Long chatId) {
+        this.chatId = chatId;
+    }
+
+    public UserState getState() {
+        return state;
+    }
+
+    public void setState(UserState state) {
+        this.state = state;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public void setData(String data) {
+        this.data = data;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
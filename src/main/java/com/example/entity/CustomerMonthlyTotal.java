@@ -0,0 +1,75 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Итоги клиента за месяц. Индекс по (month, earned DESC) держит клиентов каждого месяца упорядоченными,
+ * так что первые N читаются коротким проходом по индексу, без сортировки и без обращения к users.
+ */
+@Entity
+@Table(name = "customer_monthly_totals", indexes = {
+        @Index(name = "idx_customer_monthly_totals_top", columnList = "month, earned DESC, customer_id")
+})
+@IdClass(CustomerMonthlyTotal.Key.class)
+public class CustomerMonthlyTotal {
+
+    /** Первый день месяца. */
+    @Id
+    @Column(name = "month")
+    private LocalDate month;
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "earned", nullable = false)
+    private long earned;
+
+    @Column(name = "redeemed", nullable = false)
+    private long redeemed;
+
+    public CustomerMonthlyTotal() {}
+
+    // Getters
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public long getEarned() {
+        return earned;
+    }
+
+    public long getRedeemed() {
+        return redeemed;
+    }
+
+    public static class Key implements Serializable {
+        private LocalDate month;
+        private Long customerId;
+
+        public Key() {}
+
+        public Key(LocalDate month, Long customerId) {
+            this.month = month;
+            this.customerId = customerId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(month, key.month) && Objects.equals(customerId, key.customerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(month, customerId);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.entity;
+
+/**
+ * Начисленные клиенту за месяц баллы вместе с его номером телефона.
+ */
+public interface CustomerTotal {
+
+    Long getCustomerId();
+
+    String getPhoneNumber();
+
+    Long getEarned();
+}
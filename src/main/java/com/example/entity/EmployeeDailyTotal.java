@@ -0,0 +1,83 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Итоги сотрудника за день: сколько баллов он начислил и списал и сколько провёл операций.
+ * Строка обновляется в транзакции каждой операции, поэтому итоги за день читаются без обхода журнала.
+ * Списания, которые клиент сделал сам, собираются под {@link #SELF_SERVICE}.
+ */
+@Entity
+@Table(name = "employee_daily_totals")
+@IdClass(EmployeeDailyTotal.Key.class)
+public class EmployeeDailyTotal {
+
+    /** employee_id для операций без сотрудника. */
+    public static final long SELF_SERVICE = 0;
+
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "employee_id")
+    private Long employeeId;
+
+    @Column(name = "earned", nullable = false)
+    private long earned;
+
+    @Column(name = "redeemed", nullable = false)
+    private long redeemed;
+
+    @Column(name = "operations", nullable = false)
+    private long operations;
+
+    public EmployeeDailyTotal() {}
+
+    // Getters
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public long getEarned() {
+        return earned;
+    }
+
+    public long getRedeemed() {
+        return redeemed;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private Long employeeId;
+
+        public Key() {}
+
+        public Key(LocalDate day, Long employeeId) {
+            this.day = day;
+            this.employeeId = employeeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(day, key.day) && Objects.equals(employeeId, key.employeeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(day, employeeId);
+        }
+    }
+}
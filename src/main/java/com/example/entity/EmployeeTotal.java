@@ -0,0 +1,18 @@
+package com.example.entity;
+
+/**
+ * Итоги сотрудника за день вместе с его номером телефона.
+ */
+public interface EmployeeTotal {
+
+    Long getEmployeeId();
+
+    /** Номер телефона сотрудника; null для операций без сотрудника. */
+    String getPhoneNumber();
+
+    Long getEarned();
+
+    Long getRedeemed();
+
+    Long getOperations();
+}
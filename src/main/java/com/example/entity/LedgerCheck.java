@@ -0,0 +1,18 @@
+package com.example.entity;
+
+/**
+ * Результат сверки баланса клиента с журналом операций.
+ */
+public interface LedgerCheck {
+
+    Long getCustomerId();
+
+    /** Баланс в таблице users без свежих записей журнала, ещё не вошедших в сверку. */
+    Integer getBalance();
+
+    /** Баланс, выведенный из снимка и журнала; null, если записей в журнале нет. */
+    Integer getDerived();
+
+    /** Последняя учтённая запись журнала; null, если новых записей после снимка нет. */
+    Long getLastTransactionId();
+}
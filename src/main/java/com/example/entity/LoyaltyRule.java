@@ -0,0 +1,106 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Правило программы лояльности. Правила редактируются в базе и компилируются в {@code CompiledRules}.
+ * Время действия задаётся часами внутри дня (окно может переходить через полночь) и датами включительно;
+ * пустые границы не ограничивают правило.
+ */
+@Entity
+@Table(name = "loyalty_rules")
+public class LoyaltyRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 32)
+    private RuleKind kind;
+
+    @Column(name = "amount", nullable = false)
+    private int amount;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "starts_at")
+    private LocalTime startsAt;
+
+    @Column(name = "ends_at")
+    private LocalTime endsAt;
+
+    @Column(name = "valid_from")
+    private LocalDate validFrom;
+
+    @Column(name = "valid_until")
+    private LocalDate validUntil;
+
+    @Column(name = "enabled", nullable = false)
+    private boolean enabled = true;
+
+    public LoyaltyRule() {}
+
+    public LoyaltyRule(RuleKind kind, int amount, String title) {
+        this.kind = kind;
+        this.amount = amount;
+        this.title = title;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public RuleKind getKind() {
+        return kind;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalTime getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(LocalTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public LocalTime getEndsAt() {
+        return endsAt;
+    }
+
+    public void setEndsAt(LocalTime endsAt) {
+        this.endsAt = endsAt;
+    }
+
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    public void setValidFrom(LocalDate validFrom) {
+        this.validFrom = validFrom;
+    }
+
+    public LocalDate getValidUntil() {
+        return validUntil;
+    }
+
+    public void setValidUntil(LocalDate validUntil) {
+        this.validUntil = validUntil;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
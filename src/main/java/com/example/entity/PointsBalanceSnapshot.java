@@ -0,0 +1,62 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Проверенный баланс клиента по журналу: сумма всех записей журнала до {@code lastTransactionId} включительно.
+ * Позволяет сверять баланс, просматривая только записи журнала, появившиеся после снимка.
+ */
+@Entity
+@Table(name = "points_balance_snapshots")
+public class PointsBalanceSnapshot {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "last_transaction_id", nullable = false)
+    private long lastTransactionId;
+
+    @Column(name = "balance", nullable = false)
+    private int balance;
+
+    @Column(name = "verified_at", nullable = false)
+    private Instant verifiedAt;
+
+    public PointsBalanceSnapshot() {}
+
+    public PointsBalanceSnapshot(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    // Getters and Setters
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public long getLastTransactionId() {
+        return lastTransactionId;
+    }
+
+    public void setLastTransactionId(long lastTransactionId) {
+        this.lastTransactionId = lastTransactionId;
+    }
+
+    public int getBalance() {
+        return balance;
+    }
+
+    public void setBalance(int balance) {
+        this.balance = balance;
+    }
+
+    public Instant getVerifiedAt() {
+        return verifiedAt;
+    }
+
+    public void setVerifiedAt(Instant verifiedAt) {
+        this.verifiedAt = verifiedAt;
+    }
+}
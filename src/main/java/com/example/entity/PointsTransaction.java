@@ -0,0 +1,80 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала операций с баллами. Записи только добавляются и никогда не изменяются.
+ */
+@Entity
+@Table(name = "points_transactions", indexes = {
+        @Index(name = "idx_points_transactions_customer", columnList = "customer_id, id")
+})
+public class PointsTransaction {
+
+    // Последовательность с выделением блоками позволяет Hibernate вставлять записи пакетами (IDENTITY это запрещает)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "points_transactions_seq")
+    @SequenceGenerator(name = "points_transactions_seq", sequenceName = "points_transactions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false, updatable = false)
+    private Long customerId;
+
+    @Column(name = "employee_id", updatable = false)
+    private Long employeeId;
+
+    @Column(name = "delta", nullable = false, updatable = false)
+    private int delta;
+
+    @Column(name = "balance_after", nullable = false, updatable = false)
+    private int balanceAfter;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "idempotency_key", unique = true, updatable = false, length = 128)
+    private String idempotencyKey;
+
+    public PointsTransaction() {}
+
+    public PointsTransaction(Long customerId, Long employeeId, int delta, int balanceAfter, Instant createdAt,
+                             String idempotencyKey) {
+        this.customerId = customerId;
+        this.employeeId = employeeId;
+        this.delta = delta;
+        this.balanceAfter = balanceAfter;
+        this.createdAt = createdAt;
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public int getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
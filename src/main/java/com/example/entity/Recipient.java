@@ -0,0 +1,11 @@
+package com.example.entity;
+
+/**
+ * Получатель рассылки: id пользователя служит курсором постраничного обхода.
+ */
+public interface Recipient {
+
+    Long getId();
+
+    Long getChatId();
+}
@@ -0,0 +1,19 @@
+package com.example.entity;
+
+/**
+ * Вид правила программы лояльности; смысл {@link LoyaltyRule#getAmount()} зависит от вида.
+ */
+public enum RuleKind {
+    /** Множитель начисления в процентах (150 — в полтора раза). Из действующих применяется наибольший. */
+    MULTIPLIER,
+    /** Баллы, добавляемые к каждому начислению, например в счастливые часы. Действующие бонусы суммируются. */
+    BONUS,
+    /** Наибольшее число баллов за одно начисление. */
+    ACCRUAL_CAP,
+    /** Наименьшее число баллов за одно списание. */
+    REDEEM_MIN,
+    /** Наибольшее число баллов за одно списание. */
+    REDEEM_MAX,
+    /** Порог баллов, с которого клиенту доступна награда из {@link LoyaltyRule#getTitle()}. */
+    REWARD
+}
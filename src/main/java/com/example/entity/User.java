@@ -1,12 +1,24 @@
 package com.example.entity;
 
+import com.example.phone.PhoneNumbers;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 /**
  * Класс, представляющий пользователя в системе.
+ * Хранится в кэше второго уровня; канонический номер телефона — натуральный ключ с собственным кэшем.
+ * Баллы меняются нативными запросами, поэтому UPDATE сущности записывает только изменённые поля
+ * и не затирает баланс значением из кэша.
  */
 @Entity
 @Table(name = "users")
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-phone")
 public class User {
 
     @Id
@@ -19,6 +31,12 @@ public class User {
     @Column(name = "phone_number", unique = true, nullable = false)
     private String phoneNumber;
 
+    // Номер в формате E.164 числом (см. PhoneNumbers): по нему ищутся пользователи.
+    // Пуст только у старых записей, номер которых не удалось привести к каноническому виду или он повторяется
+    @NaturalId(mutable = true)
+    @Column(name = "phone_key", unique = true)
+    private Long phoneKey;
+
     @Column(name = "points", nullable = false)
     private int points = 0;
 
@@ -33,6 +51,8 @@ public class User {
     public User(Long chatId, String phoneNumber, boolean isEmployee, boolean isAdmin, int points) {
         this.chatId = chatId;
         this.phoneNumber = phoneNumber;
+        long key = PhoneNumbers.parse(phoneNumber);
+        this.phoneKey = key != PhoneNumbers.INVALID ? key : null;
         this.isEmployee = isEmployee;
         this.isAdmin = isAdmin;
         this.points = points;
@@ -63,6 +83,14 @@ public class User {
         this.phoneNumber = phoneNumber;
     }
 
+    public Long getPhoneKey() {
+        return phoneKey;
+    }
+
+    public void setPhoneKey(Long phoneKey) {
+        this.phoneKey = phoneKey;
+    }
+
     public int getPoints() {
         return points;
     }
@@ -0,0 +1,21 @@
+package com.example.entity;
+
+/**
+ * Неизменяемый снимок пользователя: всё, что нужно обработчикам команд, одним запросом.
+ *
+ * @param id          идентификатор пользователя
+ * @param chatId      идентификатор чата пользователя
+ * @param phoneNumber номер телефона
+ * @param points      баланс баллов
+ * @param employee    является ли пользователь сотрудником
+ * @param admin       является ли пользователь администратором
+ */
+public record UserProfile(Long id, long chatId, String phoneNumber, int points, boolean employee, boolean admin) {
+
+    /**
+     * Может ли пользователь работать с баллами клиентов (сотрудник или администратор).
+     */
+    public boolean isStaff() {
+        return employee || admin;
+    }
+}
@@ -7,6 +7,7 @@ public enum UserState {
     ADD_POINTS_AWAITING_AMOUNT,
     REDEEM_AWAITING_PHONE,
     REDEEM_AWAITING_AMOUNT,
+    BATCH_POINTS_AWAITING_LIST,
     ADD_EMPLOYEE_AWAITING_PHONE,
     REMOVE_EMPLOYEE_AWAITING_PHONE
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.metrics;
+
+import com.example.bot.OutboundMessageQueue;
+import com.example.bot.UpdateDeduplicator;
+import com.example.bot.UpdateDispatcher;
+import com.example.service.UserProfileCache;
+import com.example.state.ConversationStateStore;
+import com.example.throttle.InboundRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Публикует размеры очередей и кэшей бота. Значения снимаются в момент опроса метрик.
+ */
+@Component
+public class BotMetricsBinder implements MeterBinder {
+
+    private final ConversationStateStore conversations;
+    private final UpdateDispatcher dispatcher;
+    private final OutboundMessageQueue outbound;
+    private final UpdateDeduplicator deduplicator;
+    private final UserProfileCache profileCache;
+    private final SqlStatementCounter sqlCounter;
+    private final InboundRateLimiter rateLimiter;
+
+    public BotMetricsBinder(ConversationStateStore conversations, UpdateDispatcher dispatcher,
+                            OutboundMessageQueue outbound, UpdateDeduplicator deduplicator,
+                            UserProfileCache profileCache, SqlStatementCounter sqlCounter,
+                            InboundRateLimiter rateLimiter) {
+        this.conversations = conversations;
+        this.dispatcher = dispatcher;
+        this.outbound = outbound;
+        this.deduplicator = deduplicator;
+        this.profileCache = profileCache;
+        this.sqlCounter = sqlCounter;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bot.conversations.active", conversations, ConversationStateStore::size)
+                .description("Незавершённые диалоги")
+                .register(registry);
+        Gauge.builder("bot.updates.queued", dispatcher, UpdateDispatcher::getQueuedCount)
+                .description("Обновления, ожидающие обработки")
+                .register(registry);
+        Gauge.builder("bot.outbound.queued", outbound, OutboundMessageQueue::getQueueDepth)
+                .description("Сообщения, ожидающие отправки")
+                .register(registry);
+        FunctionCounter.builder("bot.updates.duplicates", deduplicator, UpdateDeduplicator::getDuplicateCount)
+                .description("Пропущенные повторно доставленные обновления")
+                .register(registry);
+        FunctionCounter.builder("bot.updates.renumberings", deduplicator, UpdateDeduplicator::getRenumberingCount)
+                .description("Начала новой нумерации update_id в Telegram")
+                .register(registry);
+        FunctionCounter.builder("bot.updates.rejected", rateLimiter, InboundRateLimiter::getRejectedByChat)
+                .description("Обновления, отброшенные ограничением входящего потока")
+                .tag("limit", "chat")
+                .register(registry);
+        FunctionCounter.builder("bot.updates.rejected", rateLimiter, InboundRateLimiter::getRejectedGlobally)
+                .description("Обновления, отброшенные ограничением входящего потока")
+                .tag("limit", "global")
+                .register(registry);
+        Gauge.builder("bot.profile-cache.size", profileCache, UserProfileCache::size)
+                .register(registry);
+        FunctionCounter.builder("bot.profile-cache.requests", profileCache, cache -> cache.stats().hitCount())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("bot.profile-cache.requests", profileCache, cache -> cache.stats().missCount())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("loyalty.sql.statements", sqlCounter, SqlStatementCounter::totalCount)
+                .description("Все SQL-запросы, отправленные Hibernate")
+                .register(registry);
+    }
+}
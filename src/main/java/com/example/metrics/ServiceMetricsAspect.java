@@ -0,0 +1,59 @@
+package com.example.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Замеряет время и число SQL-запросов каждого публичного метода {@code UserService} и {@code LoyaltyService}.
+ * Аспект выполняется снаружи транзакции, поэтому в замер попадают и запросы, отправленные при фиксации.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final SqlStatementCounter sqlCounter;
+
+    public ServiceMetricsAspect(MeterRegistry registry, SqlStatementCounter sqlCounter) {
+        this.registry = registry;
+        this.sqlCounter = sqlCounter;
+    }
+
+    @Around("execution(public * com.example.service.UserService.*(..))"
+            + " || execution(public * com.example.service.LoyaltyService.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        long statementsBefore = sqlCounter.currentThreadCount();
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("loyalty.service.calls")
+                    .description("Время выполнения методов сервисов")
+                    .tag("service", service)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            DistributionSummary.builder("loyalty.service.sql.statements")
+                    .description("Число SQL-запросов за один вызов метода сервиса")
+                    .tag("service", service)
+                    .tag("method", method)
+                    .register(registry)
+                    .record(sqlCounter.currentThreadCount() - statementsBefore);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Считает SQL-запросы, которые Hibernate отправляет в базу, включая нативные.
+ * Счётчик текущего потока позволяет узнать, сколько запросов выполнил отдельный вызов сервиса,
+ * общий счётчик публикуется как метрика.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<long[]> THREAD_COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final LongAdder total = new LongAdder();
+
+    @Override
+    public String inspect(String sql) {
+        THREAD_COUNT.get()[0]++;
+        total.increment();
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.session_factory.statement_inspector", this);
+    }
+
+    /**
+     * Возвращает число запросов, выполненных текущим потоком с момента его запуска.
+     */
+    public long currentThreadCount() {
+        return THREAD_COUNT.get()[0];
+    }
+
+    /**
+     * Возвращает общее число выполненных запросов.
+     */
+    public long totalCount() {
+        return total.sum();
+    }
+}
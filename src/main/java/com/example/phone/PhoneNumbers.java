@@ -0,0 +1,103 @@
+package com.example.phone;
+
+/**
+ * Приведение номеров телефонов к каноническому виду E.164.
+ * Канонический номер хранится как число (цифры номера без «+»): «+7 (999) 123-45-67», «89991234567»
+ * и «79991234567» дают один и тот же ключ 79991234567.
+ * <p>
+ * Правила: допускаются пробелы, дефисы, точки и скобки; номер с «+» принимается как есть (8–15 цифр);
+ * без «+» российские номера из 11 цифр с ведущей 8 переводятся в 7, из 10 цифр с ведущей 9 дополняются 7,
+ * остальные номера из 11–15 цифр считаются записанными с кодом страны.
+ */
+public final class PhoneNumbers {
+
+    /** Признак неверного номера: канонический ключ никогда не равен нулю. */
+    public static final long INVALID = 0;
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Возвращает канонический ключ номера.
+     *
+     * @param raw номер в произвольной записи
+     * @return цифры номера в формате E.164
+     * @throws IllegalArgumentException если номер не распознан
+     */
+    public static long toKey(CharSequence raw) {
+        long key = parse(raw);
+        if (key == INVALID) {
+            throw new IllegalArgumentException("Неверный формат номера телефона: " + raw);
+        }
+        return key;
+    }
+
+    /**
+     * Возвращает канонический ключ номера или {@link #INVALID}, не создавая исключений и объектов.
+     *
+     * @param raw номер в произвольной записи, может быть null
+     */
+    public static long parse(CharSequence raw) {
+        if (raw == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = raw.length();
+        while (start < end && Character.isWhitespace(raw.charAt(start))) {
+            start++;
+        }
+        boolean plus = start < end && raw.charAt(start) == '+';
+        if (plus) {
+            start++;
+        }
+
+        long digits = 0;
+        int count = 0;
+        int first = -1;
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++count > 15) {
+                    return INVALID;
+                }
+                if (first < 0) {
+                    first = c - '0';
+                }
+                digits = digits * 10 + (c - '0');
+            } else if (c != ' ' && c != '-' && c != '(' && c != ')' && c != '.' && !Character.isWhitespace(c)) {
+                return INVALID;
+            }
+        }
+        if (first <= 0) {
+            return INVALID;
+        }
+
+        if (plus) {
+            return count >= 8 ? digits : INVALID;
+        }
+        if (count == 11 && first == 8) {
+            // 8XXXXXXXXXX -> 7XXXXXXXXXX
+            return digits - 10_000_000_000L;
+        }
+        if (count == 10 && first == 9) {
+            return 70_000_000_000L + digits;
+        }
+        return count >= 11 ? digits : INVALID;
+    }
+
+    /**
+     * Записывает канонический ключ номером телефона вида «+79991234567».
+     */
+    public static String format(long key) {
+        return "+" + key;
+    }
+
+    /**
+     * Приводит номер к каноническому виду «+79991234567».
+     *
+     * @throws IllegalArgumentException если номер не распознан
+     */
+    public static String normalize(CharSequence raw) {
+        return format(toKey(raw));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.repository;
+
+import com.example.entity.BotCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BotCheckpointRepository extends JpaRepository<BotCheckpoint, String> {
+}
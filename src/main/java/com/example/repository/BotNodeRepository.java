@@ -0,0 +1,30 @@
+package com.example.repository;
+
+import com.example.entity.BotNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface BotNodeRepository extends JpaRepository<BotNode, String> {
+
+    /**
+     * Отмечает, что экземпляр жив. Время берётся с часов базы, поэтому расхождение часов между серверами не мешает.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO bot_nodes (node_id, url, heartbeat_at) VALUES (:nodeId, :url, now()) " +
+            "ON CONFLICT (node_id) DO UPDATE SET url = excluded.url, heartbeat_at = excluded.heartbeat_at",
+            nativeQuery = true)
+    void heartbeat(@Param("nodeId") String nodeId, @Param("url") String url);
+
+    /**
+     * Экземпляры, отметившиеся не раньше чем {@code timeoutSeconds} секунд назад.
+     */
+    @Query(value = "SELECT * FROM bot_nodes WHERE heartbeat_at > now() - make_interval(secs => :timeoutSeconds) " +
+            "ORDER BY node_id", nativeQuery = true)
+    List<BotNode> findAlive(@Param("timeoutSeconds") double timeoutSeconds);
+}
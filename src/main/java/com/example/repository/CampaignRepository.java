@@ -0,0 +1,35 @@
+package com.example.repository;
+
+import com.example.entity.Campaign;
+import com.example.entity.CampaignStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface CampaignRepository extends JpaRepository<Campaign, Long> {
+
+    List<Campaign> findByStatusOrderByIdAsc(CampaignStatus status);
+
+    List<Campaign> findTop5ByOrderByIdDesc();
+
+    Optional<Campaign> findFirstByOrderByIdDesc();
+
+    /**
+     * Сохраняет прогресс рассылки: курсор и счётчики обновляются одним запросом, без чтения строки.
+     */
+    @Modifying
+    @Query("update Campaign c set c.lastUserId = :lastUserId, c.delivered = c.delivered + :delivered, " +
+            "c.failed = c.failed + :failed, c.blocked = c.blocked + :blocked where c.id = :id")
+    int recordProgress(@Param("id") long id, @Param("lastUserId") long lastUserId,
+                       @Param("delivered") long delivered, @Param("failed") long failed, @Param("blocked") long blocked);
+
+    @Modifying
+    @Query("update Campaign c set c.status = com.example.entity.CampaignStatus.COMPLETED, c.finishedAt = :finishedAt " +
+            "where c.id = :id")
+    int complete(@Param("id") long id, @Param("finishedAt") Instant finishedAt);
+}
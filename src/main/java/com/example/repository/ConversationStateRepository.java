@@ -0,0 +1,23 @@
+package com.example.repository;
+
+import com.example.entity.ConversationState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface ConversationStateRepository extends JpaRepository<ConversationState, Long> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from ConversationState c where c.updatedAt < :threshold")
+    int deleteIdleBefore(@Param("threshold") Instant threshold);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ConversationState c where c.chatId = :chatId")
+    void deleteByChatId(@Param("chatId") long chatId);
+}
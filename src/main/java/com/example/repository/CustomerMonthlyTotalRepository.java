@@ -0,0 +1,36 @@
+package com.example.repository;
+
+import com.example.entity.CustomerMonthlyTotal;
+import com.example.entity.CustomerTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface CustomerMonthlyTotalRepository extends JpaRepository<CustomerMonthlyTotal, CustomerMonthlyTotal.Key> {
+
+    /**
+     * Прибавляет операцию к итогам клиента за месяц, создавая строку при первой операции месяца.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO customer_monthly_totals (month, customer_id, earned, redeemed) " +
+            "VALUES (:month, :customerId, :earned, :redeemed) " +
+            "ON CONFLICT (month, customer_id) DO UPDATE SET " +
+            "earned = customer_monthly_totals.earned + EXCLUDED.earned, " +
+            "redeemed = customer_monthly_totals.redeemed + EXCLUDED.redeemed", nativeQuery = true)
+    int accumulate(@Param("month") LocalDate month, @Param("customerId") long customerId,
+                   @Param("earned") long earned, @Param("redeemed") long redeemed);
+
+    /**
+     * Первые клиенты месяца по начисленным баллам: проход по индексу idx_customer_monthly_totals_top
+     * и чтение users по первичному ключу только для найденных строк.
+     */
+    @Query(value = "SELECT t.customer_id AS \"customerId\", u.phone_number AS \"phoneNumber\", t.earned AS \"earned\" " +
+            "FROM customer_monthly_totals t JOIN users u ON u.id = t.customer_id " +
+            "WHERE t.month = :month AND t.earned > 0 " +
+            "ORDER BY t.earned DESC, t.customer_id LIMIT :limit", nativeQuery = true)
+    List<CustomerTotal> findTop(@Param("month") LocalDate month, @Param("limit") int limit);
+}
@@ -0,0 +1,34 @@
+package com.example.repository;
+
+import com.example.entity.EmployeeDailyTotal;
+import com.example.entity.EmployeeTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface EmployeeDailyTotalRepository extends JpaRepository<EmployeeDailyTotal, EmployeeDailyTotal.Key> {
+
+    /**
+     * Прибавляет операции к итогам сотрудника за день, создавая строку при первой операции дня.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO employee_daily_totals (day, employee_id, earned, redeemed, operations) " +
+            "VALUES (:day, :employeeId, :earned, :redeemed, :operations) " +
+            "ON CONFLICT (day, employee_id) DO UPDATE SET " +
+            "earned = employee_daily_totals.earned + EXCLUDED.earned, " +
+            "redeemed = employee_daily_totals.redeemed + EXCLUDED.redeemed, " +
+            "operations = employee_daily_totals.operations + EXCLUDED.operations", nativeQuery = true)
+    int accumulate(@Param("day") LocalDate day, @Param("employeeId") long employeeId,
+                   @Param("earned") long earned, @Param("redeemed") long redeemed,
+                   @Param("operations") int operations);
+
+    @Query(value = "SELECT t.employee_id AS \"employeeId\", u.phone_number AS \"phoneNumber\", " +
+            "t.earned AS \"earned\", t.redeemed AS \"redeemed\", t.operations AS \"operations\" " +
+            "FROM employee_daily_totals t LEFT JOIN users u ON u.id = t.employee_id " +
+            "WHERE t.day = :day ORDER BY t.earned DESC, t.employee_id", nativeQuery = true)
+    List<EmployeeTotal> findByDay(@Param("day") LocalDate day);
+}
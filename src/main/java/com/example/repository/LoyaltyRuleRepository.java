@@ -0,0 +1,11 @@
+package com.example.repository;
+
+import com.example.entity.LoyaltyRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface LoyaltyRuleRepository extends JpaRepository<LoyaltyRule, Long> {
+
+    List<LoyaltyRule> findByEnabledTrueOrderByIdAsc();
+}
@@ -0,0 +1,11 @@
+package com.example.repository;
+
+import com.example.entity.PointsBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface PointsBalanceSnapshotRepository extends JpaRepository<PointsBalanceSnapshot, Long> {
+
+    @Query("select coalesce(max(s.lastTransactionId), 0) from PointsBalanceSnapshot s")
+    long findMaxVerifiedTransactionId();
+}
@@ -0,0 +1,44 @@
+package com.example.repository;
+
+import com.example.entity.LedgerCheck;
+import com.example.entity.PointsTransaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface PointsTransactionRepository extends JpaRepository<PointsTransaction, Long> {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    List<PointsTransaction> findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(long id, Instant createdBefore, Limit limit);
+
+    /**
+     * Сверяет балансы клиентов с журналом одним запросом, то есть по одному согласованному снимку данных,
+     * без блокировок таблицы users. Выведенный баланс — это снимок (или начальный баланс перед первой записью журнала)
+     * плюс устоявшиеся записи журнала после снимка: не выше {@code upperId} и созданные раньше {@code settledBefore}.
+     * Свежие записи в сумму не входят и вычитаются из баланса в users, а снимок продвигается только до последней
+     * устоявшейся записи: запись с меньшим id, зафиксированная позже, будет учтена при следующей сверке.
+     */
+    @Query(value = "SELECT u.id AS \"customerId\", u.points - COALESCE(d.fresh_sum, 0) AS \"balance\", " +
+            "COALESCE(s.balance, o.opening) + COALESCE(d.delta_sum, 0) AS \"derived\", " +
+            "d.last_id AS \"lastTransactionId\" " +
+            "FROM users u " +
+            "LEFT JOIN points_balance_snapshots s ON s.customer_id = u.id " +
+            "LEFT JOIN LATERAL (SELECT t.balance_after - t.delta AS opening FROM points_transactions t " +
+            "    WHERE t.customer_id = u.id ORDER BY t.id LIMIT 1) o ON s.customer_id IS NULL " +
+            "LEFT JOIN LATERAL (SELECT " +
+            "    SUM(t.delta) FILTER (WHERE t.id <= :upperId AND t.created_at < :settledBefore) AS delta_sum, " +
+            "    MAX(t.id) FILTER (WHERE t.id <= :upperId AND t.created_at < :settledBefore) AS last_id, " +
+            "    SUM(t.delta) FILTER (WHERE t.id > :upperId OR t.created_at >= :settledBefore) AS fresh_sum " +
+            "    FROM points_transactions t " +
+            "    WHERE t.customer_id = u.id AND t.id > COALESCE(s.last_transaction_id, 0)) d ON TRUE " +
+            "WHERE u.id IN (:customerIds)", nativeQuery = true)
+    List<LedgerCheck> checkBalances(@Param("customerIds") Collection<Long> customerIds,
+                                    @Param("upperId") long upperId,
+                                    @Param("settledBefore") Instant settledBefore);
+}
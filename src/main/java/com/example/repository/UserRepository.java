@@ -1,7 +1,13 @@
 package com.example.repository;
 
+import com.example.entity.BalanceChange;
+import com.example.entity.Recipient;
 import com.example.entity.User;
+import com.example.entity.UserProfile;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,5 +26,54 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findAllByIsAdminTrue();
 
+    @Query("select u.chatId from User u where u.isAdmin = true")
+    List<Long> findAdminChatIds();
+
+    /**
+     * Страница получателей рассылки после указанного id. Обход по индексу первичного ключа,
+     * поэтому каждая страница стоит одинаково, как бы далеко ни продвинулась рассылка.
+     */
+    @Query("select u.id as id, u.chatId as chatId from User u where u.id > :afterId order by u.id")
+    List<Recipient> findRecipientsAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query("select new com.example.entity.UserProfile(u.id, u.chatId, u.phoneNumber, u.points, u.isEmployee, u.isAdmin) " +
+            "from User u where u.chatId = :chatId")
+    Optional<UserProfile> findProfileByChatId(@Param("chatId") long chatId);
+
+    /**
+     * Начисляет баллы клиенту одним запросом, если начисляющий является сотрудником.
+     * Пустой результат означает, что клиент не найден или у начисляющего нет прав.
+     */
+    @Query(value = "WITH employee AS (SELECT id FROM users WHERE phone_key = :employeePhoneKey AND is_employee) " +
+            "UPDATE users u SET points = u.points + :points FROM employee e " +
+            "WHERE u.phone_key = :phoneKey " +
+            "RETURNING u.id, u.chat_id AS \"chatId\", u.points, CAST(:points AS INTEGER) AS \"delta\", " +
+            "e.id AS \"employeeId\"", nativeQuery = true)
+    Optional<BalanceChange> creditPoints(@Param("employeePhoneKey") long employeePhoneKey,
+                                         @Param("phoneKey") long phoneKey,
+                                         @Param("points") int points);
+
+    /**
+     * Списывает баллы одним запросом, если списывающий является сотрудником или администратором.
+     * Проверка достаточности баланса выполняется в условии WHERE,
+     * поэтому одновременные списания не могут увести баланс в минус.
+     * Пустой результат означает, что нет прав, клиент не найден или баллов недостаточно.
+     */
+    @Query(value = "WITH employee AS (SELECT id FROM users " +
+            "    WHERE phone_key = :employeePhoneKey AND (is_employee OR is_admin)) " +
+            "UPDATE users u SET points = u.points - :points FROM employee e " +
+            "WHERE u.phone_key = :phoneKey AND u.points >= :points " +
+            "RETURNING u.id, u.chat_id AS \"chatId\", u.points, -CAST(:points AS INTEGER) AS \"delta\", " +
+            "e.id AS \"employeeId\"", nativeQuery = true)
+    Optional<BalanceChange> debitPoints(@Param("employeePhoneKey") long employeePhoneKey,
+                                        @Param("phoneKey") long phoneKey,
+                                        @Param("points") int points);
+
+    @Query(value = "UPDATE users SET points = points - :points " +
+            "WHERE chat_id = :chatId AND points >= :points " +
+            "RETURNING id, chat_id AS \"chatId\", points, -CAST(:points AS INTEGER) AS \"delta\", " +
+            "CAST(NULL AS BIGINT) AS \"employeeId\"", nativeQuery = true)
+    Optional<BalanceChange> debitPointsByChatId(@Param("chatId") long chatId, @Param("points") int points);
+
 
 }
\ No newline at end of file
@@ -0,0 +1,280 @@
+package com.example.rules;
+
+import com.example.entity.LoyaltyRule;
+import com.example.entity.RuleKind;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Правила программы лояльности, скомпилированные в неизменяемую структуру для проверки без запросов к базе.
+ * <p>
+ * Множители и бонусы хранятся массивами окон действия и проверяются при каждой операции: это несколько сравнений
+ * чисел. У остальных правил время дня не задаётся, а даты действия проверяются при компиляции —
+ * правила перекомпилируются периодически, поэтому новые сутки подхватываются с задержкой не больше интервала.
+ * Без правил в базе списание ограничено 1–30 баллами, как было до появления правил.
+ */
+public final class CompiledRules {
+
+    static final int DEFAULT_REDEEM_MIN = 1;
+    static final int DEFAULT_REDEEM_MAX = 30;
+
+    private final ZoneId zone;
+    private final Window[] multipliers;
+    private final Window[] bonuses;
+    private final int accrualCap;
+    private final int redeemMin;
+    private final int redeemMax;
+    /** Пороги наград по возрастанию и названия наград с теми же индексами. */
+    private final int[] rewardThresholds;
+    private final String[] rewardTitles;
+    private final int ruleCount;
+    private final String description;
+
+    private CompiledRules(ZoneId zone, Window[] multipliers, Window[] bonuses, int accrualCap,
+                          int redeemMin, int redeemMax, int[] rewardThresholds, String[] rewardTitles,
+                          int ruleCount, String description) {
+        this.zone = zone;
+        this.multipliers = multipliers;
+        this.bonuses = bonuses;
+        this.accrualCap = accrualCap;
+        this.redeemMin = redeemMin;
+        this.redeemMax = redeemMax;
+        this.rewardThresholds = rewardThresholds;
+        this.rewardTitles = rewardTitles;
+        this.ruleCount = ruleCount;
+        this.description = description;
+    }
+
+    /**
+     * Компилирует включённые правила.
+     *
+     * @param rules правила из базы
+     * @param zone  часовой пояс кофейни, в котором заданы часы и даты правил
+     * @param today текущая дата в этом поясе, по ней отбираются правила без окна действия внутри дня
+     * @throws IllegalArgumentException если правила противоречат друг другу или заданы неверно
+     */
+    public static CompiledRules compile(List<LoyaltyRule> rules, ZoneId zone, LocalDate today) {
+        List<Window> multipliers = new ArrayList<>();
+        List<Window> bonuses = new ArrayList<>();
+        Map<RuleKind, Integer> limits = new EnumMap<>(RuleKind.class);
+        List<LoyaltyRule> rewards = new ArrayList<>();
+        StringBuilder description = new StringBuilder();
+
+        for (LoyaltyRule rule : rules) {
+            boolean windowed = rule.getKind() == RuleKind.MULTIPLIER || rule.getKind() == RuleKind.BONUS;
+            if (!windowed && (rule.getStartsAt() != null || rule.getEndsAt() != null)) {
+                throw invalid(rule, "часы действия задаются только для MULTIPLIER и BONUS");
+            }
+            if ((rule.getStartsAt() == null) != (rule.getEndsAt() == null)) {
+                throw invalid(rule, "нужно задать и начало, и конец часов действия");
+            }
+            if (rule.getAmount() < 0) {
+                throw invalid(rule, "значение не может быть отрицательным");
+            }
+            if (!windowed && !activeOn(rule, today)) {
+                continue;
+            }
+            switch (rule.getKind()) {
+                case MULTIPLIER -> {
+                    if (rule.getAmount() == 0) {
+                        throw invalid(rule, "множитель должен быть больше нуля");
+                    }
+                    multipliers.add(Window.of(rule));
+                }
+                case BONUS -> bonuses.add(Window.of(rule));
+                case ACCRUAL_CAP, REDEEM_MIN, REDEEM_MAX -> {
+                    if (limits.putIfAbsent(rule.getKind(), rule.getAmount()) != null) {
+                        throw invalid(rule, "правило " + rule.getKind() + " уже задано");
+                    }
+                }
+                case REWARD -> {
+                    if (rule.getTitle() == null || rule.getTitle().isBlank()) {
+                        throw invalid(rule, "у награды должно быть название");
+                    }
+                    rewards.add(rule);
+                }
+            }
+            describe(description, rule);
+        }
+
+        int redeemMin = Math.max(1, limits.getOrDefault(RuleKind.REDEEM_MIN, DEFAULT_REDEEM_MIN));
+        int redeemMax = limits.getOrDefault(RuleKind.REDEEM_MAX, DEFAULT_REDEEM_MAX);
+        if (redeemMin > redeemMax) {
+            throw new IllegalArgumentException("Минимум списания " + redeemMin + " больше максимума " + redeemMax + ".");
+        }
+        rewards.sort(Comparator.comparingInt(LoyaltyRule::getAmount));
+        int[] thresholds = new int[rewards.size()];
+        String[] titles = new String[rewards.size()];
+        for (int i = 0; i < thresholds.length; i++) {
+            thresholds[i] = rewards.get(i).getAmount();
+            titles[i] = rewards.get(i).getTitle();
+        }
+        return new CompiledRules(zone, multipliers.toArray(Window[]::new), bonuses.toArray(Window[]::new),
+                limits.getOrDefault(RuleKind.ACCRUAL_CAP, Integer.MAX_VALUE), redeemMin, redeemMax,
+                thresholds, titles, rules.size(), description.toString());
+    }
+
+    /**
+     * Считает, сколько баллов начислить за операцию: наибольший действующий множитель, затем действующие бонусы,
+     * затем ограничение на одно начисление.
+     *
+     * @param points баллы, введённые сотрудником
+     * @param at     время операции
+     */
+    public int accrual(int points, Instant at) {
+        long result = points;
+        if (points > 0 && (multipliers.length > 0 || bonuses.length > 0)) {
+            LocalDateTime local = LocalDateTime.ofInstant(at, zone);
+            int second = local.toLocalTime().toSecondOfDay();
+            long day = local.toLocalDate().toEpochDay();
+            int percent = -1;
+            for (Window multiplier : multipliers) {
+                if (multiplier.covers(second, day)) {
+                    percent = Math.max(percent, multiplier.amount);
+                }
+            }
+            if (percent >= 0) {
+                result = result * percent / 100;
+            }
+            for (Window bonus : bonuses) {
+                if (bonus.covers(second, day)) {
+                    result += bonus.amount;
+                }
+            }
+        }
+        return (int) Math.min(result, accrualCap);
+    }
+
+    /**
+     * Проверяет, что столько баллов можно списать за одну операцию.
+     *
+     * @throws IllegalArgumentException если количество вне допустимых пределов
+     */
+    public void checkRedemption(int points) {
+        if (!allowsRedemption(points)) {
+            throw new IllegalArgumentException(redemptionLimits());
+        }
+    }
+
+    public boolean allowsRedemption(int points) {
+        return points >= redeemMin && points <= redeemMax;
+    }
+
+    public String redemptionLimits() {
+        return "Количество баллов должно быть от " + redeemMin + " до " + redeemMax + ".";
+    }
+
+    public int redeemMin() {
+        return redeemMin;
+    }
+
+    public int redeemMax() {
+        return redeemMax;
+    }
+
+    /**
+     * Награда за наибольший порог, пройденный при изменении баланса с {@code before} до {@code after}.
+     */
+    public Optional<String> rewardReached(int before, int after) {
+        for (int i = rewardThresholds.length - 1; i >= 0; i--) {
+            if (before < rewardThresholds[i] && rewardThresholds[i] <= after) {
+                return Optional.of(rewardTitles[i]);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Текст акции по наградам; пусто, если награды не заданы.
+     */
+    public Optional<String> promotion() {
+        if (rewardThresholds.length == 0) {
+            return Optional.empty();
+        }
+        StringBuilder promotion = new StringBuilder("🎉 Акция! 🎉\n");
+        for (int i = 0; i < rewardThresholds.length; i++) {
+            promotion.append(rewardThresholds[i]).append(" баллов — ").append(rewardTitles[i]).append("!\n");
+        }
+        return Optional.of(promotion.toString());
+    }
+
+    /**
+     * Число включённых правил, из которых скомпилирована структура.
+     */
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * Действующие правила для администратора.
+     */
+    public String describe() {
+        return description.isEmpty()
+                ? "Правил нет, списание от " + redeemMin + " до " + redeemMax + " баллов.\n"
+                : description;
+    }
+
+    private static boolean activeOn(LoyaltyRule rule, LocalDate day) {
+        return (rule.getValidFrom() == null || !day.isBefore(rule.getValidFrom()))
+                && (rule.getValidUntil() == null || !day.isAfter(rule.getValidUntil()));
+    }
+
+    private static void describe(StringBuilder description, LoyaltyRule rule) {
+        description.append('#').append(rule.getId()).append(' ').append(switch (rule.getKind()) {
+            case MULTIPLIER -> "начисление ×" + rule.getAmount() / 100.0;
+            case BONUS -> "+" + rule.getAmount() + " баллов к начислению";
+            case ACCRUAL_CAP -> "не больше " + rule.getAmount() + " баллов за начисление";
+            case REDEEM_MIN -> "списание от " + rule.getAmount() + " баллов";
+            case REDEEM_MAX -> "списание до " + rule.getAmount() + " баллов";
+            case REWARD -> rule.getAmount() + " баллов — " + rule.getTitle();
+        });
+        if (rule.getStartsAt() != null) {
+            description.append(", ").append(rule.getStartsAt()).append('–').append(rule.getEndsAt());
+        }
+        if (rule.getValidFrom() != null || rule.getValidUntil() != null) {
+            description.append(", ").append(rule.getValidFrom() == null ? "…" : rule.getValidFrom())
+                    .append(" — ").append(rule.getValidUntil() == null ? "…" : rule.getValidUntil());
+        }
+        description.append('\n');
+    }
+
+    private static IllegalArgumentException invalid(LoyaltyRule rule, String reason) {
+        return new IllegalArgumentException("Правило #" + rule.getId() + ": " + reason + ".");
+    }
+
+    /**
+     * Окно действия множителя или бонуса: секунды внутри дня (конец не включается, окно может переходить
+     * через полночь) и дни эпохи включительно.
+     */
+    private record Window(int amount, int startSecond, int endSecond, long fromDay, long untilDay) {
+
+        static Window of(LoyaltyRule rule) {
+            return new Window(rule.getAmount(),
+                    rule.getStartsAt() == null ? 0 : rule.getStartsAt().toSecondOfDay(),
+                    rule.getEndsAt() == null ? 0 : rule.getEndsAt().toSecondOfDay(),
+                    rule.getValidFrom() == null ? Long.MIN_VALUE : rule.getValidFrom().toEpochDay(),
+                    rule.getValidUntil() == null ? Long.MAX_VALUE : rule.getValidUntil().toEpochDay());
+        }
+
+        boolean covers(int second, long day) {
+            if (day < fromDay || day > untilDay) {
+                return false;
+            }
+            if (startSecond == endSecond) {
+                return true;
+            }
+            return startSecond < endSecond
+                    ? second >= startSecond && second < endSecond
+                    : second >= startSecond || second < endSecond;
+        }
+    }
+}
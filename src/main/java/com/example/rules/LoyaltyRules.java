@@ -0,0 +1,87 @@
+package com.example.rules;
+
+import com.example.datasource.ReadFromPrimary;
+import com.example.repository.LoyaltyRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Действующие правила программы лояльности. Правила читаются из базы и компилируются один раз,
+ * операции с баллами берут готовую структуру без запросов. Новая структура подменяет старую целиком,
+ * поэтому операция видит либо старые, либо новые правила, но не их смесь.
+ * Правила перечитываются периодически и по команде администратора; ошибочные правила не применяются,
+ * продолжают действовать прежние. Правила общие для всех чатов, поэтому читаются только из основной базы.
+ */
+@Service
+@ReadFromPrimary
+public class LoyaltyRules {
+    private static final Logger logger = LoggerFactory.getLogger(LoyaltyRules.class);
+
+    private final LoyaltyRuleRepository ruleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ZoneId zone;
+    private final AtomicReference<CompiledRules> current = new AtomicReference<>();
+
+    public LoyaltyRules(LoyaltyRuleRepository ruleRepository, ApplicationEventPublisher eventPublisher,
+                        @Value("${bot.rules.zone:Europe/Moscow}") ZoneId zone) {
+        this.ruleRepository = ruleRepository;
+        this.eventPublisher = eventPublisher;
+        this.zone = zone;
+    }
+
+    /**
+     * Текущие скомпилированные правила; при первом обращении загружает их из базы.
+     */
+    public CompiledRules current() {
+        CompiledRules rules = current.get();
+        return rules != null ? rules : reload();
+    }
+
+    /**
+     * Перечитывает и компилирует правила на этом экземпляре.
+     *
+     * @throws IllegalArgumentException если правила в базе заданы неверно; действующие правила не меняются
+     */
+    public CompiledRules reload() {
+        CompiledRules compiled = CompiledRules.compile(ruleRepository.findByEnabledTrueOrderByIdAsc(), zone,
+                LocalDate.now(zone));
+        CompiledRules previous = current.getAndSet(compiled);
+        if (previous == null || previous.ruleCount() != compiled.ruleCount()) {
+            logger.info("Правила программы лояльности загружены: {}", compiled.ruleCount());
+        }
+        return compiled;
+    }
+
+    /**
+     * Перечитывает правила на всех экземплярах.
+     *
+     * @throws IllegalArgumentException если правила в базе заданы неверно
+     */
+    public CompiledRules reloadEverywhere() {
+        eventPublisher.publishEvent(new LoyaltyRulesChangedEvent());
+        return current();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRulesChanged(LoyaltyRulesChangedEvent event) {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${bot.rules.reload-interval:PT1M}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (IllegalArgumentException e) {
+            logger.error("Правила программы лояльности не обновлены: {}", e.getMessage());
+        }
+    }
+}
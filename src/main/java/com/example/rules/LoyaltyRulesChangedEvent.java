@@ -0,0 +1,8 @@
+package com.example.rules;
+
+/**
+ * Правила программы лояльности изменены в базе и должны быть перекомпилированы.
+ * В кластере событие доходит до всех экземпляров.
+ */
+public record LoyaltyRulesChangedEvent() {
+}
@@ -0,0 +1,66 @@
+package com.example.service;
+
+import com.example.datasource.ReadFromPrimary;
+import com.example.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Закэшированный список chatId администраторов.
+ * Перечитывается после изменения ролей и периодически — на случай назначения администратора напрямую в базе.
+ * Список общий для всех чатов, поэтому читается только из основной базы.
+ */
+@Component
+@ReadFromPrimary
+public class AdminRoster {
+    private static final Logger logger = LoggerFactory.getLogger(AdminRoster.class);
+
+    private final UserRepository userRepository;
+    private volatile List<Long> adminChatIds;
+
+    public AdminRoster(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Возвращает chatId всех администраторов.
+     */
+    public List<Long> getAdminChatIds() {
+        List<Long> snapshot = adminChatIds;
+        if (snapshot == null) {
+            snapshot = refresh();
+        }
+        return snapshot;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.rolesChanged()) {
+            adminChatIds = null;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCachesReset(UserCachesResetEvent event) {
+        adminChatIds = null;
+    }
+
+    @Scheduled(fixedDelayString = "${bot.admin-roster.refresh-interval:PT5M}")
+    public void scheduledRefresh() {
+        if (adminChatIds != null) {
+            refresh();
+        }
+    }
+
+    private List<Long> refresh() {
+        List<Long> loaded = List.copyOf(userRepository.findAdminChatIds());
+        adminChatIds = loaded;
+        logger.debug("Список администраторов обновлён: {}", loaded.size());
+        return loaded;
+    }
+}
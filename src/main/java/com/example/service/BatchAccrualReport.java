@@ -0,0 +1,72 @@
+package com.example.service;
+
+import com.example.entity.BalanceChange;
+
+import java.util.List;
+
+/**
+ * Итог пакетного начисления.
+ *
+ * @param credited начисления по принятым строкам
+ * @param rejected отклонённые строки и причины
+ */
+public record BatchAccrualReport(List<Credit> credited, List<Rejection> rejected) {
+
+    /**
+     * Сумма фактически начисленных баллов.
+     */
+    public long totalPoints() {
+        long total = 0;
+        for (Credit credit : credited) {
+            total += credit.delta();
+        }
+        return total;
+    }
+
+    /**
+     * Начисление клиенту по одной строке списка.
+     *
+     * @param lineNo      номер строки в списке или файле, с единицы
+     * @param phoneNumber номер клиента в каноническом виде
+     * @param delta       начислено по правилам программы
+     * @param points      новый баланс
+     */
+    public record Credit(long lineNo, String phoneNumber, Long id, Long chatId, int delta, int points, Long employeeId)
+            implements BalanceChange {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getChatId() {
+            return chatId;
+        }
+
+        @Override
+        public Integer getPoints() {
+            return points;
+        }
+
+        @Override
+        public Integer getDelta() {
+            return delta;
+        }
+
+        @Override
+        public Long getEmployeeId() {
+            return employeeId;
+        }
+    }
+
+    /**
+     * Строка, по которой ничего не начислено.
+     *
+     * @param lineNo номер строки в списке или файле, с единицы
+     * @param line   строка как есть
+     * @param reason причина
+     */
+    public record Rejection(long lineNo, String line, String reason) {
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.service;
+
+import com.example.entity.PointsTransaction;
+import com.example.phone.PhoneNumbers;
+import com.example.repository.PointsTransactionRepository;
+import com.example.rules.CompiledRules;
+import com.example.rules.LoyaltyRules;
+import com.example.service.BatchAccrualReport.Credit;
+import com.example.service.BatchAccrualReport.Rejection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Начисление баллов многим клиентам сразу — например, после заказа на мероприятие.
+ * Список строк {@code телефон баллы} (или CSV {@code телефон,баллы}) обрабатывается одной транзакцией:
+ * права сотрудника проверяются один раз, клиенты находятся одним запросом по phone_key,
+ * балансы меняются одним пакетом JDBC, журнал и итоги тоже пишутся пакетами.
+ * Строки с ошибками не мешают остальным и возвращаются в отчёте с причиной.
+ */
+@Service
+public class BatchAccrualService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchAccrualService.class);
+
+    // Строка сотрудника блокируется до конца транзакции: права не могут отозвать посреди пакета
+    private static final String EMPLOYEE = "SELECT id FROM users WHERE phone_key = ? AND is_employee FOR SHARE";
+
+    private static final String FIND_CUSTOMERS = "SELECT phone_key, id, chat_id FROM users WHERE phone_key = ANY (?)";
+
+    private static final String CREDIT = "UPDATE users SET points = points + ? WHERE id = ?";
+
+    private static final String BALANCES = "SELECT id, points FROM users WHERE id = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PointsTransactionRepository transactionRepository;
+    private final LoyaltyStats stats;
+    private final LoyaltyRules rules;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxLines;
+
+    public BatchAccrualService(JdbcTemplate jdbcTemplate, PointsTransactionRepository transactionRepository,
+                               LoyaltyStats stats, LoyaltyRules rules, ApplicationEventPublisher eventPublisher,
+                               @Value("${bot.batch.max-lines:500}") int maxLines) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionRepository = transactionRepository;
+        this.stats = stats;
+        this.rules = rules;
+        this.eventPublisher = eventPublisher;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Начисляет баллы по списку. Количество в каждой строке пересчитывается по правилам программы, как при
+     * обычном начислении. Первая строка без цифр считается заголовком и пропускается.
+     *
+     * @param employeePhoneNumber номер телефона сотрудника
+     * @param lines               строки {@code телефон баллы}; разделитель — пробел, табуляция, запятая или точка с запятой
+     * @param idempotencyKey      ключ операции для защиты от повторного выполнения, может быть null;
+     *                            в журнал строка пишется с ключом {@code ключ#номер_строки}
+     * @return начисления и отклонённые строки в порядке списка
+     * @throws IllegalArgumentException если у сотрудника нет прав или строк больше bot.batch.max-lines
+     * @throws IllegalStateException    если этот список уже начислен
+     */
+    @Transactional
+    public BatchAccrualReport addPoints(String employeePhoneNumber, Reader lines, String idempotencyKey)
+            throws IOException {
+        long employeeId = lockEmployee(employeePhoneNumber);
+
+        List<Line> accepted = new ArrayList<>();
+        List<Rejection> rejected = new ArrayList<>();
+        read(lines, accepted, rejected);
+        if (accepted.isEmpty()) {
+            return new BatchAccrualReport(List.of(), rejected);
+        }
+        // Все клиенты списка — одним запросом
+        Map<Long, long[]> customers = new HashMap<>();
+        jdbcTemplate.query(FIND_CUSTOMERS, rs -> {
+            customers.put(rs.getLong(1), new long[]{rs.getLong(2), rs.getLong(3)});
+        }, (Object) accepted.stream().map(Line::phoneKey).toArray(Long[]::new));
+
+        Instant now = Instant.now();
+        CompiledRules compiled = rules.current();
+        List<Pending> pending = new ArrayList<>(accepted.size());
+        for (Line line : accepted) {
+            long[] customer = customers.get(line.phoneKey());
+            if (customer == null) {
+                rejected.add(new Rejection(line.lineNo(), line.raw(), "клиент не найден"));
+            } else {
+                pending.add(new Pending(line, customer[0], customer[1], compiled.accrual(line.points(), now)));
+            }
+        }
+        if (pending.isEmpty()) {
+            rejected.sort(Comparator.comparingLong(Rejection::lineNo));
+            return new BatchAccrualReport(List.of(), rejected);
+        }
+        // Строки пакета фиксируются вместе, поэтому достаточно проверить ключ первой из них. Ключи пишутся
+        // только для найденных клиентов, поэтому проверяется первая строка к начислению, а не первая строка списка
+        if (idempotencyKey != null && transactionRepository.existsByIdempotencyKey(
+                lineKey(idempotencyKey, pending.get(0).line().lineNo()))) {
+            logger.warn("Повторный пакет начислений с ключом {} пропущен", idempotencyKey);
+            throw new IllegalStateException("Этот список уже начислен.");
+        }
+
+        // Строки клиентов блокируются по возрастанию id: параллельные пакеты с общими клиентами не зациклятся
+        pending.sort(Comparator.comparingLong(Pending::customerId));
+        List<Object[]> updates = new ArrayList<>(pending.size());
+        for (Pending credit : pending) {
+            updates.add(new Object[]{credit.delta(), credit.customerId()});
+        }
+        jdbcTemplate.batchUpdate(CREDIT, updates);
+
+        Map<Long, Integer> balances = new HashMap<>();
+        jdbcTemplate.query(BALANCES, rs -> {
+            balances.put(rs.getLong(1), rs.getInt(2));
+        }, (Object) pending.stream().map(Pending::customerId).toArray(Long[]::new));
+
+        List<Credit> credited = new ArrayList<>(pending.size());
+        List<PointsTransaction> ledger = new ArrayList<>(pending.size());
+        for (Pending credit : pending) {
+            int balance = balances.get(credit.customerId());
+            credited.add(new Credit(credit.line().lineNo(), PhoneNumbers.format(credit.line().phoneKey()),
+                    credit.customerId(), credit.chatId(), credit.delta(), balance, employeeId));
+            ledger.add(new PointsTransaction(credit.customerId(), employeeId, credit.delta(), balance, now,
+                    idempotencyKey == null ? null : lineKey(idempotencyKey, credit.line().lineNo())));
+        }
+        // Итоги — первыми: их запрос сбрасывает сессию, а вставки журнала уйдут пакетами при фиксации
+        stats.recordAccruals(employeeId, credited, now);
+        transactionRepository.saveAll(ledger);
+        for (Credit credit : credited) {
+            eventPublisher.publishEvent(new UserChangedEvent(credit.id(), credit.chatId(), false));
+        }
+
+        credited.sort(Comparator.comparingLong(Credit::lineNo));
+        rejected.sort(Comparator.comparingLong(Rejection::lineNo));
+        BatchAccrualReport report = new BatchAccrualReport(credited, rejected);
+        logger.info("Пакетное начисление сотрудником {}: клиентов {}, баллов {}, отклонено строк {}",
+                employeePhoneNumber, credited.size(), report.totalPoints(), rejected.size());
+        return report;
+    }
+
+    private long lockEmployee(String employeePhoneNumber) {
+        List<Long> employee = jdbcTemplate.queryForList(EMPLOYEE, Long.class, PhoneNumbers.toKey(employeePhoneNumber));
+        if (employee.isEmpty()) {
+            logger.warn("Попытка пакетного начисления баллов без прав: {}", employeePhoneNumber);
+            throw new IllegalArgumentException("Нет прав для начисления баллов.");
+        }
+        return employee.get(0);
+    }
+
+    /**
+     * Разбирает строки списка. Повтор номера отклоняется: одна строка на клиента,
+     * чтобы опечатка в списке не начислила баллы дважды.
+     */
+    private void read(Reader lines, List<Line> accepted, List<Rejection> rejected) throws IOException {
+        BufferedReader reader = lines instanceof BufferedReader buffered ? buffered : new BufferedReader(lines);
+        Map<Long, Long> firstLines = new HashMap<>();
+        long lineNo = 0;
+        int count = 0;
+        String raw;
+        while ((raw = reader.readLine()) != null) {
+            lineNo++;
+            if (lineNo == 1 && raw.startsWith("\uFEFF")) {
+                // Excel сохраняет CSV в UTF-8 с меткой порядка байтов
+                raw = raw.substring(1);
+            }
+            if (raw.isBlank() || (lineNo == 1 && raw.chars().noneMatch(Character::isDigit))) {
+                continue;
+            }
+            if (++count > maxLines) {
+                throw new IllegalArgumentException("В списке больше " + maxLines + " строк, разделите его на части.");
+            }
+            String line = raw.strip();
+            int split = lastSeparator(line);
+            if (split < 0) {
+                rejected.add(new Rejection(lineNo, line, "нет количества баллов"));
+                continue;
+            }
+            long phoneKey = PhoneNumbers.parse(trimField(line.substring(0, split)));
+            Integer points = parsePoints(trimField(line.substring(split + 1)));
+            if (phoneKey == PhoneNumbers.INVALID) {
+                rejected.add(new Rejection(lineNo, line, "неверный номер телефона"));
+            } else if (points == null) {
+                rejected.add(new Rejection(lineNo, line, "неверное количество баллов"));
+            } else {
+                Long first = firstLines.putIfAbsent(phoneKey, lineNo);
+                if (first != null) {
+                    rejected.add(new Rejection(lineNo, line, "номер повторяется в строке " + first));
+                } else {
+                    accepted.add(new Line(lineNo, line, phoneKey, points));
+                }
+            }
+        }
+    }
+
+    private static int lastSeparator(String line) {
+        for (int i = line.length() - 1; i >= 0; i--) {
+            if (isSeparator(line.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ',' || c == ';' || Character.isWhitespace(c);
+    }
+
+    /**
+     * Поле без кавычек и разделителей по краям.
+     */
+    private static String trimField(String field) {
+        int start = 0;
+        int end = field.length();
+        while (start < end && (field.charAt(start) == '"' || isSeparator(field.charAt(start)))) {
+            start++;
+        }
+        while (end > start && (field.charAt(end - 1) == '"' || isSeparator(field.charAt(end - 1)))) {
+            end--;
+        }
+        return field.substring(start, end);
+    }
+
+    private static Integer parsePoints(String text) {
+        if (text.isEmpty() || text.length() > 9) {
+            return null;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return null;
+            }
+        }
+        int points = Integer.parseInt(text);
+        return points > 0 ? points : null;
+    }
+
+    private static String lineKey(String idempotencyKey, long lineNo) {
+        return idempotencyKey + "#" + lineNo;
+    }
+
+    private record Line(long lineNo, String raw, long phoneKey, int points) {
+    }
+
+    private record Pending(Line line, long customerId, long chatId, int delta) {
+    }
+}
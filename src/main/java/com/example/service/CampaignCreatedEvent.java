@@ -0,0 +1,10 @@
+package com.example.service;
+
+/**
+ * Событие о запуске новой рассылки. Публикуется внутри транзакции; после её фиксации текущая акция перечитывается,
+ * а ведущий экземпляр начинает доставку.
+ *
+ * @param campaignId идентификатор рассылки
+ */
+public record CampaignCreatedEvent(long campaignId) {
+}
@@ -0,0 +1,94 @@
+package com.example.service;
+
+import com.example.entity.Campaign;
+import com.example.entity.CampaignStatus;
+import com.example.repository.CampaignRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Рекламные рассылки: создание, сохранение прогресса и текущая акция, которую бот показывает в справке.
+ */
+@Service
+public class CampaignService {
+
+    private final CampaignRepository campaignRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    // Текст последней рассылки: читается на каждую справку, меняется только при запуске новой рассылки
+    private volatile Optional<String> currentPromotion;
+
+    public CampaignService(CampaignRepository campaignRepository, ApplicationEventPublisher eventPublisher) {
+        this.campaignRepository = campaignRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Создаёт рассылку. Доставку после фиксации транзакции начинает {@code CampaignBroadcaster} ведущего экземпляра.
+     *
+     * @param createdBy chatId администратора, запустившего рассылку
+     * @param text      текст рассылки
+     * @return сохранённая рассылка
+     */
+    @Transactional
+    public Campaign create(long createdBy, String text) {
+        Campaign campaign = campaignRepository.save(new Campaign(text, createdBy, Instant.now()));
+        eventPublisher.publishEvent(new CampaignCreatedEvent(campaign.getId()));
+        return campaign;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Campaign> findRunning() {
+        return campaignRepository.findByStatusOrderByIdAsc(CampaignStatus.RUNNING);
+    }
+
+    /**
+     * Последние рассылки, новые первыми.
+     */
+    @Transactional(readOnly = true)
+    public List<Campaign> findRecent() {
+        return campaignRepository.findTop5ByOrderByIdDesc();
+    }
+
+    /**
+     * Сохраняет прогресс после очередной страницы получателей.
+     *
+     * @param lastUserId id последнего обработанного получателя
+     */
+    @Transactional
+    public void recordProgress(long campaignId, long lastUserId, long delivered, long failed, long blocked) {
+        campaignRepository.recordProgress(campaignId, lastUserId, delivered, failed, blocked);
+    }
+
+    @Transactional
+    public void complete(long campaignId) {
+        campaignRepository.complete(campaignId, Instant.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCampaignCreated(CampaignCreatedEvent event) {
+        currentPromotion = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCachesReset(UserCachesResetEvent event) {
+        currentPromotion = null;
+    }
+
+    /**
+     * Текст последней рассылки, если рассылки были.
+     */
+    public Optional<String> currentPromotion() {
+        Optional<String> promotion = currentPromotion;
+        if (promotion == null) {
+            promotion = campaignRepository.findFirstByOrderByIdDesc().map(Campaign::getText);
+            currentPromotion = promotion;
+        }
+        return promotion;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.service;
+
+/**
+ * Итог массовой загрузки клиентов.
+ *
+ * @param total    строк в файле (без заголовка)
+ * @param imported добавлено клиентов
+ * @param rejected отклонено строк: ошибки формата и повторы
+ */
+public record CustomerImportReport(long total, long imported, long rejected) {
+}
@@ -0,0 +1,235 @@
+package com.example.service;
+
+import com.example.phone.PhoneNumbers;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Массовая загрузка и выгрузка клиентов через протокол COPY PostgreSQL.
+ * Файл передаётся в базу потоком, без разбора в Java и без создания сущностей {@code User},
+ * поэтому объём не ограничен памятью приложения.
+ * <p>
+ * Загрузка: строки CSV {@code телефон,chatId,баллы} копируются во временную таблицу, там же проверяются
+ * (формат, повторы внутри файла, уже зарегистрированные номера и chatId), и корректные строки одним запросом
+ * добавляются в users. Номер приводится к каноническому виду ({@link PhoneNumbers}) при передаче строки в COPY. Отчёт об отклонённых строках выгружается тем же COPY.
+ * Записи в журнал операций не создаются: загруженный баланс считается начальным, как у баланса до первой операции.
+ */
+@Service
+public class CustomerTransferService {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerTransferService.class);
+
+    private static final String CREATE_STAGING =
+            "CREATE TEMP TABLE users_import (line_no BIGINT PRIMARY KEY, phone_key BIGINT, raw TEXT NOT NULL, " +
+            "chat_id BIGINT, points INT, problem TEXT) ON COMMIT DROP";
+
+    // Поля разбираются в базе, чтобы строка с неверным числом полей попала в отчёт, а не прервала COPY
+    private static final String PARSE =
+            "UPDATE users_import i SET chat_id = CASE WHEN p.chat ~ '^-?[0-9]{1,18}$' THEN p.chat::BIGINT END, " +
+            "    points = CASE WHEN p.pts ~ '^[0-9]{1,9}$' THEN p.pts::INT END, " +
+            "    problem = CASE WHEN p.fields <> 3 THEN 'неверное число полей' " +
+            "        WHEN i.phone_key IS NULL THEN 'неверный номер телефона' " +
+            "        WHEN p.chat !~ '^-?[0-9]{1,18}$' THEN 'неверный chatId' " +
+            "        WHEN p.pts !~ '^[0-9]{1,9}$' THEN 'неверное количество баллов' END " +
+            "FROM (SELECT line_no, cardinality(f) AS fields, btrim(f[2], ' \"') AS chat, btrim(f[3], ' \"') AS pts " +
+            "      FROM (SELECT line_no, regexp_split_to_array(raw, '[,;]') AS f FROM users_import) s) p " +
+            "WHERE p.line_no = i.line_no";
+
+    private static final String DUPLICATE_PHONE_IN_FILE =
+            "UPDATE users_import i SET problem = 'номер повторяется в строке ' || d.first_line " +
+            "FROM (SELECT line_no, min(line_no) OVER (PARTITION BY phone_key) AS first_line " +
+            "      FROM users_import WHERE problem IS NULL) d " +
+            "WHERE d.line_no = i.line_no AND d.first_line <> d.line_no";
+
+    private static final String DUPLICATE_CHAT_IN_FILE =
+            "UPDATE users_import i SET problem = 'chatId повторяется в строке ' || d.first_line " +
+            "FROM (SELECT line_no, min(line_no) OVER (PARTITION BY chat_id) AS first_line " +
+            "      FROM users_import WHERE problem IS NULL) d " +
+            "WHERE d.line_no = i.line_no AND d.first_line <> d.line_no";
+
+    private static final String REGISTERED_PHONE =
+            "UPDATE users_import i SET problem = 'номер уже зарегистрирован' " +
+            "FROM users u WHERE i.problem IS NULL AND u.phone_key = i.phone_key";
+
+    private static final String REGISTERED_CHAT =
+            "UPDATE users_import i SET problem = 'chatId уже зарегистрирован' " +
+            "FROM users u WHERE i.problem IS NULL AND u.chat_id = i.chat_id";
+
+    // Строки, которые успели зарегистрироваться параллельно с загрузкой, не вставляются и тоже попадают в отчёт
+    private static final String MERGE =
+            "WITH inserted AS (" +
+            "    INSERT INTO users (chat_id, phone_number, phone_key, points, is_employee, is_admin) " +
+            "    SELECT chat_id, '+' || phone_key, phone_key, points, FALSE, FALSE FROM users_import " +
+            "    WHERE problem IS NULL ORDER BY line_no " +
+            "    ON CONFLICT DO NOTHING RETURNING phone_key) " +
+            "UPDATE users_import i SET problem = 'зарегистрирован во время загрузки' " +
+            "WHERE i.problem IS NULL AND NOT EXISTS (SELECT 1 FROM inserted n WHERE n.phone_key = i.phone_key)";
+
+    private static final String COUNTS =
+            "SELECT count(*), count(*) FILTER (WHERE problem IS NULL) FROM users_import";
+
+    private static final String REPORT =
+            "COPY (SELECT line_no AS \"строка\", problem AS \"причина\", raw AS \"данные\" FROM users_import " +
+            "WHERE problem IS NOT NULL ORDER BY line_no) TO STDOUT WITH (FORMAT csv, HEADER)";
+
+    private static final String EXPORT =
+            "COPY (SELECT phone_number, chat_id, points, is_employee, is_admin FROM users ORDER BY id) " +
+            "TO STDOUT WITH (FORMAT csv, HEADER)";
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerTransferService(DataSource dataSource, ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Загружает клиентов из CSV. Первая строка без цифр считается заголовком и пропускается.
+     * Все строки загружаются в одной транзакции: либо добавляются все корректные строки, либо ничего.
+     *
+     * @param csv    строки {@code телефон,chatId,баллы}; разделитель — запятая или точка с запятой
+     * @param report куда записать CSV с отклонёнными строками и причинами
+     * @return итог загрузки
+     */
+    public CustomerImportReport importCustomers(Reader csv, Writer report) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+                statement.execute(CREATE_STAGING);
+                copyLines(copy, csv);
+                statement.execute("DELETE FROM users_import WHERE line_no = 1 AND raw !~ '[0-9]'");
+                statement.execute("ANALYZE users_import");
+                statement.executeUpdate(PARSE);
+                statement.executeUpdate(DUPLICATE_PHONE_IN_FILE);
+                statement.executeUpdate(DUPLICATE_CHAT_IN_FILE);
+                statement.executeUpdate(REGISTERED_PHONE);
+                statement.executeUpdate(REGISTERED_CHAT);
+                statement.executeUpdate(MERGE);
+
+                CustomerImportReport result;
+                try (ResultSet counts = statement.executeQuery(COUNTS)) {
+                    counts.next();
+                    long total = counts.getLong(1);
+                    long imported = counts.getLong(2);
+                    result = new CustomerImportReport(total, imported, total - imported);
+                }
+                if (result.rejected() > 0) {
+                    copy.copyOut(REPORT, report);
+                }
+                connection.commit();
+
+                // Среди загруженных могут быть те, кто уже писал боту: в кэше у них отмечено отсутствие профиля
+                eventPublisher.publishEvent(new UsersImportedEvent(result.imported()));
+                logger.info("Загрузка клиентов: строк {}, добавлено {}, отклонено {}",
+                        result.total(), result.imported(), result.rejected());
+                return result;
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Выгружает всех клиентов в CSV потоком, не загружая их в память.
+     *
+     * @param out куда записать CSV
+     * @return число выгруженных строк
+     */
+    public long exportCustomers(Writer out) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            long rows = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(EXPORT, out);
+            logger.info("Выгружено клиентов: {}", rows);
+            return rows;
+        }
+    }
+
+    /**
+     * Передаёт строки файла в COPY, добавляя к каждой номер строки для отчёта и канонический номер телефона
+     * из первого поля. Строка целиком уходит в одно текстовое поле, поэтому обратная косая черта и табуляция
+     * экранируются.
+     */
+    private static void copyLines(CopyManager copy, Reader csv) throws SQLException, IOException {
+        CopyIn copyIn = copy.copyIn("COPY users_import (line_no, phone_key, raw) FROM STDIN");
+        try {
+            BufferedReader reader = csv instanceof BufferedReader buffered ? buffered : new BufferedReader(csv);
+            StringBuilder row = new StringBuilder(128);
+            long lineNo = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (lineNo == 1 && line.startsWith("\uFEFF")) {
+                    // Excel сохраняет CSV в UTF-8 с меткой порядка байтов
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                row.setLength(0);
+                row.append(lineNo).append('\t');
+                long phoneKey = PhoneNumbers.parse(firstField(line));
+                if (phoneKey == PhoneNumbers.INVALID) {
+                    row.append("\\N");
+                } else {
+                    row.append(phoneKey);
+                }
+                row.append('\t');
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    switch (c) {
+                        case '\\' -> row.append("\\\\");
+                        case '\t' -> row.append("\\t");
+                        case '\r' -> { }
+                        default -> row.append(c);
+                    }
+                }
+                row.append('\n');
+                byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Первое поле строки CSV без кавычек; разделитель — запятая или точка с запятой, как при разборе в базе.
+     */
+    private static String firstField(String line) {
+        int end = 0;
+        while (end < line.length() && line.charAt(end) != ',' && line.charAt(end) != ';') {
+            end++;
+        }
+        int start = 0;
+        while (start < end && (line.charAt(start) == '"' || line.charAt(start) == ' ')) {
+            start++;
+        }
+        while (end > start && (line.charAt(end - 1) == '"' || line.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        return line.substring(start, end);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.service;
+
+import com.example.cluster.ClusterMembership;
+import com.example.datasource.ReadFromPrimary;
+import com.example.entity.LedgerCheck;
+import com.example.entity.PointsBalanceSnapshot;
+import com.example.entity.PointsTransaction;
+import com.example.repository.PointsBalanceSnapshotRepository;
+import com.example.repository.PointsTransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Фоновая сверка балансов с журналом операций.
+ * Каждый запуск берёт порцию новых записей журнала, пересчитывает балансы затронутых клиентов
+ * от последнего проверенного снимка и сохраняет новые снимки. Таблица users не блокируется.
+ * Сверка продолжает с собственных снимков, поэтому читает только из основной базы.
+ */
+@Component
+@ReadFromPrimary
+public class LedgerVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(LedgerVerifier.class);
+
+    private final PointsTransactionRepository transactionRepository;
+    private final PointsBalanceSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterMembership membership;
+    private final int chunkSize;
+    private final Duration settleDelay;
+    private final boolean enabled;
+
+    private long cursor = -1;
+    private long mismatches;
+
+    public LedgerVerifier(PointsTransactionRepository transactionRepository,
+                          PointsBalanceSnapshotRepository snapshotRepository,
+                          TransactionTemplate transactionTemplate,
+                          ClusterMembership membership,
+                          @Value("${bot.ledger.verify-chunk:500}") int chunkSize,
+                          @Value("${bot.ledger.settle-delay:1m}") Duration settleDelay,
+                          @Value("${bot.ledger.verify-enabled:true}") boolean enabled) {
+        this.transactionRepository = transactionRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.membership = membership;
+        this.chunkSize = chunkSize;
+        this.settleDelay = settleDelay;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${bot.ledger.verify-interval:PT1M}")
+    public synchronized void verifyNextChunk() {
+        if (!enabled) {
+            return;
+        }
+        // В кластере сверку ведёт один экземпляр; курсор перечитывается, когда ведущим становится этот
+        if (!membership.isLeader()) {
+            cursor = -1;
+            return;
+        }
+        if (cursor < 0) {
+            cursor = snapshotRepository.findMaxVerifiedTransactionId();
+        }
+        // Свежие записи пропускаем: идентификаторы выделяются блоками, и запись с меньшим id может ещё не быть зафиксирована
+        Instant settledBefore = Instant.now().minus(settleDelay);
+        List<PointsTransaction> entries = transactionRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(
+                cursor, settledBefore, Limit.of(chunkSize));
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Set<Long> customerIds = entries.stream()
+                .map(PointsTransaction::getCustomerId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        long upperId = entries.get(entries.size() - 1).getId();
+        // Сумма и снимок ограничены теми же записями, что и порция: свежие записи учтёт следующая сверка
+        transactionTemplate.executeWithoutResult(status -> verify(customerIds, upperId, settledBefore));
+        cursor = upperId;
+    }
+
+    private void verify(Set<Long> customerIds, long upperId, Instant settledBefore) {
+        Map<Long, PointsBalanceSnapshot> snapshots = snapshotRepository.findAllById(customerIds).stream()
+                .collect(Collectors.toMap(PointsBalanceSnapshot::getCustomerId, Function.identity()));
+        Instant now = Instant.now();
+
+        for (LedgerCheck check : transactionRepository.checkBalances(customerIds, upperId, settledBefore)) {
+            if (check.getDerived() == null || check.getLastTransactionId() == null) {
+                continue;
+            }
+            if (!check.getDerived().equals(check.getBalance())) {
+                mismatches++;
+                logger.error("Баланс клиента {} не сходится с журналом: в users {}, по журналу {}",
+                        check.getCustomerId(), check.getBalance(), check.getDerived());
+                continue;
+            }
+            PointsBalanceSnapshot snapshot = snapshots.get(check.getCustomerId());
+            boolean created = snapshot == null;
+            if (created) {
+                snapshot = new PointsBalanceSnapshot(check.getCustomerId());
+            }
+            snapshot.setBalance(check.getDerived());
+            snapshot.setLastTransactionId(check.getLastTransactionId());
+            snapshot.setVerifiedAt(now);
+            if (created) {
+                snapshotRepository.save(snapshot);
+            }
+        }
+    }
+
+    /**
+     * Количество расхождений, найденных с момента запуска.
+     */
+    public synchronized long getMismatchCount() {
+        return mismatches;
+    }
+}
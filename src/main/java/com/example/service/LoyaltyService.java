@@ -1,81 +1,195 @@
 package com.example.service;
 
+import com.example.entity.BalanceChange;
+import com.example.entity.PointsTransaction;
 import com.example.entity.User;
+import com.example.phone.PhoneNumbers;
+import com.example.repository.PointsTransactionRepository;
 import com.example.repository.UserRepository;
+import com.example.rules.LoyaltyRules;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+
 @Service
 public class LoyaltyService {
     private static final Logger logger = LoggerFactory.getLogger(LoyaltyService.class);
 
     private final UserRepository userRepository;
-
-    public LoyaltyService(UserRepository userRepository) {
+    private final UserLookup userLookup;
+    private final PointsTransactionRepository transactionRepository;
+    private final LoyaltyStats stats;
+    private final LoyaltyRules rules;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LoyaltyService(UserRepository userRepository, UserLookup userLookup,
+                          PointsTransactionRepository transactionRepository, LoyaltyStats stats, LoyaltyRules rules,
+                          ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.userLookup = userLookup;
+        this.transactionRepository = transactionRepository;
+        this.stats = stats;
+        this.rules = rules;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Начисляет баллы клиенту. Количество пересчитывается по правилам программы лояльности (множители, бонусы,
+     * ограничения). Проверка прав и изменение баланса выполняются одним запросом,
+     * запись в журнал операций — в той же транзакции.
+     *
+     * @param employeePhoneNumber номер телефона сотрудника
+     * @param userPhoneNumber     номер телефона клиента
+     * @param points              количество баллов, введённое сотрудником
+     * @param idempotencyKey      ключ операции для защиты от повторного выполнения, может быть null
+     * @return новый баланс клиента, его chatId и фактически начисленные баллы
+     * @throws IllegalArgumentException если у сотрудника нет прав или клиент не найден
+     * @throws IllegalStateException    если операция с таким ключом уже выполнена
+     */
     @Transactional
-    public void addPoints(String employeePhoneNumber, String userPhoneNumber, int points) {
+    public BalanceChange addPoints(String employeePhoneNumber, String userPhoneNumber, int points, String idempotencyKey) {
         if (points < 0) {
             throw new IllegalArgumentException("Количество баллов не может быть отрицательным.");
         }
+        long employeePhoneKey = PhoneNumbers.toKey(employeePhoneNumber);
+        long userPhoneKey = PhoneNumbers.toKey(userPhoneNumber);
+        rejectDuplicate(idempotencyKey);
+        Instant now = Instant.now();
+        int credited = rules.current().accrual(points, now);
+
+        BalanceChange change = userRepository.creditPoints(employeePhoneKey, userPhoneKey, credited)
+                .orElseThrow(() -> {
+                    // Сюда попадаем только при ошибке, поэтому уточняющие запросы не замедляют обычное начисление
+                    if (!isEmployee(employeePhoneKey)) {
+                        logger.warn("Попытка начисления баллов без прав: {}", employeePhoneNumber);
+                        return new IllegalArgumentException("Нет прав для начисления баллов.");
+                    }
+                    return new IllegalArgumentException("Пользователь не найден.");
+                });
+
+        record(change, idempotencyKey, now);
+        logger.info("Баллы успешно начислены пользователю: {}. Количество: {}", userPhoneNumber, credited);
+        return change;
+    }
 
-        if (!userRepository.existsByPhoneNumberAndIsEmployeeTrue(employeePhoneNumber)) {
-            logger.warn("Попытка начисления баллов без прав: {}", employeePhoneNumber);
-            throw new IllegalArgumentException("Нет прав для начисления баллов.");
-        }
-
-        User user = userRepository.findByPhoneNumber(userPhoneNumber)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден."));
+    @Transactional
+    public BalanceChange addPoints(String employeePhoneNumber, String userPhoneNumber, int points) {
+        return addPoints(employeePhoneNumber, userPhoneNumber, points, null);
+    }
 
-        user.addPoints(points);
-        userRepository.save(user);
-        logger.info("Баллы успешно начислены пользователю: {}. Количество: {}", userPhoneNumber, points);
+    /**
+     * Списывает баллы у клиента по номеру телефона. Права, баланс и списание проверяются одним запросом,
+     * запись в журнал операций — в той же транзакции.
+     *
+     * @param employeePhoneNumber номер телефона сотрудника или администратора
+     * @param userPhoneNumber     номер телефона клиента
+     * @param points              количество баллов
+     * @param idempotencyKey      ключ операции для защиты от повторного выполнения, может быть null
+     * @return новый баланс клиента и его chatId
+     * @throws IllegalArgumentException если нет прав, клиент не найден, баллов недостаточно
+     *                                  или количество вне пределов, заданных правилами
+     * @throws IllegalStateException    если операция с таким ключом уже выполнена
+     */
+    @Transactional
+    public BalanceChange redeemPoints(String employeePhoneNumber, String userPhoneNumber, int points,
+                                      String idempotencyKey) {
+        rules.current().checkRedemption(points);
+        long employeePhoneKey = PhoneNumbers.toKey(employeePhoneNumber);
+        long userPhoneKey = PhoneNumbers.toKey(userPhoneNumber);
+        rejectDuplicate(idempotencyKey);
+
+        BalanceChange change = userRepository.debitPoints(employeePhoneKey, userPhoneKey, points)
+                .orElseThrow(() -> {
+                    if (!isStaff(employeePhoneKey)) {
+                        logger.warn("Попытка списания баллов без прав: {}", employeePhoneNumber);
+                        return new IllegalArgumentException("Нет прав для списания баллов.");
+                    }
+                    return userLookup.findByPhoneKey(userPhoneKey).isPresent()
+                            ? new IllegalArgumentException("Недостаточно баллов для списания.")
+                            : new IllegalArgumentException("Пользователь не найден.");
+                });
+
+        record(change, idempotencyKey, Instant.now());
+        logger.info("{} баллов списаны у пользователя: {}", points, userPhoneNumber);
+        return change;
     }
 
     @Transactional
-    public void redeemPoints(long chatId, int points) {
-        User user = userRepository.findByChatId(chatId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден."));
+    public BalanceChange redeemPoints(long chatId, int points) {
+        rules.current().checkRedemption(points);
 
-        if (user.getPoints() < points) {
-            throw new IllegalArgumentException("Недостаточно баллов для списания.");
-        }
+        BalanceChange change = userRepository.debitPointsByChatId(chatId, points)
+                .orElseThrow(() -> userLookup.findByChatId(chatId).isPresent()
+                        ? new IllegalArgumentException("Недостаточно баллов для списания.")
+                        : new IllegalArgumentException("Пользователь не найден."));
 
-        user.subtractPoints(points);
-        userRepository.save(user);
+        record(change, null, Instant.now());
         logger.info("{} баллов списаны у пользователя с chatId: {}", points, chatId);
+        return change;
     }
 
+    private void rejectDuplicate(String idempotencyKey) {
+        if (idempotencyKey != null && transactionRepository.existsByIdempotencyKey(idempotencyKey)) {
+            logger.warn("Повторная операция с ключом {} пропущена", idempotencyKey);
+            throw new IllegalStateException("Эта операция уже выполнена.");
+        }
+    }
+
+    /**
+     * Записывает операцию в сводные итоги и в журнал и сообщает об изменении баланса.
+     * Итоги обновляются первыми: нативный запрос сбрасывает сессию, а запись журнала должна попасть в базу
+     * при сбросе сессии вместе с остальными вставками транзакции, пакетом.
+     */
+    private void record(BalanceChange change, String idempotencyKey, Instant now) {
+        stats.record(change, now);
+        transactionRepository.save(new PointsTransaction(change.getId(), change.getEmployeeId(), change.getDelta(),
+                change.getPoints(), now, idempotencyKey));
+        eventPublisher.publishEvent(new UserChangedEvent(change.getId(), change.getChatId(), false));
+    }
+
+    private boolean isEmployee(long phoneKey) {
+        return userLookup.findByPhoneKey(phoneKey).map(User::isEmployee).orElse(false);
+    }
+
+    private boolean isStaff(long phoneKey) {
+        return userLookup.findByPhoneKey(phoneKey).map(user -> user.isEmployee() || user.isAdmin()).orElse(false);
+    }
+
+    private boolean isAdmin(String phoneNumber) {
+        return userLookup.findByPhoneNumber(phoneNumber).map(User::isAdmin).orElse(false);
+    }
 
     @Transactional
     public void addEmployee(String adminPhoneNumber, String employeePhoneNumber) {
-        if (!userRepository.existsByPhoneNumberAndIsAdminTrue(adminPhoneNumber)) {
+        if (!isAdmin(adminPhoneNumber)) {
             logger.warn("Попытка добавления сотрудника без прав: {}", adminPhoneNumber);
             throw new IllegalArgumentException("Нет прав для добавления сотрудника.");
         }
 
-        User employee = userRepository.findByPhoneNumber(employeePhoneNumber)
+        User employee = userLookup.findByPhoneNumber(employeePhoneNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден."));
 
         employee.setEmployee(true);
         userRepository.save(employee);
+        eventPublisher.publishEvent(new UserChangedEvent(employee.getId(), employee.getChatId(), true));
         logger.info("Сотрудник добавлен: {}", employeePhoneNumber);
     }
     @Transactional
     public void removeEmployee(String adminPhoneNumber, String employeePhoneNumber) {
-        if (!userRepository.existsByPhoneNumberAndIsAdminTrue(adminPhoneNumber)) {
+        if (!isAdmin(adminPhoneNumber)) {
             logger.warn("Попытка добавления сотрудника без прав: {}", adminPhoneNumber);
             throw new IllegalArgumentException("Нет прав для добавления сотрудника.");
         }
-        User employee = userRepository.findByPhoneNumber(employeePhoneNumber)
+        User employee = userLookup.findByPhoneNumber(employeePhoneNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден."));
 
         employee.setEmployee(false);
         userRepository.save(employee);
+        eventPublisher.publishEvent(new UserChangedEvent(employee.getId(), employee.getChatId(), true));
         logger.info("Сотрудник удален: {}", employeePhoneNumber);
     }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.example.service;
+
+import com.example.entity.BalanceChange;
+import com.example.entity.CustomerTotal;
+import com.example.entity.EmployeeDailyTotal;
+import com.example.entity.EmployeeTotal;
+import com.example.repository.CustomerMonthlyTotalRepository;
+import com.example.repository.EmployeeDailyTotalRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сводные итоги по баллам: по сотрудникам за день и по клиентам за месяц.
+ * Итоги обновляются в транзакции каждой операции с баллами, отчёты читают только готовые строки итогов.
+ * Дни и месяцы считаются в часовом поясе кофейни (bot.stats.zone).
+ */
+@Service
+public class LoyaltyStats {
+
+    // Тот же запрос, что CustomerMonthlyTotalRepository.accumulate, для пакетной отправки через JDBC
+    private static final String ACCUMULATE_MONTHLY =
+            "INSERT INTO customer_monthly_totals (month, customer_id, earned, redeemed) VALUES (?, ?, ?, 0) " +
+            "ON CONFLICT (month, customer_id) DO UPDATE SET " +
+            "earned = customer_monthly_totals.earned + EXCLUDED.earned";
+
+    private final EmployeeDailyTotalRepository dailyTotals;
+    private final CustomerMonthlyTotalRepository monthlyTotals;
+    private final JdbcTemplate jdbcTemplate;
+    private final ZoneId zone;
+
+    public LoyaltyStats(EmployeeDailyTotalRepository dailyTotals, CustomerMonthlyTotalRepository monthlyTotals,
+                        JdbcTemplate jdbcTemplate, @Value("${bot.stats.zone:Europe/Moscow}") ZoneId zone) {
+        this.dailyTotals = dailyTotals;
+        this.monthlyTotals = monthlyTotals;
+        this.jdbcTemplate = jdbcTemplate;
+        this.zone = zone;
+    }
+
+    /**
+     * Учитывает операцию с баллами. Вызывается в транзакции операции, поэтому итоги не расходятся с журналом.
+     *
+     * @param change результат изменения баланса
+     * @param at     время операции
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(BalanceChange change, Instant at) {
+        LocalDate day = LocalDate.ofInstant(at, zone);
+        long earned = Math.max(change.getDelta(), 0);
+        long redeemed = Math.max(-change.getDelta(), 0);
+        long employeeId = change.getEmployeeId() == null ? EmployeeDailyTotal.SELF_SERVICE : change.getEmployeeId();
+        dailyTotals.accumulate(day, employeeId, earned, redeemed, 1);
+        monthlyTotals.accumulate(day.withDayOfMonth(1), change.getId(), earned, redeemed);
+    }
+
+    /**
+     * Учитывает пакет начислений одного сотрудника: итог сотрудника обновляется одним запросом,
+     * итоги клиентов — одним пакетом JDBC.
+     *
+     * @param employeeId id сотрудника
+     * @param changes    начисления, у каждого клиента не больше одного
+     * @param at         время операции
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAccruals(long employeeId, List<? extends BalanceChange> changes, Instant at) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        LocalDate day = LocalDate.ofInstant(at, zone);
+        Date month = Date.valueOf(day.withDayOfMonth(1));
+        long earned = 0;
+        List<Object[]> rows = new ArrayList<>(changes.size());
+        for (BalanceChange change : changes) {
+            earned += change.getDelta();
+            rows.add(new Object[]{month, change.getId(), (long) change.getDelta()});
+        }
+        dailyTotals.accumulate(day, employeeId, earned, 0, changes.size());
+        jdbcTemplate.batchUpdate(ACCUMULATE_MONTHLY, rows);
+    }
+
+    /**
+     * Сегодняшний день в часовом поясе кофейни.
+     */
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    /**
+     * Итоги сотрудников за день, по убыванию начисленных баллов.
+     */
+    @Transactional(readOnly = true)
+    public List<EmployeeTotal> employeeTotals(LocalDate day) {
+        return dailyTotals.findByDay(day);
+    }
+
+    /**
+     * Клиенты с наибольшим числом начисленных баллов за месяц, которому принадлежит день.
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerTotal> topCustomers(LocalDate day, int limit) {
+        return monthlyTotals.findTop(day.withDayOfMonth(1), limit);
+    }
+}
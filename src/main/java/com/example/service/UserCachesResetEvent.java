@@ -0,0 +1,8 @@
+package com.example.service;
+
+/**
+ * Событие о том, что любые закэшированные данные пользователей могли устареть,
+ * например, экземпляр пропустил уведомления других экземпляров кластера. Подписчики сбрасывают кэши целиком.
+ */
+public record UserCachesResetEvent() {
+}
@@ -0,0 +1,12 @@
+package com.example.service;
+
+/**
+ * Событие об изменении данных пользователя (регистрация, баллы, роли).
+ * Публикуется сервисами внутри транзакции; подписчики сбрасывают кэши после её фиксации.
+ *
+ * @param userId      идентификатор изменённого пользователя
+ * @param chatId      идентификатор чата изменённого пользователя
+ * @param rolesChanged изменились ли роли пользователя
+ */
+public record UserChangedEvent(long userId, long chatId, boolean rolesChanged) {
+}
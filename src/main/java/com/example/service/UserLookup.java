@@ -0,0 +1,104 @@
+package com.example.service;
+
+import com.example.datasource.ReadFromPrimary;
+import com.example.entity.User;
+import com.example.phone.PhoneNumbers;
+import com.example.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Поиск пользователей по номеру телефона и chatId через кэш второго уровня Hibernate.
+ * <p>
+ * Канонический номер телефона — натуральный ключ {@link User}: Hibernate держит отображение «номер → id» в кэше натуральных ключей,
+ * а саму сущность — в кэше сущностей. Натуральный ключ у сущности может быть только один, поэтому для chatId
+ * отображение «chatId → id» хранится здесь же; chatId пользователя не меняется, так что запись не устаревает.
+ * <p>
+ * Изменения через сущность Hibernate сбрасывает сам. Нативные запросы (начисление и списание баллов) кэш обходят,
+ * поэтому запись сбрасывается по {@link UserChangedEvent} после фиксации транзакции.
+ * <p>
+ * Кэш общий для всех чатов, поэтому при его заполнении пользователи читаются только из основной базы.
+ */
+@Component
+@ReadFromPrimary
+public class UserLookup {
+
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserRepository userRepository;
+    private final Cache<Long, Long> idsByChatId;
+
+    public UserLookup(EntityManager entityManager, EntityManagerFactory entityManagerFactory,
+                      UserRepository userRepository,
+                      @Value("${bot.user-lookup.max-entries:10000}") long maxEntries) {
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.userRepository = userRepository;
+        this.idsByChatId = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    /**
+     * Ищет пользователя по номеру телефона в любой записи.
+     *
+     * @param phoneNumber номер телефона
+     * @return пользователь, если найден
+     * @throws IllegalArgumentException если номер не распознан
+     */
+    @Transactional(readOnly = true)
+    public Optional<User> findByPhoneNumber(String phoneNumber) {
+        return findByPhoneKey(PhoneNumbers.toKey(phoneNumber));
+    }
+
+    /**
+     * Ищет пользователя по каноническому номеру телефона.
+     *
+     * @param phoneKey номер в формате E.164 числом
+     * @return пользователь, если найден
+     */
+    @Transactional(readOnly = true)
+    public Optional<User> findByPhoneKey(long phoneKey) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(phoneKey);
+    }
+
+    /**
+     * Ищет пользователя по chatId.
+     *
+     * @param chatId идентификатор чата пользователя
+     * @return пользователь, если найден
+     */
+    @Transactional(readOnly = true)
+    public Optional<User> findByChatId(long chatId) {
+        Long id = idsByChatId.getIfPresent(chatId);
+        if (id != null) {
+            User user = entityManager.find(User.class, id);
+            if (user != null) {
+                return Optional.of(user);
+            }
+            idsByChatId.invalidate(chatId);
+        }
+        Optional<User> user = userRepository.findByChatId(chatId);
+        user.ifPresent(found -> idsByChatId.put(chatId, found.getId()));
+        return user;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        entityManagerFactory.getCache().evict(User.class, event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCachesReset(UserCachesResetEvent event) {
+        entityManagerFactory.getCache().evict(User.class);
+    }
+}
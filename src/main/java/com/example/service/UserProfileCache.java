@@ -0,0 +1,94 @@
+package com.example.service;
+
+import com.example.entity.UserProfile;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * Кэш профилей пользователей по chatId.
+ * Хранит и отсутствие профиля, чтобы незарегистрированные пользователи не обращались к базе на каждое сообщение.
+ * Записи сбрасываются по событию {@link UserChangedEvent} после фиксации транзакции.
+ */
+@Component
+public class UserProfileCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileCache.class);
+
+    private final Cache<Long, Optional<UserProfile>> profiles;
+    private long lastLoggedRequests;
+
+    public UserProfileCache(@Value("${bot.profile-cache.ttl:5m}") Duration ttl,
+                            @Value("${bot.profile-cache.max-entries:10000}") long maxEntries) {
+        this.profiles = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает профиль из кэша или загружает его.
+     *
+     * @param chatId идентификатор чата пользователя
+     * @param loader загрузка профиля из базы при промахе
+     * @return профиль пользователя
+     */
+    public Optional<UserProfile> get(long chatId, LongFunction<Optional<UserProfile>> loader) {
+        return profiles.get(chatId, key -> loader.apply(key));
+    }
+
+    public void invalidate(long chatId) {
+        profiles.invalidate(chatId);
+    }
+
+    public void invalidateAll() {
+        profiles.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.chatId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersImported(UsersImportedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCachesReset(UserCachesResetEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * Статистика попаданий и промахов кэша.
+     */
+    public CacheStats stats() {
+        return profiles.stats();
+    }
+
+    public long size() {
+        return profiles.estimatedSize();
+    }
+
+    @Scheduled(fixedDelayString = "${bot.profile-cache.stats-interval:PT5M}")
+    public void logStats() {
+        CacheStats stats = profiles.stats();
+        if (stats.requestCount() == lastLoggedRequests) {
+            return;
+        }
+        lastLoggedRequests = stats.requestCount();
+        logger.info("Кэш профилей: попаданий {}, промахов {}, доля попаданий {}, вытеснено {}",
+                stats.hitCount(), stats.missCount(), String.format("%.2f", stats.hitRate()), stats.evictionCount());
+    }
+}
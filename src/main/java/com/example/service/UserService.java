@@ -1,15 +1,17 @@
 package com.example.service;
 
 import com.example.entity.User;
+import com.example.entity.UserProfile;
+import com.example.phone.PhoneNumbers;
 import com.example.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Сервис для управления пользователями.
@@ -18,9 +20,42 @@ import java.util.stream.Collectors;
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
+    private final UserLookup userLookup;
+    private final UserProfileCache profileCache;
+    private final AdminRoster adminRoster;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserLookup userLookup, UserProfileCache profileCache, AdminRoster adminRoster,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.userLookup = userLookup;
+        this.profileCache = profileCache;
+        this.adminRoster = adminRoster;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Возвращает профиль пользователя (номер телефона, баллы и роли), загружая его одним запросом.
+     *
+     * @param chatId идентификатор чата пользователя
+     * @return профиль пользователя, если он зарегистрирован
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserProfile> findProfile(long chatId) {
+        return profileCache.get(chatId, userRepository::findProfileByChatId);
+    }
+
+    /**
+     * Возвращает профиль зарегистрированного пользователя.
+     *
+     * @param chatId идентификатор чата пользователя
+     * @return профиль пользователя
+     * @throws IllegalArgumentException если пользователь не найден
+     */
+    @Transactional(readOnly = true)
+    public UserProfile getProfile(long chatId) {
+        return findProfile(chatId)
+                .orElseThrow(() -> new IllegalArgumentException("Пользователь с таким chatId не найден."));
     }
 
     /**
@@ -29,8 +64,9 @@ public class UserService {
      * @param chatId идентификатор чата пользователя
      * @return true, если пользователь зарегистрирован; иначе false
      */
+    @Transactional(readOnly = true)
     public boolean isRegistered(long chatId) {
-        return userRepository.findByChatId(chatId).isPresent();
+        return findProfile(chatId).isPresent();
     }
 
     /**
@@ -39,26 +75,29 @@ public class UserService {
      * @param phoneNumber номер телефона для проверки
      * @return true, если номер телефона зарегистрирован; иначе false
      */
+    @Transactional(readOnly = true)
     public boolean isPhoneNumberRegistered(String phoneNumber) {
-        return userRepository.existsByPhoneNumber(phoneNumber);
+        return userLookup.findByPhoneNumber(phoneNumber).isPresent();
     }
 
     /**
-     * Регистрация нового пользователя.
+     * Регистрация нового пользователя. Номер сохраняется в каноническом виде E.164.
      *
      * @param chatId идентификатор чата пользователя
-     * @param phoneNumber номер телефона пользователя
-     * @throws IllegalArgumentException если номер телефона уже зарегистрирован
+     * @param phoneNumber номер телефона пользователя в любой записи
+     * @throws IllegalArgumentException если номер не распознан или уже зарегистрирован
      */
     @Transactional
     public void registerUser(long chatId, String phoneNumber) {
-        if (isPhoneNumberRegistered(phoneNumber)) {
+        long phoneKey = PhoneNumbers.toKey(phoneNumber);
+        if (userLookup.findByPhoneKey(phoneKey).isPresent()) {
             logger.warn("Попытка регистрации с уже зарегистрированным номером: {}", phoneNumber);
             throw new IllegalArgumentException("Номер телефона уже зарегистрирован.");
         }
 
-        User user = new User(chatId, phoneNumber, false, false, 0);
+        User user = new User(chatId, PhoneNumbers.format(phoneKey), false, false, 0);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), chatId, false));
         logger.info("Пользователь с chatId {} и номером телефона {} успешно зарегистрирован.", chatId, phoneNumber);
     }
 
@@ -68,8 +107,9 @@ public class UserService {
      * @param phoneNumber номер телефона пользователя
      * @return true, если пользователь является сотрудником; иначе false
      */
+    @Transactional(readOnly = true)
     public boolean isEmployee(String phoneNumber) {
-        return userRepository.existsByPhoneNumberAndIsEmployeeTrue(phoneNumber);
+        return userLookup.findByPhoneNumber(phoneNumber).map(User::isEmployee).orElse(false);
     }
 
     /**
@@ -78,8 +118,9 @@ public class UserService {
      * @param phoneNumber номер телефона пользователя
      * @return true, если пользователь является администратором; иначе false
      */
+    @Transactional(readOnly = true)
     public boolean isAdmin(String phoneNumber) {
-        return userRepository.existsByPhoneNumberAndIsAdminTrue(phoneNumber);
+        return userLookup.findByPhoneNumber(phoneNumber).map(User::isAdmin).orElse(false);
     }
 
     /**
@@ -89,10 +130,11 @@ public class UserService {
      * @return количество баллов пользователя
      * @throws IllegalArgumentException если пользователь не найден
      */
+    @Transactional(readOnly = true)
     public int getUserPoints(long chatId) {
-        User user = userRepository.findByChatId(chatId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден."));
-        return user.getPoints();
+        return findProfile(chatId)
+                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден."))
+                .points();
     }
 
     /**
@@ -102,21 +144,24 @@ public class UserService {
      * @return номер телефона пользователя
      * @throws IllegalArgumentException если пользователь не найден
      */
+    @Transactional(readOnly = true)
     public String getPhoneNumberByChatId(long chatId) {
-        return userRepository.findByChatId(chatId)
-                .map(User::getPhoneNumber)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь с таким chatId не найден."));
+        return getProfile(chatId).phoneNumber();
     }
 
+    @Transactional(readOnly = true)
     public long getChatIdByPhoneNumber(String phoneNumber) {
-        User user = userRepository.findByPhoneNumber(phoneNumber)
+        User user = userLookup.findByPhoneNumber(phoneNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Пользователь с таким номером телефона не найден."));
         return user.getChatId(); // Предполагается, что у пользователя есть метод getChatId
     }
+    /**
+     * Возвращает chatId всех администраторов из закэшированного списка.
+     *
+     * @return chatId администраторов
+     */
+    @Transactional(readOnly = true)
     public List<Long> getAdminChatIds() {
-        return userRepository.findAllByIsAdminTrue()
-                .stream()
-                .map(User::getChatId) // Предполагается, что getChatId возвращает long
-                .collect(Collectors.toList());
+        return adminRoster.getAdminChatIds();
     }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.service;
+
+/**
+ * Событие о загрузке клиентов из файла. Публикуется после фиксации загрузки; подписчики сбрасывают кэши целиком.
+ *
+ * @param imported число добавленных пользователей
+ */
+public record UsersImportedEvent(long imported) {
+}
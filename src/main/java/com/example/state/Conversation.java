@@ -0,0 +1,16 @@
+package com.example.state;
+
+import com.example.entity.UserState;
+
+/**
+ * Состояние незавершённого диалога с пользователем: текущий шаг и данные, собранные на предыдущих шагах.
+ *
+ * @param state текущий шаг диалога
+ * @param data  промежуточные данные (например, номер телефона клиента), может быть null
+ */
+public record Conversation(UserState state, String data) {
+
+    public static Conversation of(UserState state) {
+        return new Conversation(state, null);
+    }
+}
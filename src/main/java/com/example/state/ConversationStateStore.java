@@ -0,0 +1,38 @@
+package com.example.state;
+
+import java.util.Optional;
+
+/**
+ * Хранилище состояний многошаговых диалогов, по одной записи на чат.
+ * Реализации обязаны быть потокобезопасными и удалять записи, к которым давно не обращались.
+ */
+public interface ConversationStateStore {
+
+    /**
+     * Возвращает текущий диалог чата, если он есть и ещё не истёк.
+     *
+     * @param chatId идентификатор чата пользователя
+     * @return состояние диалога
+     */
+    Optional<Conversation> get(long chatId);
+
+    /**
+     * Сохраняет состояние диалога, заменяя предыдущее.
+     *
+     * @param chatId       идентификатор чата пользователя
+     * @param conversation новое состояние диалога
+     */
+    void put(long chatId, Conversation conversation);
+
+    /**
+     * Завершает диалог чата.
+     *
+     * @param chatId идентификатор чата пользователя
+     */
+    void remove(long chatId);
+
+    /**
+     * Возвращает приблизительное количество незавершённых диалогов.
+     */
+    long size();
+}
@@ -0,0 +1,51 @@
+package com.example.state;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Хранилище состояний диалогов в памяти процесса.
+ * Записи удаляются после периода бездействия, а общее их число ограничено сверху.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryConversationStateStore implements ConversationStateStore {
+
+    private final Cache<Long, Conversation> conversations;
+
+    public InMemoryConversationStateStore(@Value("${bot.state.idle-timeout:30m}") Duration idleTimeout,
+                                          @Value("${bot.state.max-entries:10000}") long maxEntries) {
+        this.conversations = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxEntries)
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+    @Override
+    public Optional<Conversation> get(long chatId) {
+        return Optional.ofNullable(conversations.getIfPresent(chatId));
+    }
+
+    @Override
+    public void put(long chatId, Conversation conversation) {
+        conversations.put(chatId, conversation);
+    }
+
+    @Override
+    public void remove(long chatId) {
+        conversations.invalidate(chatId);
+    }
+
+    @Override
+    public long size() {
+        return conversations.estimatedSize();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.state;
+
+import com.example.datasource.ReadFromPrimary;
+import com.example.entity.ConversationState;
+import com.example.repository.ConversationStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Хранилище состояний диалогов в таблице conversation_states.
+ * Незавершённые диалоги переживают перезапуск бота; просроченные записи удаляются по расписанию.
+ * Следующий шаг диалога читает то, что записал предыдущий, поэтому чтения идут только в основную базу.
+ */
+@Component
+@ReadFromPrimary
+@ConditionalOnProperty(name = "bot.state.store", havingValue = "jpa")
+public class JpaConversationStateStore implements ConversationStateStore {
+    private static final Logger logger = LoggerFactory.getLogger(JpaConversationStateStore.class);
+
+    private final ConversationStateRepository repository;
+    private final Duration idleTimeout;
+
+    public JpaConversationStateStore(ConversationStateRepository repository,
+                                     @Value("${bot.state.idle-timeout:30m}") Duration idleTimeout) {
+        this.repository = repository;
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public Optional<Conversation> get(long chatId) {
+        Instant threshold = Instant.now().minus(idleTimeout);
+        return repository.findById(chatId)
+                .filter(stored -> stored.getUpdatedAt().isAfter(threshold))
+                .map(stored -> new Conversation(stored.getState(), stored.getData()));
+    }
+
+    @Override
+    public void put(long chatId, Conversation conversation) {
+        repository.save(new ConversationState(chatId, conversation.state(), conversation.data(), Instant.now()));
+    }
+
+    @Override
+    public void remove(long chatId) {
+        repository.deleteByChatId(chatId);
+    }
+
+    @Override
+    public long size() {
+        return repository.count();
+    }
+
+    /**
+     * Удаляет диалоги, брошенные пользователями на полпути.
+     */
+    @Scheduled(fixedDelayString = "${bot.state.purge-interval:PT1M}")
+    public void purgeIdle() {
+        int removed = repository.deleteIdleBefore(Instant.now().minus(idleTimeout));
+        if (removed > 0) {
+            logger.info("Удалено просроченных диалогов: {}", removed);
+        }
+    }
+}
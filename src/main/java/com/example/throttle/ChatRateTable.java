@@ -0,0 +1,121 @@
+package com.example.throttle;
+
+import java.util.Arrays;
+
+/**
+ * Корзины токенов многих чатов в плоских массивах, без объекта на чат.
+ * <p>
+ * Корзина хранится одной отметкой времени по алгоритму GCRA: это та же корзина токенов, только вместо
+ * числа токенов и времени пополнения хранится момент, когда корзина снова станет полной.
+ * Таблица разбита на наборы по {@link #WAYS} ячеек; чат, которому не нашлось места в своём наборе,
+ * вытесняет ячейку с самой ранней отметкой. Раньше всех вытесняются чаты с уже полной корзиной,
+ * для них вытеснение ничего не меняет; при нехватке места вытесненный чат получает полную корзину заново.
+ */
+final class ChatRateTable {
+
+    static final int WAYS = 8;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int LOCKS = 64;
+
+    private final long[] chats;
+    /** Момент (System.nanoTime), когда корзина чата снова полна. */
+    private final long[] fullAt;
+    /** Отказ уже объяснён чату ответом: следующие отказы до первого принятого обновления молчаливые. */
+    private final boolean[] notified;
+    private final int setMask;
+    private final Object[] locks = new Object[LOCKS];
+    private final long interval;
+    private final long burstNanos;
+
+    /**
+     * @param ratePerSecond пополнение корзины чата, обновлений в секунду
+     * @param burst         ёмкость корзины чата
+     * @param capacity      сколько чатов помнить одновременно; округляется вверх до степени двойки
+     */
+    ChatRateTable(double ratePerSecond, double burst, int capacity) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Скорость и ёмкость корзины токенов должны быть положительными.");
+        }
+        int sets = Integer.highestOneBit(Math.max(1, (capacity + WAYS - 1) / WAYS - 1)) << 1;
+        this.setMask = sets - 1;
+        this.chats = new long[sets * WAYS];
+        this.fullAt = new long[sets * WAYS];
+        this.notified = new boolean[sets * WAYS];
+        Arrays.fill(chats, EMPTY);
+        for (int i = 0; i < LOCKS; i++) {
+            locks[i] = new Object();
+        }
+        this.interval = Math.max(1, (long) (1_000_000_000d / ratePerSecond));
+        this.burstNanos = (long) (burst * interval);
+    }
+
+    /**
+     * Забирает токен чата, а затем общий.
+     *
+     * @param chatId идентификатор чата
+     * @param global общая корзина экземпляра или null
+     * @param now    System.nanoTime()
+     * @return итог проверки
+     */
+    Admission acquire(long chatId, TokenBucket global, long now) {
+        int set = (int) mix(chatId) & setMask;
+        synchronized (locks[set & (LOCKS - 1)]) {
+            int slot = slotOf(chatId, set, now);
+            // Корзина полна к моменту fullAt; ещё один токен есть, пока fullAt не ушёл дальше ёмкости от now
+            long full = Math.max(fullAt[slot], now);
+            Admission admission;
+            if (full + interval - now > burstNanos) {
+                admission = Admission.CHAT_LIMIT;
+            } else if (global != null && !global.tryAcquire()) {
+                admission = Admission.GLOBAL_LIMIT;
+            } else {
+                fullAt[slot] = full + interval;
+                notified[slot] = false;
+                return Admission.ACCEPTED;
+            }
+            if (notified[slot]) {
+                return admission;
+            }
+            notified[slot] = true;
+            return admission == Admission.CHAT_LIMIT ? Admission.CHAT_LIMIT_NOTIFY : Admission.GLOBAL_LIMIT_NOTIFY;
+        }
+    }
+
+    /**
+     * Ячейка чата в наборе; новый чат занимает пустую ячейку или вытесняет ячейку с самой ранней отметкой.
+     */
+    private int slotOf(long chatId, int set, long now) {
+        int base = set * WAYS;
+        int victim = base;
+        for (int slot = base; slot < base + WAYS; slot++) {
+            if (chats[slot] == chatId) {
+                return slot;
+            }
+            if (chats[slot] == EMPTY) {
+                // Ячейки набора заполняются по порядку и не освобождаются: дальше чата быть не может
+                victim = slot;
+                break;
+            }
+            if (fullAt[slot] - fullAt[victim] < 0) {
+                victim = slot;
+            }
+        }
+        chats[victim] = chatId;
+        fullAt[victim] = now;
+        notified[victim] = false;
+        return victim;
+    }
+
+    private static long mix(long chatId) {
+        long mixed = chatId * 0x9E3779B97F4A7C15L;
+        return mixed ^ (mixed >>> 32);
+    }
+
+    enum Admission {
+        ACCEPTED,
+        CHAT_LIMIT,
+        CHAT_LIMIT_NOTIFY,
+        GLOBAL_LIMIT,
+        GLOBAL_LIMIT_NOTIFY
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.throttle;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничение входящих обновлений до разбора команды и обращения к базе: корзина токенов на каждый чат
+ * и общая на экземпляр. Один чат, засыпающий бота сообщениями, упирается в свою корзину и не замедляет
+ * остальных; общая корзина срезает всплеск сверх того, что экземпляр успевает обработать.
+ * <p>
+ * Лишнее обновление отбрасывается. Чату один раз отвечают, что сообщений слишком много, и до первого
+ * принятого обновления больше не отвечают, чтобы ответы сами не стали потоком.
+ */
+@Component
+public class InboundRateLimiter {
+
+    public enum Decision {
+        ACCEPT,
+        /** Отбросить молча: чату уже ответили. */
+        DROP,
+        /** Отбросить и один раз ответить чату. */
+        DROP_AND_NOTIFY
+    }
+
+    private final boolean enabled;
+    private final ChatRateTable chats;
+    private final TokenBucket global;
+    private final LongAdder rejectedByChat = new LongAdder();
+    private final LongAdder rejectedGlobally = new LongAdder();
+
+    public InboundRateLimiter(@Value("${bot.inbound.enabled:true}") boolean enabled,
+                              @Value("${bot.inbound.per-chat-rate:1}") double perChatRate,
+                              @Value("${bot.inbound.per-chat-burst:10}") double perChatBurst,
+                              @Value("${bot.inbound.global-rate:200}") double globalRate,
+                              @Value("${bot.inbound.global-burst:400}") double globalBurst,
+                              @Value("${bot.inbound.tracked-chats:65536}") int trackedChats) {
+        this.enabled = enabled;
+        this.chats = enabled ? new ChatRateTable(perChatRate, perChatBurst, trackedChats) : null;
+        this.global = enabled ? new TokenBucket(globalRate, globalBurst) : null;
+    }
+
+    /**
+     * Решает, обрабатывать ли обновление чата.
+     */
+    public Decision tryAcquire(long chatId) {
+        if (!enabled) {
+            return Decision.ACCEPT;
+        }
+        return switch (chats.acquire(chatId, global, System.nanoTime())) {
+            case ACCEPTED -> Decision.ACCEPT;
+            case CHAT_LIMIT -> reject(rejectedByChat, Decision.DROP);
+            case CHAT_LIMIT_NOTIFY -> reject(rejectedByChat, Decision.DROP_AND_NOTIFY);
+            case GLOBAL_LIMIT -> reject(rejectedGlobally, Decision.DROP);
+            case GLOBAL_LIMIT_NOTIFY -> reject(rejectedGlobally, Decision.DROP_AND_NOTIFY);
+        };
+    }
+
+    /**
+     * Обновления, отброшенные по лимиту чата, с момента запуска.
+     */
+    public long getRejectedByChat() {
+        return rejectedByChat.sum();
+    }
+
+    /**
+     * Обновления, отброшенные по общему лимиту, с момента запуска.
+     */
+    public long getRejectedGlobally() {
+        return rejectedGlobally.sum();
+    }
+
+    private static Decision reject(LongAdder counter, Decision decision) {
+        counter.increment();
+        return decision;
+    }
+}
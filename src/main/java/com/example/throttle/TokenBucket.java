@@ -0,0 +1,72 @@
+package com.example.throttle;
+
+/**
+ * Корзина токенов: допускает кратковременный всплеск до {@code capacity} операций
+ * и затем не более {@code ratePerSecond} операций в секунду.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Скорость и ёмкость корзины токенов должны быть положительными.");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Пытается забрать один токен.
+     *
+     * @return true, если токен получен
+     */
+    public synchronized boolean tryAcquire() {
+        refill(System.nanoTime());
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Забирает один токен, при необходимости ожидая его появления.
+     *
+     * @throws InterruptedException если ожидание прервано
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = tryAcquireOrWait()) > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    /**
+     * Забирает токен, если он есть, иначе возвращает время до появления следующего токена,
+     * не блокируя вызывающий поток.
+     *
+     * @return 0, если токен получен, иначе время ожидания в наносекундах
+     */
+    public synchronized long tryAcquireOrWait() {
+        refill(System.nanoTime());
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
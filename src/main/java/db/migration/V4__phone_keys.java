@@ -0,0 +1,128 @@
+package db.migration;
+
+import com.example.phone.PhoneNumbers;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Заполнение канонического номера (phone_key) у записей, созданных до его появления.
+ * Проходит по users без phone_key порциями по id. Записи, номер которых не распознан или совпал
+ * с номером другого пользователя, остаются без ключа и попадают в отчёт (плейсхолдер phone_key_report):
+ * их нужно объединить вручную. Миграция выполняется один раз, до создания кешей Hibernate и приёма обновлений;
+ * на время заполнения таблица users закрыта для записи, чтобы ключ не заняли параллельно.
+ */
+public class V4__phone_keys extends BaseJavaMigration {
+    private static final Logger logger = LoggerFactory.getLogger(V4__phone_keys.class);
+
+    private static final int DEFAULT_CHUNK = 1000;
+
+    @Override
+    public void migrate(Context context) throws IOException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        Map<String, String> placeholders = context.getConfiguration().getPlaceholders();
+        String chunk = placeholders.get("phone_key_chunk");
+        int chunkSize = chunk == null ? DEFAULT_CHUNK : Integer.parseInt(chunk);
+        Path reportPath = Path.of(placeholders.getOrDefault("phone_key_report", "phone-key-conflicts.csv"));
+
+        // Базы, созданные ddl-auto до появления ключа, получают столбец здесь
+        jdbcTemplate.execute("ALTER TABLE users ADD COLUMN IF NOT EXISTS phone_key BIGINT UNIQUE");
+        jdbcTemplate.execute("LOCK TABLE users IN SHARE MODE");
+
+        long cursor = 0;
+        long filled = 0;
+        List<String> conflicts = new ArrayList<>();
+        while (true) {
+            List<LegacyRow> rows = jdbcTemplate.query(
+                    "SELECT id, chat_id, phone_number FROM users WHERE phone_key IS NULL AND id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new LegacyRow(rs.getLong(1), rs.getLong(2), rs.getString(3)),
+                    cursor, chunkSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            cursor = rows.get(rows.size() - 1).id();
+            filled += fill(jdbcTemplate, rows, conflicts);
+        }
+
+        if (filled > 0 || !conflicts.isEmpty()) {
+            logger.info("Канонические номера заполнены: {}, без номера осталось: {}", filled, conflicts.size());
+        }
+        if (!conflicts.isEmpty()) {
+            writeReport(reportPath, conflicts);
+            logger.warn("Найдены нераспознанные и повторяющиеся номера, отчёт: {}", reportPath.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Заполняет ключи порции. Ключ получает запись с меньшим id; при совпадении с уже заполненным ключом
+     * запись уходит в отчёт вместе с id пользователя, за которым номер закреплён.
+     */
+    private static int fill(JdbcTemplate jdbcTemplate, List<LegacyRow> rows, List<String> conflicts) {
+        Map<Long, Long> owners = new HashMap<>();
+        List<Long> keys = new ArrayList<>();
+        for (LegacyRow row : rows) {
+            long key = PhoneNumbers.parse(row.phoneNumber());
+            if (key != PhoneNumbers.INVALID) {
+                keys.add(key);
+            }
+        }
+        if (!keys.isEmpty()) {
+            jdbcTemplate.query("SELECT phone_key, id FROM users WHERE phone_key = ANY (?)",
+                    rs -> {
+                        owners.put(rs.getLong(1), rs.getLong(2));
+                    },
+                    (Object) keys.toArray(new Long[0]));
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        for (LegacyRow row : rows) {
+            long key = PhoneNumbers.parse(row.phoneNumber());
+            if (key == PhoneNumbers.INVALID) {
+                conflicts.add(reportLine(row, "", "", "номер не распознан"));
+                continue;
+            }
+            Long owner = owners.putIfAbsent(key, row.id());
+            if (owner != null) {
+                conflicts.add(reportLine(row, String.valueOf(key), String.valueOf(owner), "номер уже у другого пользователя"));
+                continue;
+            }
+            updates.add(new Object[]{key, row.id()});
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE users SET phone_key = ? WHERE id = ?", updates);
+        }
+        return updates.size();
+    }
+
+    private static String reportLine(LegacyRow row, String phoneKey, String ownerId, String reason) {
+        return row.id() + "," + row.chatId() + ",\"" + row.phoneNumber().replace("\"", "\"\"") + "\","
+                + phoneKey + "," + ownerId + "," + reason;
+    }
+
+    private static void writeReport(Path reportPath, List<String> conflicts) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+            out.write("user_id,chat_id,phone_number,phone_key,owner_user_id,reason");
+            out.newLine();
+            for (String line : conflicts) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+    }
+
+    private record LegacyRow(long id, long chatId, String phoneNumber) {
+    }
+}
@@ -0,0 +1,72 @@
+-- Schema as of the switch from ddl-auto=update to versioned migrations.
+-- Existing databases are baselined at version 1 without running this script (spring.flyway.baseline-on-migrate).
+
+create sequence points_transactions_seq start with 1 increment by 50;
+
+create table users (
+    id bigint generated by default as identity,
+    chat_id bigint not null unique,
+    phone_number varchar(255) not null unique,
+    phone_key bigint unique,
+    points integer not null,
+    is_employee boolean not null,
+    is_admin boolean not null,
+    primary key (id)
+);
+
+create table points_transactions (
+    id bigint not null,
+    customer_id bigint not null,
+    employee_id bigint,
+    delta integer not null,
+    balance_after integer not null,
+    idempotency_key varchar(128) unique,
+    created_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create index idx_points_transactions_customer on points_transactions (customer_id, id);
+
+create table points_balance_snapshots (
+    customer_id bigint not null,
+    balance integer not null,
+    last_transaction_id bigint not null,
+    verified_at timestamp(6) with time zone not null,
+    primary key (customer_id)
+);
+
+create table conversation_states (
+    chat_id bigint not null,
+    state varchar(64) not null,
+    data varchar(255),
+    updated_at timestamp(6) with time zone not null,
+    primary key (chat_id)
+);
+
+create table bot_checkpoints (
+    name varchar(64) not null,
+    value bigint not null,
+    updated_at timestamp(6) with time zone not null,
+    primary key (name)
+);
+
+create table bot_nodes (
+    node_id varchar(64) not null,
+    url varchar(255) not null,
+    heartbeat_at timestamp(6) with time zone not null,
+    primary key (node_id)
+);
+
+create table campaigns (
+    id bigint generated by default as identity,
+    text text not null,
+    status varchar(16) not null,
+    created_by bigint not null,
+    created_at timestamp(6) with time zone not null,
+    finished_at timestamp(6) with time zone,
+    last_user_id bigint not null,
+    delivered bigint not null,
+    failed bigint not null,
+    blocked bigint not null,
+    primary key (id)
+);
@@ -0,0 +1,36 @@
+-- Aggregates behind /stats, maintained by LoyaltyStats in the transaction of every points operation.
+-- Existing ledger entries are folded in once; days are counted in bot.stats.zone.
+-- Databases that ran with ddl-auto=update may already have the tables filled by the bot, so they are left as is.
+
+create table if not exists employee_daily_totals (
+    day date not null,
+    employee_id bigint not null,
+    earned bigint not null,
+    redeemed bigint not null,
+    operations bigint not null,
+    primary key (day, employee_id)
+);
+
+create table if not exists customer_monthly_totals (
+    month date not null,
+    customer_id bigint not null,
+    earned bigint not null,
+    redeemed bigint not null,
+    primary key (month, customer_id)
+);
+
+create index if not exists idx_customer_monthly_totals_top on customer_monthly_totals (month, earned desc, customer_id);
+
+insert into employee_daily_totals (day, employee_id, earned, redeemed, operations)
+select (created_at at time zone '${stats_zone}')::date, coalesce(employee_id, 0),
+       sum(greatest(delta, 0)), sum(greatest(-delta, 0)), count(*)
+from points_transactions
+where not exists (select 1 from employee_daily_totals)
+group by 1, 2;
+
+insert into customer_monthly_totals (month, customer_id, earned, redeemed)
+select date_trunc('month', created_at at time zone '${stats_zone}')::date, customer_id,
+       sum(greatest(delta, 0)), sum(greatest(-delta, 0))
+from points_transactions
+where not exists (select 1 from customer_monthly_totals)
+group by 1, 2;
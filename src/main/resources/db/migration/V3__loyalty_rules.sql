@@ -0,0 +1,22 @@
+-- Loyalty rules compiled by LoyaltyRules; see RuleKind for the meaning of amount per kind.
+-- Seeded with the limits and the reward the bot used before rules existed.
+
+create table if not exists loyalty_rules (
+    id bigint generated by default as identity,
+    kind varchar(32) not null,
+    amount integer not null,
+    title varchar(255),
+    starts_at time(6),
+    ends_at time(6),
+    valid_from date,
+    valid_until date,
+    enabled boolean not null,
+    primary key (id)
+);
+
+insert into loyalty_rules (kind, amount, title, enabled)
+select kind, amount, title, true
+from (values ('REDEEM_MIN', 1, null),
+             ('REDEEM_MAX', 30, null),
+             ('REWARD', 10, 'кружка кофе в подарок')) as defaults (kind, amount, title)
+where not exists (select 1 from loyalty_rules);
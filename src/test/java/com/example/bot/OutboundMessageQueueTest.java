@@ -0,0 +1,110 @@
+package com.example.bot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class OutboundMessageQueueTest {
+
+    private final TelegramSender sender = mock(TelegramSender.class);
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private OutboundMessageQueue queue;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        queue.destroy();
+    }
+
+    private OutboundMessageQueue queue(double perChatRate, double perChatBurst, Duration backoff) {
+        return new OutboundMessageQueue(sender, new SimpleMeterRegistry(), 1, 100, 1e9, perChatRate, perChatBurst,
+                3, backoff);
+    }
+
+    private void recordSent() throws TelegramApiException {
+        doAnswer(invocation -> {
+            sent.add(invocation.<SendMessage>getArgument(0).getText());
+            return null;
+        }).when(sender).execute(any(SendMessage.class));
+    }
+
+    @Test
+    void chatOverItsLimitDoesNotHoldOtherChats() throws Exception {
+        recordSent();
+        queue = queue(1, 1, Duration.ofMillis(10));
+
+        queue.send(1, "a1", MessagePriority.NOTIFICATION);
+        queue.send(1, "a2", MessagePriority.NOTIFICATION);
+        CompletableFuture<DeliveryStatus> last = queue.send(1, "a3", MessagePriority.NOTIFICATION);
+        CompletableFuture<DeliveryStatus> other = queue.send(2, "b1", MessagePriority.TRANSACTION);
+
+        assertEquals(DeliveryStatus.DELIVERED, other.get(500, TimeUnit.MILLISECONDS));
+        assertEquals(DeliveryStatus.DELIVERED, last.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a1", "a2", "a3"), sent.stream().filter(text -> text.startsWith("a")).toList());
+        assertTrue(sent.indexOf("b1") < sent.indexOf("a2"));
+    }
+
+    @Test
+    void messagesOfOneChatKeepOrderAcrossPriorities() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            String text = invocation.<SendMessage>getArgument(0).getText();
+            if (text.equals("blocker")) {
+                release.await();
+            }
+            sent.add(text);
+            return null;
+        }).when(sender).execute(any(SendMessage.class));
+        queue = queue(1e9, 1e9, Duration.ofMillis(10));
+
+        queue.send(3, "blocker", MessagePriority.REPLY);
+        Thread.sleep(100);
+        queue.send(1, "a-broadcast", MessagePriority.BROADCAST);
+        CompletableFuture<DeliveryStatus> last = queue.send(1, "a-receipt", MessagePriority.TRANSACTION);
+        queue.send(2, "b-reply", MessagePriority.REPLY);
+        release.countDown();
+
+        last.get(5, TimeUnit.SECONDS);
+        // Между чатами раньше идёт более важное первое сообщение, внутри чата порядок не меняется
+        assertEquals(List.of("blocker", "b-reply", "a-broadcast", "a-receipt"), sent);
+    }
+
+    @Test
+    void retryBackoffDoesNotHoldOtherChats() throws Exception {
+        AtomicBoolean failed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            String text = invocation.<SendMessage>getArgument(0).getText();
+            if (text.equals("a1") && failed.compareAndSet(false, true)) {
+                sent.add("a1-failed");
+                throw new TelegramApiException("connection reset");
+            }
+            sent.add(text);
+            return null;
+        }).when(sender).execute(any(SendMessage.class));
+        queue = queue(1e9, 1e9, Duration.ofMillis(500));
+
+        CompletableFuture<DeliveryStatus> retried = queue.send(1, "a1", MessagePriority.REPLY);
+        queue.send(1, "a2", MessagePriority.TRANSACTION);
+        CompletableFuture<DeliveryStatus> other = queue.send(2, "b1", MessagePriority.REPLY);
+
+        assertEquals(DeliveryStatus.DELIVERED, other.get(300, TimeUnit.MILLISECONDS));
+        assertEquals(DeliveryStatus.DELIVERED, retried.get(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(List.of("a1-failed", "b1", "a1", "a2"), sent);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.bot;
+
+import com.example.entity.BotCheckpoint;
+import com.example.repository.BotCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UpdateDeduplicatorTest {
+
+    private final BotCheckpointRepository repository = mock(BotCheckpointRepository.class);
+
+    private UpdateDeduplicator deduplicator(long floor, int window) {
+        when(repository.findById("test")).thenReturn(floor == 0 ? Optional.empty()
+                : Optional.of(new BotCheckpoint("test", floor, Instant.now())));
+        return new UpdateDeduplicator(repository, window, "test");
+    }
+
+    @Test
+    void repeatedUpdateIsSkipped() {
+        UpdateDeduplicator deduplicator = deduplicator(0, 1024);
+
+        assertTrue(deduplicator.markIfNew(10));
+        assertTrue(deduplicator.markIfNew(12));
+        assertFalse(deduplicator.markIfNew(10));
+        assertTrue(deduplicator.markIfNew(11));
+        assertEquals(1, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    void updatesAtOrBelowPersistedFloorAreSkipped() {
+        UpdateDeduplicator deduplicator = deduplicator(500, 1024);
+
+        assertFalse(deduplicator.markIfNew(500));
+        assertFalse(deduplicator.markIfNew(450));
+        assertTrue(deduplicator.markIfNew(501));
+    }
+
+    @Test
+    void checkpointStaysBelowUpdateStillInFlight() {
+        UpdateDeduplicator deduplicator = deduplicator(99, 1024);
+        deduplicator.markIfNew(100);
+        deduplicator.markIfNew(101);
+
+        // Другая полоса закончила 101 раньше, чем 100
+        deduplicator.complete(101);
+        assertEquals(99, deduplicator.checkpointValue());
+
+        deduplicator.complete(100);
+        assertEquals(101, deduplicator.checkpointValue());
+    }
+
+    @Test
+    void unfinishedUpdateIsProcessedAfterRestart() {
+        UpdateDeduplicator before = deduplicator(99, 1024);
+        before.markIfNew(100);
+        before.markIfNew(101);
+        before.complete(101);
+        before.flush();
+
+        ArgumentCaptor<BotCheckpoint> saved = ArgumentCaptor.forClass(BotCheckpoint.class);
+        verify(repository, never()).save(any());
+        UpdateDeduplicator after = deduplicator(99, 1024);
+
+        assertTrue(after.markIfNew(100));
+        before.complete(100);
+        before.flush();
+        verify(repository).save(saved.capture());
+        assertEquals(101, saved.getValue().getValue());
+    }
+
+    @Test
+    void updateStillInFlightWhenWindowMovesHoldsCheckpoint() {
+        UpdateDeduplicator deduplicator = deduplicator(0, 64);
+        for (long id = 1; id <= 200; id++) {
+            assertTrue(deduplicator.markIfNew(id));
+            if (id != 3) {
+                deduplicator.complete(id);
+            }
+        }
+        assertEquals(2, deduplicator.checkpointValue());
+
+        deduplicator.complete(3);
+        assertEquals(200, deduplicator.checkpointValue());
+    }
+
+    @Test
+    void jumpFarAheadKeepsUpdateInFlight() {
+        UpdateDeduplicator deduplicator = deduplicator(0, 64);
+        deduplicator.markIfNew(10);
+        deduplicator.markIfNew(1_000);
+        deduplicator.complete(1_000);
+        assertEquals(9, deduplicator.checkpointValue());
+
+        deduplicator.complete(10);
+        assertEquals(1_000, deduplicator.checkpointValue());
+    }
+
+    @Test
+    void updateFarBelowFloorStartsNewNumbering() {
+        UpdateDeduplicator deduplicator = deduplicator(1_000_000, 1024);
+
+        assertTrue(deduplicator.markIfNew(5));
+        assertFalse(deduplicator.markIfNew(5));
+        assertTrue(deduplicator.markIfNew(6));
+        assertEquals(1, deduplicator.getRenumberingCount());
+
+        deduplicator.complete(5);
+        deduplicator.complete(6);
+        assertEquals(6, deduplicator.checkpointValue());
+    }
+
+    @Test
+    void updateSlightlyBelowFloorIsStillDuplicate() {
+        UpdateDeduplicator deduplicator = deduplicator(1_000_000, 1024);
+
+        assertFalse(deduplicator.markIfNew(1_000_000 - 100));
+        assertEquals(0, deduplicator.getRenumberingCount());
+    }
+
+    @Test
+    void flushSkipsUnchangedCheckpoint() {
+        UpdateDeduplicator deduplicator = deduplicator(99, 1024);
+        deduplicator.flush();
+        deduplicator.markIfNew(100);
+        deduplicator.flush();
+
+        verify(repository, never()).save(any());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bot.command;
+
+import com.example.entity.UserState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CommandRouterTest {
+
+    private final Handler balance = new Handler("balance", List.of("/balance", "баланс"), Set.of());
+    private final Handler addPoints = new Handler("addpoints", List.of("/addpoints"),
+            Set.of(UserState.ADD_POINTS_AWAITING_PHONE, UserState.ADD_POINTS_AWAITING_AMOUNT));
+    private final Handler help = new Handler("help", List.of("/help", "помощь"), Set.of());
+    private final CommandRouter router = new CommandRouter(List.of(balance, addPoints, help));
+
+    @Test
+    void routesByFirstWordIgnoringCase() {
+        assertSame(balance, router.route("/balance"));
+        assertSame(balance, router.route("/BALANCE"));
+        assertSame(balance, router.route("Баланс"));
+        assertSame(help, router.route("  помощь  "));
+        assertSame(addPoints, router.route("/addpoints +79991234567 5"));
+    }
+
+    @Test
+    void dropsBotNameAddedInGroups() {
+        assertSame(help, router.route("/help@coffee_bot"));
+        assertSame(addPoints, router.route("/addpoints@coffee_bot +79991234567 5"));
+        // Имя бота отбрасывается только у команд со слэшем
+        assertNull(router.route("помощь@coffee_bot"));
+    }
+
+    @Test
+    void unknownOrPartialCommandsAreNotRouted() {
+        assertNull(router.route(""));
+        assertNull(router.route("   "));
+        assertNull(router.route("/bal"));
+        assertNull(router.route("/balances"));
+        assertNull(router.route("/"));
+        assertNull(router.route("/@coffee_bot"));
+    }
+
+    @Test
+    void argumentsStartAfterCommandWord() {
+        String text = "/addpoints@coffee_bot +79991234567 5";
+        assertEquals("+79991234567 5", text.substring(router.argumentsStart(text)));
+        assertEquals("", "/balance".substring(router.argumentsStart("/balance")));
+        assertEquals("x", "  /help x".substring(router.argumentsStart("  /help x")));
+    }
+
+    @Test
+    void findsConversationAndCallbackHandlers() {
+        assertSame(addPoints, router.forState(UserState.ADD_POINTS_AWAITING_AMOUNT));
+        assertNull(router.forState(UserState.REDEEM_AWAITING_PHONE));
+
+        String data = "addpoints:79991234567:5";
+        assertSame(addPoints, router.forCallback(data));
+        assertEquals("79991234567:5", data.substring(router.callbackArgumentsStart(data)));
+        assertNull(router.forCallback("addpoints"));
+        assertNull(router.forCallback("unknown:1"));
+    }
+
+    @Test
+    void manyAliasesStayReachable() {
+        List<CommandHandler> handlers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            handlers.add(new Handler("cmd" + i, List.of("/cmd" + i, "команда" + i), Set.of()));
+        }
+        CommandRouter large = new CommandRouter(handlers);
+        for (int i = 0; i < 200; i++) {
+            assertSame(handlers.get(i), large.route("/CMD" + i + " arg"));
+            assertSame(handlers.get(i), large.route("команда" + i));
+        }
+    }
+
+    @Test
+    void rejectsDuplicateAliasesNamesAndStates() {
+        Handler other = new Handler("other", List.of("/Balance"), Set.of());
+        assertThrows(IllegalStateException.class, () -> new CommandRouter(List.of(balance, other)));
+
+        Handler sameName = new Handler("balance", List.of("/mybalance"), Set.of());
+        assertThrows(IllegalStateException.class, () -> new CommandRouter(List.of(balance, sameName)));
+
+        Handler sameState = new Handler("redeem", List.of("/redeem"), Set.of(UserState.ADD_POINTS_AWAITING_PHONE));
+        assertThrows(IllegalStateException.class, () -> new CommandRouter(List.of(addPoints, sameState)));
+    }
+
+    private record Handler(String name, List<String> aliases, Set<UserState> states) implements CommandHandler {
+
+        @Override
+        public Role requiredRole() {
+            return Role.GUEST;
+        }
+
+        @Override
+        public String description() {
+            return name;
+        }
+
+        @Override
+        public void handle(CommandContext context) {
+        }
+    }
+}
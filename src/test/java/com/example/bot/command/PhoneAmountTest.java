@@ -0,0 +1,50 @@
+package com.example.bot.command;
+
+import com.example.phone.PhoneNumbers;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PhoneAmountTest {
+
+    @Test
+    void callbackKeepsForeignPhoneKeys() {
+        // Япония и Вьетнам: 11 цифр с ведущей 8 не должны превращаться в российские номера
+        assertEquals(81312345678L, PhoneAmount.ofCallback("81312345678:5").phoneKey());
+        assertEquals(84912345678L, PhoneAmount.ofCallback("84912345678:5").phoneKey());
+        // Короткие ключи (8–10 цифр) и ключ из 10 цифр с ведущей 9 остаются как есть
+        assertEquals(3541234567L, PhoneAmount.ofCallback("3541234567:1").phoneKey());
+        assertEquals(9721234567L, PhoneAmount.ofCallback("9721234567:1").phoneKey());
+        assertEquals(37212345L, PhoneAmount.ofCallback("37212345:1").phoneKey());
+    }
+
+    @Test
+    void callbackKeyRoundTripsThroughQuickAmounts() {
+        long phoneKey = PhoneNumbers.parse("+81 3 1234 5678");
+        PhoneAmount pressed = PhoneAmount.ofCallback(phoneKey + ":10");
+
+        assertEquals("+81312345678", pressed.phoneNumber());
+        assertEquals(10, pressed.amount());
+    }
+
+    @Test
+    void malformedCallbackHasNoPhone() {
+        assertFalse(PhoneAmount.ofCallback("79991234567").hasPhone());
+        assertFalse(PhoneAmount.ofCallback("abc:5").hasPhone());
+        assertFalse(PhoneAmount.ofCallback("-5:5").hasPhone());
+        assertNull(PhoneAmount.ofCallback("79991234567:x").amount());
+    }
+
+    @Test
+    void oneMessageCommandNeedsPhoneWrittenTogether() {
+        PhoneAmount oneShot = PhoneAmount.parse("89991234567 5");
+        assertEquals(79991234567L, oneShot.phoneKey());
+        assertEquals(5, oneShot.amount());
+
+        PhoneAmount phoneOnly = PhoneAmount.parse("+7 999 123 45 67");
+        assertEquals(79991234567L, phoneOnly.phoneKey());
+        assertNull(phoneOnly.amount());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.phone;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PhoneNumbersTest {
+
+    private static final long KEY = 79991234567L;
+
+    @Test
+    void russianNumbersInAnyNotationGiveOneKey() {
+        assertEquals(KEY, PhoneNumbers.parse("+7 (999) 123-45-67"));
+        assertEquals(KEY, PhoneNumbers.parse("89991234567"));
+        assertEquals(KEY, PhoneNumbers.parse("8 999 123-45-67"));
+        assertEquals(KEY, PhoneNumbers.parse("79991234567"));
+        assertEquals(KEY, PhoneNumbers.parse("9991234567"));
+        assertEquals(KEY, PhoneNumbers.parse("  +7.999.123.45.67\t"));
+    }
+
+    @Test
+    void numberWithPlusIsTakenAsIs() {
+        assertEquals(81312345678L, PhoneNumbers.parse("+81 3 1234 5678"));
+        assertEquals(89991234567L, PhoneNumbers.parse("+89991234567"));
+        assertEquals(37212345L, PhoneNumbers.parse("+372 1234 5"));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("+3721234"));
+    }
+
+    @Test
+    void numberWithoutPlusNeedsCountryCode() {
+        assertEquals(380501234567L, PhoneNumbers.parse("380501234567"));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("1234567890"));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("12345"));
+    }
+
+    @Test
+    void malformedNumbersAreInvalid() {
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse(null));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse(""));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("   "));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("+"));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("+7999abc4567"));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("09991234567"));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.parse("+1234567890123456"));
+    }
+
+    @Test
+    void longestNumberFitsInKey() {
+        assertEquals(999_999_999_999_999L, PhoneNumbers.parse("+999999999999999"));
+    }
+
+    @Test
+    void normalizeFormatsKeyAndRejectsGarbage() {
+        assertEquals("+79991234567", PhoneNumbers.normalize("8 (999) 123-45-67"));
+        assertEquals("+79991234567", PhoneNumbers.format(KEY));
+        assertThrows(IllegalArgumentException.class, () -> PhoneNumbers.toKey("not a phone"));
+    }
+}
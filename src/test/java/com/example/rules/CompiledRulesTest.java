@@ -0,0 +1,158 @@
+package com.example.rules;
+
+import com.example.entity.LoyaltyRule;
+import com.example.entity.RuleKind;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledRulesTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Moscow");
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    void withoutRulesRedemptionKeepsOldLimits() {
+        CompiledRules rules = CompiledRules.compile(List.of(), ZONE, TODAY);
+
+        assertEquals(5, rules.accrual(5, at(TODAY, 12, 0)));
+        assertTrue(rules.allowsRedemption(1));
+        assertTrue(rules.allowsRedemption(30));
+        assertFalse(rules.allowsRedemption(0));
+        assertFalse(rules.allowsRedemption(31));
+        assertThrows(IllegalArgumentException.class, () -> rules.checkRedemption(31));
+    }
+
+    @Test
+    void windowAcrossMidnightCoversBothDays() {
+        CompiledRules rules = compile(windowed(RuleKind.BONUS, 3, LocalTime.of(22, 0), LocalTime.of(2, 0)));
+
+        assertEquals(5, rules.accrual(5, at(TODAY, 21, 59)));
+        assertEquals(8, rules.accrual(5, at(TODAY, 22, 0)));
+        assertEquals(8, rules.accrual(5, at(TODAY, 23, 59)));
+        assertEquals(8, rules.accrual(5, at(TODAY.plusDays(1), 0, 0)));
+        assertEquals(8, rules.accrual(5, at(TODAY.plusDays(1), 1, 59)));
+        // Конец окна не включается
+        assertEquals(5, rules.accrual(5, at(TODAY.plusDays(1), 2, 0)));
+        assertEquals(5, rules.accrual(5, at(TODAY, 12, 0)));
+    }
+
+    @Test
+    void windowIsCheckedInShopZone() {
+        CompiledRules rules = compile(windowed(RuleKind.MULTIPLIER, 200, LocalTime.of(8, 0), LocalTime.of(10, 0)));
+
+        // 06:00 UTC — это 09:00 по Москве
+        assertEquals(10, rules.accrual(5, Instant.parse("2026-03-10T06:00:00Z")));
+        assertEquals(5, rules.accrual(5, Instant.parse("2026-03-10T08:00:00Z")));
+    }
+
+    @Test
+    void windowRespectsValidDates() {
+        LoyaltyRule bonus = windowed(RuleKind.BONUS, 2, LocalTime.of(22, 0), LocalTime.of(2, 0));
+        bonus.setValidFrom(TODAY);
+        bonus.setValidUntil(TODAY);
+        CompiledRules rules = compile(bonus);
+
+        assertEquals(7, rules.accrual(5, at(TODAY, 23, 0)));
+        // После полуночи уже следующие сутки, а правило действует только сегодня
+        assertEquals(5, rules.accrual(5, at(TODAY.plusDays(1), 1, 0)));
+        assertEquals(5, rules.accrual(5, at(TODAY.minusDays(1), 23, 0)));
+    }
+
+    @Test
+    void largestMultiplierThenBonusesThenCap() {
+        CompiledRules rules = compile(
+                new LoyaltyRule(RuleKind.MULTIPLIER, 150, null),
+                new LoyaltyRule(RuleKind.MULTIPLIER, 200, null),
+                new LoyaltyRule(RuleKind.BONUS, 1, null),
+                new LoyaltyRule(RuleKind.BONUS, 2, null),
+                new LoyaltyRule(RuleKind.ACCRUAL_CAP, 20, null));
+
+        assertEquals(13, rules.accrual(5, at(TODAY, 12, 0)));
+        assertEquals(20, rules.accrual(10, at(TODAY, 12, 0)));
+        assertEquals(0, rules.accrual(0, at(TODAY, 12, 0)));
+    }
+
+    @Test
+    void redemptionLimitsFromRules() {
+        CompiledRules rules = compile(
+                new LoyaltyRule(RuleKind.REDEEM_MIN, 5, null),
+                new LoyaltyRule(RuleKind.REDEEM_MAX, 50, null));
+
+        assertEquals(5, rules.redeemMin());
+        assertEquals(50, rules.redeemMax());
+        assertFalse(rules.allowsRedemption(4));
+        assertTrue(rules.allowsRedemption(5));
+        assertTrue(rules.allowsRedemption(50));
+        assertFalse(rules.allowsRedemption(51));
+
+        // Нулевой минимум не разрешает списывать ноль баллов
+        assertEquals(1, compile(new LoyaltyRule(RuleKind.REDEEM_MIN, 0, null)).redeemMin());
+    }
+
+    @Test
+    void limitsOutsideValidDatesAreSkipped() {
+        LoyaltyRule expired = new LoyaltyRule(RuleKind.REDEEM_MAX, 100, null);
+        expired.setValidUntil(TODAY.minusDays(1));
+
+        assertEquals(CompiledRules.DEFAULT_REDEEM_MAX, compile(expired).redeemMax());
+    }
+
+    @Test
+    void contradictoryRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> compile(
+                new LoyaltyRule(RuleKind.REDEEM_MIN, 40, null),
+                new LoyaltyRule(RuleKind.REDEEM_MAX, 30, null)));
+        assertThrows(IllegalArgumentException.class, () -> compile(
+                new LoyaltyRule(RuleKind.ACCRUAL_CAP, 10, null),
+                new LoyaltyRule(RuleKind.ACCRUAL_CAP, 20, null)));
+        assertThrows(IllegalArgumentException.class, () -> compile(
+                windowed(RuleKind.REDEEM_MAX, 10, LocalTime.of(8, 0), LocalTime.of(9, 0))));
+        assertThrows(IllegalArgumentException.class, () -> compile(
+                new LoyaltyRule(RuleKind.MULTIPLIER, 0, null)));
+        assertThrows(IllegalArgumentException.class, () -> compile(
+                new LoyaltyRule(RuleKind.REWARD, 100, " ")));
+
+        LoyaltyRule halfWindow = new LoyaltyRule(RuleKind.BONUS, 1, null);
+        halfWindow.setStartsAt(LocalTime.of(8, 0));
+        assertThrows(IllegalArgumentException.class, () -> compile(halfWindow));
+    }
+
+    @Test
+    void rewardReachedPicksHighestCrossedThreshold() {
+        CompiledRules rules = compile(
+                new LoyaltyRule(RuleKind.REWARD, 100, "Десерт"),
+                new LoyaltyRule(RuleKind.REWARD, 50, "Кофе"));
+
+        assertEquals(Optional.of("Кофе"), rules.rewardReached(45, 60));
+        assertEquals(Optional.of("Десерт"), rules.rewardReached(45, 120));
+        assertEquals(Optional.empty(), rules.rewardReached(50, 60));
+        assertTrue(rules.promotion().orElseThrow().indexOf("50 баллов") < rules.promotion().orElseThrow().indexOf("100 баллов"));
+    }
+
+    private static CompiledRules compile(LoyaltyRule... rules) {
+        return CompiledRules.compile(List.of(rules), ZONE, TODAY);
+    }
+
+    private static LoyaltyRule windowed(RuleKind kind, int amount, LocalTime startsAt, LocalTime endsAt) {
+        LoyaltyRule rule = new LoyaltyRule(kind, amount, null);
+        rule.setStartsAt(startsAt);
+        rule.setEndsAt(endsAt);
+        return rule;
+    }
+
+    private static Instant at(LocalDate day, int hour, int minute) {
+        return LocalDateTime.of(day, LocalTime.of(hour, minute)).atZone(ZONE).toInstant();
+    }
+}
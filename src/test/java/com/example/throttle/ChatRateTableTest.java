@@ -0,0 +1,115 @@
+package com.example.throttle;
+
+import com.example.throttle.ChatRateTable.Admission;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatRateTableTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    /** Произвольная точка отсчёта: System.nanoTime может быть и отрицательным. */
+    private static final long T0 = -5 * SECOND;
+
+    @Test
+    void burstThenOneTokenPerInterval() {
+        ChatRateTable table = new ChatRateTable(10, 3, 64);
+
+        assertEquals(Admission.ACCEPTED, table.acquire(1, null, T0));
+        assertEquals(Admission.ACCEPTED, table.acquire(1, null, T0));
+        assertEquals(Admission.ACCEPTED, table.acquire(1, null, T0));
+        assertEquals(Admission.CHAT_LIMIT_NOTIFY, table.acquire(1, null, T0));
+
+        // Через 100 мс пополнился ровно один токен
+        assertEquals(Admission.CHAT_LIMIT, table.acquire(1, null, T0 + SECOND / 10 - 1));
+        assertEquals(Admission.ACCEPTED, table.acquire(1, null, T0 + SECOND / 10));
+        assertEquals(Admission.CHAT_LIMIT_NOTIFY, table.acquire(1, null, T0 + SECOND / 10));
+    }
+
+    @Test
+    void idleChatDoesNotAccumulateMoreThanBurst() {
+        ChatRateTable table = new ChatRateTable(10, 3, 64);
+        table.acquire(1, null, T0);
+
+        long later = T0 + 60 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Admission.ACCEPTED, table.acquire(1, null, later));
+        }
+        assertEquals(Admission.CHAT_LIMIT_NOTIFY, table.acquire(1, null, later));
+    }
+
+    @Test
+    void chatsHaveSeparateBuckets() {
+        ChatRateTable table = new ChatRateTable(1, 1, 64);
+
+        assertEquals(Admission.ACCEPTED, table.acquire(1, null, T0));
+        assertEquals(Admission.CHAT_LIMIT_NOTIFY, table.acquire(1, null, T0));
+        assertEquals(Admission.ACCEPTED, table.acquire(2, null, T0));
+        assertEquals(Admission.ACCEPTED, table.acquire(-1, null, T0));
+    }
+
+    @Test
+    void globalLimitDoesNotSpendChatToken() {
+        ChatRateTable table = new ChatRateTable(1, 1, 64);
+        TokenBucket global = new TokenBucket(0.001, 1);
+
+        assertEquals(Admission.ACCEPTED, table.acquire(1, global, T0));
+        assertEquals(Admission.GLOBAL_LIMIT_NOTIFY, table.acquire(2, global, T0));
+        assertEquals(Admission.GLOBAL_LIMIT, table.acquire(2, global, T0));
+        // Токен чата 2 остался нетронутым
+        assertEquals(Admission.ACCEPTED, table.acquire(2, null, T0));
+        // Собственный лимит чата проверяется раньше общего
+        assertEquals(Admission.CHAT_LIMIT_NOTIFY, table.acquire(2, global, T0));
+    }
+
+    @Test
+    void notificationIsRepeatedAfterAcceptedUpdate() {
+        ChatRateTable table = new ChatRateTable(1, 1, 64);
+
+        table.acquire(1, null, T0);
+        assertEquals(Admission.CHAT_LIMIT_NOTIFY, table.acquire(1, null, T0));
+        assertEquals(Admission.CHAT_LIMIT, table.acquire(1, null, T0));
+        assertEquals(Admission.ACCEPTED, table.acquire(1, null, T0 + SECOND));
+        assertEquals(Admission.CHAT_LIMIT_NOTIFY, table.acquire(1, null, T0 + SECOND));
+    }
+
+    @Test
+    void chatsWithFullBucketsAreEvictedFirst() {
+        ChatRateTable table = new ChatRateTable(1, 2, 16);
+
+        // Чат 1 исчерпал корзину, остальные взяли по одному токену и вытесняются раньше него
+        table.acquire(1, null, T0);
+        table.acquire(1, null, T0);
+        for (long chat = 2; chat < 10_000; chat++) {
+            table.acquire(chat, null, T0);
+        }
+
+        assertEquals(Admission.CHAT_LIMIT_NOTIFY, table.acquire(1, null, T0));
+    }
+
+    @Test
+    void evictedChatStartsWithFullBucket() {
+        ChatRateTable table = new ChatRateTable(1, 1, 16);
+        int chats = 1_000;
+        for (long chat = 0; chat < chats; chat++) {
+            table.acquire(chat, null, T0);
+        }
+
+        // Таблица из двух наборов по 8 ячеек помнит не больше 16 чатов, остальные забыты и получают полную корзину
+        int accepted = 0;
+        for (long chat = 0; chat < chats; chat++) {
+            if (table.acquire(chat, null, T0) == Admission.ACCEPTED) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted >= chats - 2 * ChatRateTable.WAYS, "принято " + accepted);
+    }
+
+    @Test
+    void invalidRateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ChatRateTable(0, 1, 16));
+        assertThrows(IllegalArgumentException.class, () -> new ChatRateTable(1, 0.5, 16));
+    }
+}